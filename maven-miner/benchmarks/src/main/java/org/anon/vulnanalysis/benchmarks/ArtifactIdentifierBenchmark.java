@@ -0,0 +1,95 @@
+package org.anon.vulnanalysis.benchmarks;
+
+import org.anon.vulnanalysis.model.ArtifactDependency;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.pom.dependencies.RecursiveDependencyResolver;
+import org.anon.vulnanalysis.pom.dependencies.ResolverResult;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Measures the identifier operations every resolved artifact goes through: creating identifiers from raw coordinates
+ *  (canonicalization and hashing), building the dependency set of an artifact and looking up equal identifiers that
+ *  were created independently. The coordinates are the dependencies of all POM files in the corpus, in the order the
+ *  resolver produced them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArtifactIdentifierBenchmark {
+
+    private List<String[]> coordinates;
+    private List<ArtifactDependency> dependencies;
+    private Set<ArtifactDependency> dependencySet;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        MinerConfiguration config = MinerConfiguration.getDefaultConfig();
+        this.coordinates = new ArrayList<>();
+
+        for(ArtifactIdentifier identifier : PomCorpus.getIdentifiers()){
+            ResolverResult result = new RecursiveDependencyResolver(new ByteArrayInputStream(PomCorpus.readPom(identifier)),
+                    identifier, config).resolveDependencies();
+
+            if(!result.hasResults())
+                continue;
+
+            for(ArtifactDependency dependency : result.getResults()){
+                coordinates.add(new String[]{ dependency.GroupId, dependency.ArtifactId, dependency.Version, dependency.Scope });
+            }
+        }
+
+        if(coordinates.isEmpty())
+            throw new IllegalStateException("No dependencies resolved from the corpus");
+
+        this.dependencies = createDependencies();
+        this.dependencySet = new HashSet<>(dependencies);
+    }
+
+    private List<ArtifactDependency> createDependencies(){
+        List<ArtifactDependency> created = new ArrayList<>(coordinates.size());
+
+        for(String[] gavs : coordinates){
+            created.add(new ArtifactDependency(copy(gavs[0]), copy(gavs[1]), copy(gavs[2]), copy(gavs[3])));
+        }
+
+        return created;
+    }
+
+    // Identifiers are created from freshly parsed strings in the miner
+    private static String copy(String value){
+        return value == null ? null : new String(value);
+    }
+
+    @Benchmark
+    public List<ArtifactDependency> createIdentifiers(){
+        return createDependencies();
+    }
+
+    @Benchmark
+    public Set<ArtifactDependency> buildDependencySet(){
+        return new HashSet<>(dependencies);
+    }
+
+    @Benchmark
+    public int lookupEqualIdentifiers(){
+        int found = 0;
+
+        for(ArtifactDependency dependency : createDependencies()){
+            if(dependencySet.contains(dependency))
+                found++;
+        }
+
+        return found;
+    }
+}
@@ -0,0 +1,27 @@
+package org.anon.vulnanalysis.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *  Entry point of the benchmark jar. Accepts the usual JMH command line, but attaches the GC profiler (allocation
+ *  rate and bytes allocated per operation) unless profilers are selected explicitly, so that every run reports
+ *  allocations next to the timings.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+
+        if(!arguments.contains("-prof") && !arguments.contains("-l") && !arguments.contains("-lprof") &&
+                !arguments.contains("-h")){
+            arguments.add("-prof");
+            arguments.add("gc");
+        }
+
+        Main.main(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,139 @@
+package org.anon.vulnanalysis.benchmarks;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.model.MavenCentralRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *  A checked-in corpus of real POM hierarchies (artifacts of the Quarkus, Spark, Wildfly, Geronimo, Opencypher and
+ *  Spring Boot families the resolver tests cover, with all their parents and imported BOMs), recorded from Maven
+ *  Central. The corpus is extracted into a temporary directory in Maven repository layout, and the
+ *  MavenCentralRepository is pointed at it, so that benchmarks never touch the network.
+ *
+ *  The corpus is listed in corpus/files.txt, to add artifacts record their hierarchies into the same layout and add
+ *  the new files to that list.
+ */
+public final class PomCorpus {
+
+    /**
+     * Coordinates of the artifacts the corpus was recorded for.
+     */
+    public static final List<String> RootArtifacts = Collections.unmodifiableList(Arrays.asList(
+            "io.quarkus:quarkus-resteasy:1.11.4.Final",
+            "org.apache.spark:spark-repl_2.11:2.4.4",
+            "org.wildfly:wildfly-naming:23.0.0.Final",
+            "org.apache.geronimo.specs:geronimo-jms_1.1_spec:1.1.1",
+            "org.opencypher:okapi-ir:1.0.0-beta3",
+            "org.springframework.boot:spring-boot-starter-web:2.4.5"));
+
+    private static final String ResourcePrefix = "/corpus/";
+
+    private static Path repositoryDirectory = null;
+    private static List<ArtifactIdentifier> identifiers = null;
+
+    private PomCorpus(){
+    }
+
+    /**
+     * Extracts the corpus (once per JVM) and makes it the repository all POM files are read from.
+     */
+    public static synchronized Path install(){
+        if(repositoryDirectory == null){
+            try {
+                Path directory = Files.createTempDirectory("pom-corpus");
+                List<ArtifactIdentifier> extracted = new ArrayList<>();
+
+                for(String file : readFileList()){
+                    Path target = directory.resolve(file);
+                    Files.createDirectories(target.getParent());
+
+                    try(InputStream in = openResource(file)){
+                        Files.copy(in, target);
+                    }
+
+                    extracted.add(toIdentifier(file));
+                }
+
+                repositoryDirectory = directory;
+                identifiers = Collections.unmodifiableList(extracted);
+            } catch(IOException iox){
+                throw new UncheckedIOException("Failed to extract POM corpus", iox);
+            }
+        }
+
+        MavenCentralRepository.setRepoBasePath(repositoryDirectory.toUri().toString());
+        return repositoryDirectory;
+    }
+
+    /**
+     * Returns the identifiers of all POM files in the corpus.
+     */
+    public static List<ArtifactIdentifier> getIdentifiers(){
+        install();
+        return identifiers;
+    }
+
+    public static ArtifactIdentifier parse(String coordinates){
+        String[] parts = coordinates.split(":");
+        return new ArtifactIdentifier(parts[0], parts[1], parts[2]);
+    }
+
+    public static byte[] readPom(ArtifactIdentifier identifier){
+        Path file = install().resolve(toPath(identifier));
+
+        try {
+            return Files.readAllBytes(file);
+        } catch(IOException iox){
+            throw new UncheckedIOException("POM file not in corpus: " + identifier, iox);
+        }
+    }
+
+    private static List<String> readFileList() throws IOException {
+        List<String> files = new ArrayList<>();
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(openResource("files.txt"), StandardCharsets.UTF_8))){
+            String line;
+            while((line = reader.readLine()) != null){
+                if(!line.trim().isEmpty())
+                    files.add(line.trim());
+            }
+        }
+
+        return files;
+    }
+
+    private static InputStream openResource(String name) throws IOException {
+        InputStream in = PomCorpus.class.getResourceAsStream(ResourcePrefix + name);
+
+        if(in == null)
+            throw new IOException("Missing corpus resource " + name);
+
+        return in;
+    }
+
+    private static String toPath(ArtifactIdentifier identifier){
+        return identifier.GroupId.replace('.', '/') + "/" + identifier.ArtifactId + "/" + identifier.Version + "/" +
+                identifier.ArtifactId + "-" + identifier.Version + ".pom";
+    }
+
+    // Repository layout: group/path/artifactId/version/artifactId-version.pom
+    private static ArtifactIdentifier toIdentifier(String file){
+        String[] segments = file.split("/");
+        int count = segments.length;
+
+        String groupId = String.join(".", Arrays.copyOfRange(segments, 0, count - 3));
+        return new ArtifactIdentifier(groupId, segments[count - 3], segments[count - 2]);
+    }
+}
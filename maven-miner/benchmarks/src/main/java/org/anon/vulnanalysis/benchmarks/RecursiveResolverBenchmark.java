@@ -0,0 +1,101 @@
+package org.anon.vulnanalysis.benchmarks;
+
+import org.anon.vulnanalysis.model.ArtifactDependency;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.pom.dependencies.MissingPomCache;
+import org.anon.vulnanalysis.pom.dependencies.PomModelCache;
+import org.anon.vulnanalysis.pom.dependencies.RecursiveDependencyResolver;
+import org.anon.vulnanalysis.pom.dependencies.ResolverResult;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Resolves the dependencies of the corpus artifacts with the RecursiveDependencyResolver, end to end from the raw POM
+ *  file to the final dependency set. Parents and BOMs are read from the extracted corpus, so the numbers include
+ *  parsing the whole hierarchy if the model cache is disabled, and only the root artifact if the cache is warm.
+ *
+ *  The setup verifies that both cache modes produce the same dependencies, so a benchmark run always
+ *  doubles as a parity check of the resolver against the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecursiveResolverBenchmark {
+
+    @Param({"io.quarkus:quarkus-resteasy:1.11.4.Final",
+            "org.apache.spark:spark-repl_2.11:2.4.4",
+            "org.wildfly:wildfly-naming:23.0.0.Final",
+            "org.apache.geronimo.specs:geronimo-jms_1.1_spec:1.1.1",
+            "org.opencypher:okapi-ir:1.0.0-beta3",
+            "org.springframework.boot:spring-boot-starter-web:2.4.5"})
+    public String artifact;
+
+    @Param({"disabled", "warm"})
+    public String modelCache;
+
+    private MinerConfiguration config;
+    private ArtifactIdentifier identifier;
+    private byte[] pomContent;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        PomCorpus.install();
+
+        // Without fetch threads, prefetching in the background does not hide the cost of parsing parents
+        this.config = MinerConfiguration.getDefaultConfig();
+
+        this.identifier = PomCorpus.parse(artifact);
+        this.pomContent = PomCorpus.readPom(identifier);
+
+        // Missing files are cheap to detect in the corpus, caching them would distort cold runs
+        MissingPomCache.getInstance().setTimeToLive(0, TimeUnit.HOURS);
+
+        verifyParity();
+
+        PomModelCache.getInstance().setCapacity("warm".equals(modelCache) ? PomModelCache.DefaultCapacity : 0);
+        resolve();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        PomModelCache.getInstance().setCapacity(0);
+    }
+
+    private void verifyParity(){
+        PomModelCache.getInstance().setCapacity(0);
+        Set<ArtifactDependency> cold = collect(resolve());
+
+        PomModelCache.getInstance().setCapacity(PomModelCache.DefaultCapacity);
+        resolve();
+        Set<ArtifactDependency> warm = collect(resolve());
+
+        if(cold.isEmpty())
+            throw new IllegalStateException("No dependencies resolved for " + identifier);
+
+        if(!cold.equals(warm)){
+            throw new IllegalStateException("Model cache changes the dependencies of " + identifier + ": " + cold +
+                    " without cache, " + warm + " with cache");
+        }
+    }
+
+    private Set<ArtifactDependency> collect(ResolverResult result){
+        return result.hasResults() ? new HashSet<>(result.getResults()) : new HashSet<>();
+    }
+
+    private ResolverResult resolve(){
+        return new RecursiveDependencyResolver(new ByteArrayInputStream(pomContent), identifier, config).resolveDependencies();
+    }
+
+    @Benchmark
+    public ResolverResult resolveDependencies(){
+        return resolve();
+    }
+}
@@ -0,0 +1,138 @@
+package org.anon.vulnanalysis.benchmarks;
+
+import org.anon.vulnanalysis.model.VersionSortKey;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Compares sorting the versions of a library via DefaultArtifactVersion (as the library relation resolver used to do)
+ *  with sorting them via precomputed sort keys. The setup verifies that the keys order all pairs of versions like Maven
+ *  does, except for pairs Maven itself orders inconsistently (see VersionSortKey), so a benchmark run always doubles as a
+ *  parity check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VersionSortKeyBenchmark {
+
+    private static final List<String> QualifierStyles = Arrays.asList("", "", "", "-SNAPSHOT", "-alpha-1", "-beta2",
+            "-RC1", "-M3", ".RELEASE", ".Final", ".CR2", ".Beta1", "-rc-2", ".SP1", ".v20200101");
+
+    // Number of versions whose pairs are compared by the parity check
+    private static final int MaxParityCheckVersions = 1000;
+
+    @Param({"100", "5000"})
+    public int versionCount;
+
+    private List<String> versions;
+    private List<String> releaseVersions;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        Random random = new Random(1337);
+        this.versions = new ArrayList<>(versionCount);
+        this.releaseVersions = new ArrayList<>(versionCount);
+
+        for(int i = 0; i < versionCount; i++){
+            String release = random.nextInt(30) + "." + random.nextInt(20) + "." + random.nextInt(50);
+            this.releaseVersions.add(release);
+            this.versions.add(release + QualifierStyles.get(random.nextInt(QualifierStyles.size())));
+        }
+
+        verifyParity();
+    }
+
+    private void verifyParity(){
+        int count = Math.min(versions.size(), MaxParityCheckVersions);
+
+        for(int i = 0; i < count; i++){
+            for(int j = i + 1; j < count; j++){
+                DefaultArtifactVersion first = new DefaultArtifactVersion(versions.get(i));
+                DefaultArtifactVersion second = new DefaultArtifactVersion(versions.get(j));
+
+                int expected = Integer.signum(first.compareTo(second));
+                int actual = Integer.signum(VersionSortKey.compare(VersionSortKey.encode(versions.get(i)), VersionSortKey.encode(versions.get(j))));
+
+                // Versions with the same release and different qualifier styles may form a cycle with that release
+                if(expected != actual && !isCycle(first, second, new DefaultArtifactVersion(releaseVersions.get(i)))){
+                    throw new IllegalStateException("Sort keys do not order versions like Maven: " + versions.get(i) +
+                            " and " + versions.get(j) + " compare to " + actual + " instead of " + expected);
+                }
+            }
+        }
+    }
+
+    private static boolean isCycle(DefaultArtifactVersion first, DefaultArtifactVersion second, DefaultArtifactVersion third){
+        int firstSecond = Integer.signum(first.compareTo(second));
+        int secondThird = Integer.signum(second.compareTo(third));
+        int thirdFirst = Integer.signum(third.compareTo(first));
+
+        // Consistent orders have both signs among the three comparisons, or none at all
+        return firstSecond + secondThird + thirdFirst != 0 && (firstSecond >= 0 && secondThird >= 0 && thirdFirst >= 0
+                || firstSecond <= 0 && secondThird <= 0 && thirdFirst <= 0);
+    }
+
+    private List<String> sortWithArtifactVersions(){
+        List<DefaultArtifactVersion> parsed = new ArrayList<>(versions.size());
+        for(String version : versions){
+            parsed.add(new DefaultArtifactVersion(version));
+        }
+
+        parsed.sort(DefaultArtifactVersion::compareTo);
+
+        List<String> sorted = new ArrayList<>(parsed.size());
+        for(DefaultArtifactVersion version : parsed){
+            sorted.add(version.toString());
+        }
+        return sorted;
+    }
+
+    private List<String> sortWithKeys(boolean useCache){
+        List<KeyedVersion> keyed = new ArrayList<>(versions.size());
+        for(String version : versions){
+            keyed.add(new KeyedVersion(version, useCache ? VersionSortKey.encode(version) : VersionSortKey.encodeUncached(version)));
+        }
+
+        keyed.sort((o1, o2) -> VersionSortKey.compare(o1.key, o2.key));
+
+        List<String> sorted = new ArrayList<>(keyed.size());
+        for(KeyedVersion version : keyed){
+            sorted.add(version.raw);
+        }
+        return sorted;
+    }
+
+    @Benchmark
+    public List<String> sortWithDefaultArtifactVersion(){
+        return sortWithArtifactVersions();
+    }
+
+    @Benchmark
+    public List<String> sortWithUncachedSortKeys(){
+        return sortWithKeys(false);
+    }
+
+    @Benchmark
+    public List<String> sortWithCachedSortKeys(){
+        return sortWithKeys(true);
+    }
+
+    private static class KeyedVersion {
+        final String raw;
+        final byte[] key;
+
+        KeyedVersion(String raw, byte[] key){
+            this.raw = raw;
+            this.key = key;
+        }
+    }
+}
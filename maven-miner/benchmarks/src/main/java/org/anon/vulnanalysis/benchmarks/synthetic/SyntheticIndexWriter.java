@@ -0,0 +1,71 @@
+package org.anon.vulnanalysis.benchmarks.synthetic;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Version;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ *  Writes the Lucene index of a synthetic repository in the format of the Maven Central index, so that the miner's
+ *  IndexIterator reads it like the real one. Only the unique id field ("u" = groupId|artifactId|version|classifier|
+ *  extension) is written, it is the only field the miner reads. Parent POMs and BOMs are not indexed, just like
+ *  artifacts in Central that are only referenced.
+ */
+public class SyntheticIndexWriter {
+
+    private static final int ProgressInterval = 1000000;
+
+    private final Logger log = LogManager.getLogger(SyntheticIndexWriter.class);
+
+    private final SyntheticRepositoryLayout layout;
+
+    public SyntheticIndexWriter(SyntheticRepositoryLayout layout){
+        this.layout = layout;
+    }
+
+    /**
+     * Writes the index into the given directory, replacing any index in it. Returns the number of indexed artifacts.
+     */
+    public long write(File indexDirectory) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(Version.LUCENE_36, new StandardAnalyzer(Version.LUCENE_36))
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE)
+                .setRAMBufferSizeMB(256);
+
+        long count = 0;
+        long start = System.currentTimeMillis();
+
+        try(IndexWriter writer = new IndexWriter(FSDirectory.open(indexDirectory), config)){
+            // Reused for all documents, the writer copies the values
+            Field uniqueId = new Field("u", "", Field.Store.YES, Field.Index.NOT_ANALYZED_NO_NORMS);
+            Document document = new Document();
+            document.add(uniqueId);
+
+            // Releases of a library are not adjacent in Central either
+            for(int version = 0; version < layout.VersionsPerLibrary; version++){
+                for(long library = 0; library < layout.getLibraryCount(); library++){
+                    ArtifactIdentifier artifact = layout.getArtifact(library, version);
+                    uniqueId.setValue(artifact.GroupId + "|" + artifact.ArtifactId + "|" + artifact.Version + "|NA|jar");
+                    writer.addDocument(document);
+
+                    if(++count % ProgressInterval == 0)
+                        log.info("Indexed " + count + " synthetic artifacts");
+                }
+            }
+
+            writer.forceMerge(1);
+        }
+
+        log.info("Wrote index of " + count + " synthetic artifacts to " + indexDirectory + " in " +
+                (System.currentTimeMillis() - start) + " ms");
+        return count;
+    }
+}
@@ -0,0 +1,341 @@
+package org.anon.vulnanalysis.benchmarks.synthetic;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ *  Shape of a synthetic Maven repository, and the generator of all its POM files. Nothing is stored: every POM file
+ *  is a pure function of its coordinates and the layout parameters, so a repository of ten million artifacts is
+ *  served (and its index written) without keeping any of them in memory or on disk.
+ *
+ *  Artifacts are releases of libraries, libraries are organized in groups. All releases of a group with the same
+ *  version share a chain of parent POMs (with the properties that define dependency versions), the topmost parent
+ *  imports the group's BOMs (which manage the versions of dependencies that do not declare one). Dependencies point
+ *  to other libraries of the repository. A share of the groups contains cycles: their topmost parent refers back to
+ *  the first one, their BOMs import each other, and some of their version properties refer to each other.
+ */
+public class SyntheticRepositoryLayout {
+
+    static final String GroupPrefix = "org.synthetic.g";
+    static final String LibraryPrefix = "lib-";
+    static final String ParentPrefix = "parent-";
+    static final String BomPrefix = "bom-";
+
+    private static final String[] Scopes = { "compile", "compile", "compile", "test", "provided", "runtime" };
+
+    // Number of artifacts in the index, rounded up to complete libraries
+    public long ArtifactCount = 100000;
+
+    public int VersionsPerLibrary = 20;
+
+    public int LibrariesPerGroup = 50;
+
+    public int ParentDepth = 3;
+
+    public int BomFanOut = 2;
+
+    public int DependenciesPerArtifact = 8;
+
+    // Share of dependencies whose version is a property defined in a parent
+    public double PropertyDensity = 0.4;
+
+    // Share of the remaining dependencies without version, managed by a BOM
+    public double ManagedShare = 0.5;
+
+    // Share of groups with parent, BOM and property cycles
+    public double CycleRate = 0.001;
+
+    public long Seed = 1337;
+
+    /**
+     * Creates a layout from "--key=value" arguments, keys are the names of the parameters (e.g. --ArtifactCount=1000).
+     */
+    public static SyntheticRepositoryLayout fromArguments(Map<String, String> arguments){
+        SyntheticRepositoryLayout layout = new SyntheticRepositoryLayout();
+
+        for(Map.Entry<String, String> argument : arguments.entrySet()){
+            String value = argument.getValue();
+
+            switch(argument.getKey()){
+                case "ArtifactCount": layout.ArtifactCount = Long.parseLong(value); break;
+                case "VersionsPerLibrary": layout.VersionsPerLibrary = Integer.parseInt(value); break;
+                case "LibrariesPerGroup": layout.LibrariesPerGroup = Integer.parseInt(value); break;
+                case "ParentDepth": layout.ParentDepth = Integer.parseInt(value); break;
+                case "BomFanOut": layout.BomFanOut = Integer.parseInt(value); break;
+                case "DependenciesPerArtifact": layout.DependenciesPerArtifact = Integer.parseInt(value); break;
+                case "PropertyDensity": layout.PropertyDensity = Double.parseDouble(value); break;
+                case "ManagedShare": layout.ManagedShare = Double.parseDouble(value); break;
+                case "CycleRate": layout.CycleRate = Double.parseDouble(value); break;
+                case "Seed": layout.Seed = Long.parseLong(value); break;
+                default:
+                    // Options of the tool itself
+                    break;
+            }
+        }
+
+        if(layout.ParentDepth < 1 || layout.BomFanOut < 1 || layout.VersionsPerLibrary < 1 || layout.LibrariesPerGroup < 1)
+            throw new IllegalArgumentException("ParentDepth, BomFanOut, VersionsPerLibrary and LibrariesPerGroup must be positive");
+
+        return layout;
+    }
+
+    public long getLibraryCount(){
+        return (ArtifactCount + VersionsPerLibrary - 1) / VersionsPerLibrary;
+    }
+
+    /**
+     * Returns the identifier of the given release of the given library.
+     */
+    public ArtifactIdentifier getArtifact(long library, int version){
+        return new ArtifactIdentifier(GroupPrefix + (library / LibrariesPerGroup), LibraryPrefix + library, versionOf(version));
+    }
+
+    public boolean isCyclic(long group){
+        return unit(group, -1) < CycleRate;
+    }
+
+    /**
+     * Generates the POM file of the given artifact, or returns null if the artifact is not part of the repository.
+     */
+    public String generatePom(String groupId, String artifactId, String version){
+        try {
+            if(!groupId.startsWith(GroupPrefix) || !version.startsWith("1."))
+                return null;
+
+            long group = Long.parseLong(groupId.substring(GroupPrefix.length()));
+            int versionIndex = Integer.parseInt(version.substring(2));
+
+            if(versionIndex < 0 || versionIndex >= VersionsPerLibrary || group < 0)
+                return null;
+
+            if(artifactId.startsWith(LibraryPrefix)){
+                long library = Long.parseLong(artifactId.substring(LibraryPrefix.length()));
+                if(library / LibrariesPerGroup != group || library >= getLibraryCount())
+                    return null;
+                return generateLibraryPom(library, versionIndex);
+            } else if(artifactId.startsWith(ParentPrefix)){
+                int level = Integer.parseInt(artifactId.substring(ParentPrefix.length()));
+                if(level < 1 || level > ParentDepth || group * LibrariesPerGroup >= getLibraryCount())
+                    return null;
+                return generateParentPom(group, level, versionIndex);
+            } else if(artifactId.startsWith(BomPrefix)){
+                int bom = Integer.parseInt(artifactId.substring(BomPrefix.length()));
+                if(bom < 0 || bom >= BomFanOut || group * LibrariesPerGroup >= getLibraryCount())
+                    return null;
+                return generateBomPom(group, bom, versionIndex);
+            }
+        } catch(NumberFormatException nfx){
+            // Not a synthetic coordinate
+        }
+
+        return null;
+    }
+
+    private String generateLibraryPom(long library, int version){
+        long group = library / LibrariesPerGroup;
+        StringBuilder pom = startProject();
+
+        appendParent(pom, group, 1, version);
+        appendCoordinates(pom, GroupPrefix + group, LibraryPrefix + library, versionOf(version), "jar");
+
+        pom.append("  <dependencies>\n");
+        for(int i = 0; i < DependenciesPerArtifact; i++){
+            long target = targetOf(library, i);
+            String dependencyVersion;
+
+            switch(kindOf(library, i)){
+                case PROPERTY:
+                    dependencyVersion = "${" + propertyOf(target) + "}";
+                    break;
+                case MANAGED:
+                    dependencyVersion = null;
+                    break;
+                default:
+                    dependencyVersion = versionOf(targetVersionOf(library, i));
+            }
+
+            appendDependency(pom, target, dependencyVersion, Scopes[(int) Math.floorMod(mix(library, i, 7), Scopes.length)]);
+        }
+        pom.append("  </dependencies>\n");
+
+        return endProject(pom);
+    }
+
+    private String generateParentPom(long group, int level, int version){
+        StringBuilder pom = startProject();
+
+        if(level < ParentDepth)
+            appendParent(pom, group, level + 1, version);
+        else if(isCyclic(group))
+            appendParent(pom, group, 1, version);
+
+        appendCoordinates(pom, GroupPrefix + group, ParentPrefix + level, versionOf(version), "pom");
+
+        // Each level defines the version properties of the dependencies assigned to it
+        pom.append("  <properties>\n");
+        forEachTargetOfGroup(group, DependencyKind.PROPERTY, target -> {
+            if(levelOf(target) != level)
+                return;
+
+            String property = propertyOf(target);
+
+            if(isCyclic(group) && unit(target, 8) < 0.5){
+                pom.append("    <").append(property).append(">${").append(property).append(".alias}</").append(property).append(">\n");
+                pom.append("    <").append(property).append(".alias>${").append(property).append("}</").append(property).append(".alias>\n");
+            } else {
+                pom.append("    <").append(property).append(">").append(versionOf(managedVersionOf(target)))
+                        .append("</").append(property).append(">\n");
+            }
+        });
+        pom.append("  </properties>\n");
+
+        if(level == ParentDepth){
+            pom.append("  <dependencyManagement>\n    <dependencies>\n");
+            for(int bom = 0; bom < BomFanOut; bom++){
+                appendImport(pom, group, bom, version);
+            }
+            pom.append("    </dependencies>\n  </dependencyManagement>\n");
+        }
+
+        return endProject(pom);
+    }
+
+    private String generateBomPom(long group, int bom, int version){
+        StringBuilder pom = startProject();
+        appendCoordinates(pom, GroupPrefix + group, BomPrefix + bom, versionOf(version), "pom");
+
+        pom.append("  <dependencyManagement>\n    <dependencies>\n");
+
+        if(isCyclic(group) && BomFanOut > 1)
+            appendImport(pom, group, (bom + 1) % BomFanOut, version);
+
+        forEachTargetOfGroup(group, DependencyKind.MANAGED, target -> {
+            if(bomOf(target) == bom)
+                appendDependency(pom, target, versionOf(managedVersionOf(target)), null);
+        });
+        pom.append("    </dependencies>\n  </dependencyManagement>\n");
+
+        return endProject(pom);
+    }
+
+    private enum DependencyKind {
+        LITERAL, PROPERTY, MANAGED
+    }
+
+    private DependencyKind kindOf(long library, int i){
+        if(unit(library, i, 1) < PropertyDensity)
+            return DependencyKind.PROPERTY;
+
+        return unit(library, i, 2) < ManagedShare ? DependencyKind.MANAGED : DependencyKind.LITERAL;
+    }
+
+    private long targetOf(long library, int i){
+        long target = Math.floorMod(mix(library, i, 3), getLibraryCount());
+        // No self dependencies
+        return target == library ? (target + 1) % getLibraryCount() : target;
+    }
+
+    // Independent of the release, all releases of a library depend on the same versions
+    private int targetVersionOf(long library, int i){
+        return (int) Math.floorMod(mix(library, i, 4), VersionsPerLibrary);
+    }
+
+    // Properties and BOMs define one version per library, shared by all dependencies on it
+    private int managedVersionOf(long target){
+        return (int) Math.floorMod(mix(target, 4), VersionsPerLibrary);
+    }
+
+    private int levelOf(long target){
+        return 1 + (int) Math.floorMod(mix(target, 5), ParentDepth);
+    }
+
+    private int bomOf(long target){
+        return (int) Math.floorMod(mix(target, 6), BomFanOut);
+    }
+
+    private static String propertyOf(long target){
+        return LibraryPrefix + target + ".version";
+    }
+
+    private static String versionOf(int version){
+        return "1." + version;
+    }
+
+    // Each target once, in order of first use
+    private void forEachTargetOfGroup(long group, DependencyKind kind, LongConsumer consumer){
+        long first = group * LibrariesPerGroup;
+        long last = Math.min(first + LibrariesPerGroup, getLibraryCount());
+        Set<Long> targets = new HashSet<>();
+
+        for(long library = first; library < last; library++){
+            for(int i = 0; i < DependenciesPerArtifact; i++){
+                if(kindOf(library, i) == kind && targets.add(targetOf(library, i)))
+                    consumer.accept(targetOf(library, i));
+            }
+        }
+    }
+
+    private static StringBuilder startProject(){
+        return new StringBuilder(2048).append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<project>\n  <modelVersion>4.0.0</modelVersion>\n");
+    }
+
+    private static String endProject(StringBuilder pom){
+        return pom.append("</project>\n").toString();
+    }
+
+    private static void appendCoordinates(StringBuilder pom, String groupId, String artifactId, String version, String packaging){
+        pom.append("  <groupId>").append(groupId).append("</groupId>\n")
+                .append("  <artifactId>").append(artifactId).append("</artifactId>\n")
+                .append("  <version>").append(version).append("</version>\n")
+                .append("  <packaging>").append(packaging).append("</packaging>\n");
+    }
+
+    private void appendParent(StringBuilder pom, long group, int level, int version){
+        pom.append("  <parent>\n")
+                .append("    <groupId>").append(GroupPrefix).append(group).append("</groupId>\n")
+                .append("    <artifactId>").append(ParentPrefix).append(level).append("</artifactId>\n")
+                .append("    <version>").append(versionOf(version)).append("</version>\n")
+                .append("  </parent>\n");
+    }
+
+    private void appendDependency(StringBuilder pom, long target, String version, String scope){
+        pom.append("    <dependency>\n")
+                .append("      <groupId>").append(GroupPrefix).append(target / LibrariesPerGroup).append("</groupId>\n")
+                .append("      <artifactId>").append(LibraryPrefix).append(target).append("</artifactId>\n");
+        if(version != null)
+            pom.append("      <version>").append(version).append("</version>\n");
+        if(scope != null)
+            pom.append("      <scope>").append(scope).append("</scope>\n");
+        pom.append("    </dependency>\n");
+    }
+
+    private void appendImport(StringBuilder pom, long group, int bom, int version){
+        pom.append("      <dependency>\n")
+                .append("        <groupId>").append(GroupPrefix).append(group).append("</groupId>\n")
+                .append("        <artifactId>").append(BomPrefix).append(bom).append("</artifactId>\n")
+                .append("        <version>").append(versionOf(version)).append("</version>\n")
+                .append("        <type>pom</type>\n")
+                .append("        <scope>import</scope>\n")
+                .append("      </dependency>\n");
+    }
+
+    private double unit(long... values){
+        return (mix(values) >>> 11) * 0x1.0p-53;
+    }
+
+    // Deterministic hash of the values and the seed (SplitMix64 finalizer)
+    long mix(long... values){
+        long h = Seed;
+        for(long value : values){
+            h += 0x9E3779B97F4A7C15L + value;
+            h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+            h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+            h = h ^ (h >>> 31);
+        }
+        return h;
+    }
+}
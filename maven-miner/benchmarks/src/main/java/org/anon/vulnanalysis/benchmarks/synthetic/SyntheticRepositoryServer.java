@@ -0,0 +1,207 @@
+package org.anon.vulnanalysis.benchmarks.synthetic;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  Serves a synthetic repository over HTTP in Maven repository layout (POM files and their SHA-1 checksums), so that
+ *  the miner can use it as "repository.url". Responses are delayed by a base latency plus an exponentially distributed
+ *  jitter, a share of the requests fails with a transient 503, and a share of the POM files is missing (404) for
+ *  every request. Missing files are chosen deterministically from the path, transient failures are random.
+ */
+public class SyntheticRepositoryServer {
+
+    private final Logger log = LogManager.getLogger(SyntheticRepositoryServer.class);
+
+    private final SyntheticRepositoryLayout layout;
+
+    public int LatencyMillis = 0;
+
+    // Mean of the exponentially distributed latency added to LatencyMillis
+    public int LatencyJitterMillis = 0;
+
+    // Share of requests answered with 503
+    public double ErrorRate = 0.0;
+
+    // Share of POM files that are missing
+    public double MissingRate = 0.0;
+
+    public int Threads = 64;
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong missing = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private HttpServer httpServer = null;
+    private ExecutorService executor = null;
+
+    public SyntheticRepositoryServer(SyntheticRepositoryLayout layout){
+        this.layout = layout;
+    }
+
+    /**
+     * Starts serving on the given port (0 for any free port) and returns the base URL of the repository.
+     */
+    public synchronized String start(InetSocketAddress address) throws IOException {
+        if(httpServer != null)
+            throw new IllegalStateException("Synthetic repository server is already running");
+
+        httpServer = HttpServer.create(address, 1024);
+        httpServer.createContext("/", this::handle);
+
+        executor = Executors.newFixedThreadPool(Threads, r -> {
+            Thread t = new Thread(r, "synthetic-repository");
+            t.setDaemon(true);
+            return t;
+        });
+        httpServer.setExecutor(executor);
+        httpServer.start();
+
+        String baseUrl = "http://" + address.getAddress().getHostAddress() + ":" + httpServer.getAddress().getPort() + "/";
+        log.info("Serving synthetic repository of " + layout.ArtifactCount + " artifacts at " + baseUrl + " (latency " +
+                LatencyMillis + " ms + " + LatencyJitterMillis + " ms jitter, error rate " + ErrorRate + ", missing rate " +
+                MissingRate + ")");
+        return baseUrl;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getRawPath();
+
+        try {
+            delay();
+
+            if(ErrorRate > 0 && ThreadLocalRandom.current().nextDouble() < ErrorRate){
+                failed.incrementAndGet();
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_UNAVAILABLE, -1);
+                return;
+            }
+
+            boolean checksum = path.endsWith(".pom.sha1");
+            String pom = generate(checksum ? path.substring(0, path.length() - ".sha1".length()) : path);
+
+            if(pom == null){
+                missing.incrementAndGet();
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, -1);
+                return;
+            }
+
+            byte[] content = pom.getBytes(StandardCharsets.UTF_8);
+            String sha1 = sha1(content);
+            String eTag = "\"" + sha1 + "\"";
+
+            if(!checksum && eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))){
+                served.incrementAndGet();
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                return;
+            }
+
+            byte[] body = checksum ? sha1.getBytes(StandardCharsets.US_ASCII) : content;
+            exchange.getResponseHeaders().set("ETag", eTag);
+
+            if("HEAD".equals(exchange.getRequestMethod())){
+                exchange.getResponseHeaders().set("Content-Length", Integer.toString(body.length));
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, -1);
+            } else {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+                try(OutputStream out = exchange.getResponseBody()){
+                    out.write(body);
+                }
+            }
+
+            served.incrementAndGet();
+        } catch(Exception x){
+            log.warn("Failed to serve " + path, x);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_INTERNAL_ERROR, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns the POM file of the given repository path, or null if it is not part of the repository or missing.
+     */
+    String generate(String path){
+        // /group/path/artifactId/version/artifactId-version.pom
+        String[] segments = path.split("/");
+
+        if(segments.length < 5 || !path.endsWith(".pom"))
+            return null;
+
+        String version = segments[segments.length - 2];
+        String artifactId = segments[segments.length - 3];
+
+        if(!segments[segments.length - 1].equals(artifactId + "-" + version + ".pom"))
+            return null;
+
+        StringBuilder groupId = new StringBuilder();
+        for(int i = 1; i < segments.length - 3; i++){
+            if(groupId.length() > 0)
+                groupId.append('.');
+            groupId.append(segments[i]);
+        }
+
+        if(MissingRate > 0 && (layout.mix(path.hashCode(), 11) >>> 11) * 0x1.0p-53 < MissingRate)
+            return null;
+
+        return layout.generatePom(groupId.toString(), artifactId, version);
+    }
+
+    private void delay(){
+        long millis = LatencyMillis;
+
+        if(LatencyJitterMillis > 0)
+            millis += (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * LatencyJitterMillis);
+
+        if(millis <= 0)
+            return;
+
+        try {
+            Thread.sleep(millis);
+        } catch(InterruptedException ix){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String sha1(byte[] content){
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+            StringBuilder hex = new StringBuilder(40);
+            for(byte b : digest){
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch(NoSuchAlgorithmException nsax){
+            throw new IllegalStateException(nsax);
+        }
+    }
+
+    public String getStatistics(){
+        return served.get() + " served, " + missing.get() + " missing, " + failed.get() + " failed";
+    }
+
+    public synchronized void stop(){
+        if(httpServer == null)
+            return;
+
+        httpServer.stop(0);
+        executor.shutdownNow();
+        httpServer = null;
+        executor = null;
+
+        log.info("Stopped synthetic repository server: " + getStatistics());
+    }
+}
@@ -0,0 +1,86 @@
+package org.anon.vulnanalysis.benchmarks.synthetic;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *  Command line of the synthetic repository, for scale and soak tests of the miner on a single machine:
+ *
+ *  <pre>
+ *  java -cp benchmarks.jar org.anon.vulnanalysis.benchmarks.synthetic.SyntheticRepositoryTool index &lt;directory&gt; [--Parameter=value ...]
+ *  java -cp benchmarks.jar org.anon.vulnanalysis.benchmarks.synthetic.SyntheticRepositoryTool serve &lt;port&gt; [--Parameter=value ...]
+ *  java -cp benchmarks.jar org.anon.vulnanalysis.benchmarks.synthetic.SyntheticRepositoryTool pom &lt;groupId:artifactId:version&gt; [--Parameter=value ...]
+ *  </pre>
+ *
+ *  All commands must be given the same layout parameters (see SyntheticRepositoryLayout, e.g. --ArtifactCount=10000000).
+ *  The server additionally accepts --LatencyMillis, --LatencyJitterMillis, --ErrorRate, --MissingRate, --Threads and
+ *  --Host. The miner is then run with "indexdir" set to the index directory and "repository.url" set to the printed
+ *  URL, and in the "dry-run" mode to leave out the database.
+ */
+public class SyntheticRepositoryTool {
+
+    public static void main(String[] args) throws Exception {
+        if(args.length < 2){
+            System.err.println("Usage: SyntheticRepositoryTool index <directory> | serve <port> | pom <coordinates> [--Parameter=value ...]");
+            System.exit(1);
+        }
+
+        Map<String, String> arguments = parseArguments(args);
+        SyntheticRepositoryLayout layout = SyntheticRepositoryLayout.fromArguments(arguments);
+
+        switch(args[0]){
+            case "index":
+                new SyntheticIndexWriter(layout).write(new File(args[1]));
+                break;
+            case "serve":
+                serve(layout, Integer.parseInt(args[1]), arguments);
+                break;
+            case "pom":
+                String[] coordinates = args[1].split(":");
+                String pom = coordinates.length == 3 ? layout.generatePom(coordinates[0], coordinates[1], coordinates[2]) : null;
+                if(pom == null){
+                    System.err.println("Not part of the synthetic repository: " + args[1]);
+                    System.exit(1);
+                }
+                System.out.print(pom);
+                break;
+            default:
+                System.err.println("Unknown command " + args[0]);
+                System.exit(1);
+        }
+    }
+
+    private static void serve(SyntheticRepositoryLayout layout, int port, Map<String, String> arguments) throws Exception {
+        SyntheticRepositoryServer server = new SyntheticRepositoryServer(layout);
+        server.LatencyMillis = Integer.parseInt(arguments.getOrDefault("LatencyMillis", "0"));
+        server.LatencyJitterMillis = Integer.parseInt(arguments.getOrDefault("LatencyJitterMillis", "0"));
+        server.ErrorRate = Double.parseDouble(arguments.getOrDefault("ErrorRate", "0"));
+        server.MissingRate = Double.parseDouble(arguments.getOrDefault("MissingRate", "0"));
+        server.Threads = Integer.parseInt(arguments.getOrDefault("Threads", "64"));
+
+        InetAddress host = arguments.containsKey("Host") ? InetAddress.getByName(arguments.get("Host")) : InetAddress.getLoopbackAddress();
+
+        System.out.println(server.start(new InetSocketAddress(host, port)));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+
+        // Serves until the process is terminated
+        Thread.currentThread().join();
+    }
+
+    private static Map<String, String> parseArguments(String[] args){
+        Map<String, String> arguments = new HashMap<>();
+
+        for(int i = 2; i < args.length; i++){
+            if(!args[i].startsWith("--") || !args[i].contains("="))
+                throw new IllegalArgumentException("Invalid argument " + args[i] + ", expected --Parameter=value");
+
+            int separator = args[i].indexOf('=');
+            arguments.put(args[i].substring(2, separator), args[i].substring(separator + 1));
+        }
+
+        return arguments;
+    }
+}
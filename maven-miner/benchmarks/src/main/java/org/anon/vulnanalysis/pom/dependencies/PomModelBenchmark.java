@@ -0,0 +1,89 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.benchmarks.PomCorpus;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Measures the steps of turning POM files into PomModels, separately for each step: parsing the XML, extracting parent,
+ *  properties and dependencies from the document, and interpolating the property references in the coordinates of
+ *  imported BOMs. Each benchmark processes all POM files of the corpus once. Lives in the package of PomModel, which
+ *  is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PomModelBenchmark {
+
+    private DocumentBuilderFactory builderFactory;
+
+    private List<ArtifactIdentifier> identifiers;
+    private List<byte[]> pomContents;
+    private List<Document> documents;
+    private List<PomModel> models;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.builderFactory = DocumentBuilderFactory.newInstance();
+        this.identifiers = PomCorpus.getIdentifiers();
+
+        this.pomContents = new ArrayList<>(identifiers.size());
+        for(ArtifactIdentifier identifier : identifiers){
+            pomContents.add(PomCorpus.readPom(identifier));
+        }
+
+        this.documents = parseDocuments();
+        this.models = extractModels();
+    }
+
+    private List<Document> parseDocuments() throws Exception {
+        List<Document> parsed = new ArrayList<>(pomContents.size());
+
+        for(byte[] content : pomContents){
+            parsed.add(builderFactory.newDocumentBuilder().parse(new ByteArrayInputStream(content)));
+        }
+
+        return parsed;
+    }
+
+    private List<PomModel> extractModels(){
+        List<PomModel> extracted = new ArrayList<>(documents.size());
+
+        for(int i = 0; i < documents.size(); i++){
+            extracted.add(PomModel.fromDocument(identifiers.get(i), documents.get(i)));
+        }
+
+        return extracted;
+    }
+
+    @Benchmark
+    public List<Document> parseXml() throws Exception {
+        return parseDocuments();
+    }
+
+    @Benchmark
+    public List<PomModel> extractFromDocument(){
+        return extractModels();
+    }
+
+    @Benchmark
+    public int interpolateReferencedPoms(){
+        int references = 0;
+
+        for(PomModel model : models){
+            references += model.getReferencedPomFiles().size();
+        }
+
+        return references;
+    }
+}
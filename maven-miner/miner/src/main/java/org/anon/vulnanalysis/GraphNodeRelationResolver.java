@@ -1,6 +1,9 @@
 package org.anon.vulnanalysis;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.anon.vulnanalysis.metrics.Counter;
+import org.anon.vulnanalysis.metrics.Meter;
+import org.anon.vulnanalysis.metrics.MetricsRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.neo4j.driver.Record;
@@ -15,19 +18,16 @@ public class GraphNodeRelationResolver {
     private final Logger log = LogManager.getLogger(GraphNodeRelationResolver.class);
     private final ObjectMapper reader = new ObjectMapper();
 
-    private int numberOfErrors;
-    private int numberOfNodes;
-    private int numberOfArtifactsWithUnmatchedDependencies;
-    private int numberOfUnmatchedDependencies;
-    private int numberOfUnmatchedParents;
-
-    public GraphNodeRelationResolver(){
-        this.numberOfErrors = 0;
-        this.numberOfNodes = 0;
-        this.numberOfArtifactsWithUnmatchedDependencies = 0;
-        this.numberOfUnmatchedDependencies = 0;
-        this.numberOfUnmatchedParents = 0;
-    }
+    private static final MetricsRegistry Metrics = MetricsRegistry.getInstance();
+    private static final Meter NodesProcessed =
+            Metrics.meter("miner_relation_nodes_processed", "Artifact nodes whose relations were resolved");
+    private static final Counter RelationErrors = Metrics.errors("relation");
+    private static final Counter ArtifactsWithUnmatchedDependencies = Metrics.counter(
+            "miner_artifacts_with_unmatched_dependencies_total", "Artifacts with dependencies not found in the graph");
+    private static final Counter UnmatchedDependencies =
+            Metrics.counter("miner_unmatched_dependencies_total", "Dependencies not found in the graph");
+    private static final Counter UnmatchedParents =
+            Metrics.counter("miner_unmatched_parents_total", "Parents not found in the graph");
 
     private void handleNodeRecord(Record record){
         try (Session session = Neo4jSessionFactory.getInstance().buildSession()) {
@@ -35,8 +35,8 @@ public class GraphNodeRelationResolver {
             String dependenciesRaw = record.get("deps").asString();
             String parentCoords = record.get("parent").asString();
 
-            if (this.numberOfNodes % 1000 == 0) {
-                log.info("Processing relation " + this.numberOfNodes);
+            if (NodesProcessed.getCount() % 1000 == 0) {
+                log.info("Processing relation " + NodesProcessed.getCount());
             }
 
             NodeInformation nodeInformation = new NodeInformation();
@@ -46,13 +46,13 @@ public class GraphNodeRelationResolver {
             nodeInformation.nodeDependencies = reader.readValue(dependenciesRaw, String[].class);
 
             if (!this.makeRelationsExplicit(nodeInformation, session)) {
-                this.numberOfErrors += 1;
+                RelationErrors.increment();
             }
 
         } catch (Exception x) {
             log.error("Failed to handle node: " + record.get("coords").asString(), x);
         } finally {
-            this.numberOfNodes += 1;
+            NodesProcessed.mark();
         }
 
     }
@@ -72,17 +72,20 @@ public class GraphNodeRelationResolver {
             }
         }
 
-        log.info("Finished processing " + this.numberOfNodes + " relations with " + this.numberOfErrors + " errors.");
-        log.info("Got " + this.numberOfUnmatchedDependencies + " unmatched dependencies for a total of " +
-                this.numberOfArtifactsWithUnmatchedDependencies + " artifacts.");
-        log.info("Got a total of " + this.numberOfUnmatchedParents + " unmatched parents.");
+        log.info("Finished processing " + NodesProcessed.getCount() + " relations with " + RelationErrors.getCount() +
+                " errors.");
+        log.info("Got " + UnmatchedDependencies.getCount() + " unmatched dependencies for a total of " +
+                ArtifactsWithUnmatchedDependencies.getCount() + " artifacts.");
+        log.info("Got a total of " + UnmatchedParents.getCount() + " unmatched parents.");
 
     }
 
     private boolean makeRelationsExplicit(NodeInformation node, Session session){
         try {
-            session.writeTransaction(transaction -> {
+            // Counted once the transaction committed, the driver may run the callback more than once
+            RelationOutcome outcome = session.writeTransaction(transaction -> {
                 Result result;
+                RelationOutcome attempt = new RelationOutcome();
 
                 int relationsCreated = 0;
 
@@ -99,13 +102,7 @@ public class GraphNodeRelationResolver {
                     relationsCreated += result.consume().counters().relationshipsCreated();
                 }
 
-                int unmatchedRelations = node.nodeDependencies.length - relationsCreated;
-
-                if(unmatchedRelations > 0){
-                    log.warn("Got " + unmatchedRelations + " unmatched relations for " + node.nodeCoordinates);
-                    this.numberOfArtifactsWithUnmatchedDependencies += 1;
-                    this.numberOfUnmatchedDependencies += unmatchedRelations;
-                }
+                attempt.unmatchedDependencies = node.nodeDependencies.length - relationsCreated;
 
                 if(!node.parentCoordinates.equals("none")){
                     result = transaction.run("MATCH (a: Artifact {coordinates: $ac}) MATCH (p: Artifact {coordinates: $p}) " +
@@ -114,15 +111,23 @@ public class GraphNodeRelationResolver {
                             "p", node.parentCoordinates
                     ));
 
-                    if(result.consume().counters().relationshipsCreated() == 0){
-                        log.warn("Failed to located parent " + node.parentCoordinates + " for " + node.nodeCoordinates);
-                        this.numberOfUnmatchedParents += 1;
-                    }
+                    attempt.parentUnmatched = result.consume().counters().relationshipsCreated() == 0;
                 }
 
-                return null;
+                return attempt;
             });
 
+            if(outcome.unmatchedDependencies > 0){
+                log.warn("Got " + outcome.unmatchedDependencies + " unmatched relations for " + node.nodeCoordinates);
+                ArtifactsWithUnmatchedDependencies.increment();
+                UnmatchedDependencies.add(outcome.unmatchedDependencies);
+            }
+
+            if(outcome.parentUnmatched){
+                log.warn("Failed to located parent " + node.parentCoordinates + " for " + node.nodeCoordinates);
+                UnmatchedParents.increment();
+            }
+
             return true;
         } catch (Exception x) {
             log.error("Error while making dependencies explicit for node: " + node.nodeCoordinates, x);
@@ -137,4 +142,10 @@ public class GraphNodeRelationResolver {
 
         public String parentCoordinates;
     }
+
+    private static class RelationOutcome {
+        public int unmatchedDependencies;
+
+        public boolean parentUnmatched;
+    }
 }
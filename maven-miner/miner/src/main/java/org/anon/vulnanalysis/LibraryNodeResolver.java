@@ -0,0 +1,90 @@
+package org.anon.vulnanalysis;
+
+import org.anon.vulnanalysis.metrics.Counter;
+import org.anon.vulnanalysis.metrics.Meter;
+import org.anon.vulnanalysis.metrics.MetricsRegistry;
+import org.anon.vulnanalysis.storage.Neo4jSessionFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.neo4j.driver.Values.parameters;
+
+/**
+ *  Creates library nodes (linked to all their versions via HAS_VERSION) for graphs that have been mined before
+ *  library nodes were created at store time. New artifacts are linked to their library when they are stored. Library
+ *  nodes count their versions and record whether the version relations of all versions have been resolved.
+ */
+public class LibraryNodeResolver {
+
+    private static final int LibraryBatchSize = 500;
+
+    private final Neo4jSessionFactory sessionFactory = Neo4jSessionFactory.getInstance();
+    private final Logger log = LogManager.getLogger(LibraryNodeResolver.class);
+
+    private static final MetricsRegistry Metrics = MetricsRegistry.getInstance();
+    private static final Meter LibraryNodes =
+            Metrics.meter("miner_library_nodes_processed", "Libraries whose library node was created or updated");
+    private static final Counter LibraryNodeErrors = Metrics.errors("library_node_batch");
+
+    public void materializeLibraryNodes(){
+        log.info("Start reading all library identifiers from artifacts...");
+
+        List<Map<String, Object>> libraries = new ArrayList<>();
+
+        try(Session session = sessionFactory.buildSession()){
+            Result result = session.run("MATCH (a:Artifact) RETURN DISTINCT a.groupId AS g, a.artifactId AS a");
+
+            while(result.hasNext()){
+                Record record = result.next();
+
+                Map<String, Object> library = new HashMap<>();
+                library.put("g", record.get("g").asString());
+                library.put("a", record.get("a").asString());
+                libraries.add(library);
+            }
+        } catch(Exception x){
+            log.error("Uncaught failure while reading library identifiers", x);
+            return;
+        }
+
+        log.info("Got " + libraries.size() + " libraries, start creating library nodes...");
+
+        try(Session session = sessionFactory.buildSession()){
+            for(int i = 0; i < libraries.size(); i += LibraryBatchSize){
+                List<Map<String, Object>> batch = libraries.subList(i, Math.min(i + LibraryBatchSize, libraries.size()));
+
+                try{
+                    session.writeTransaction(transaction -> {
+                        transaction.run("UNWIND $libs AS lib MERGE (l:Library {ga: lib.g + ':' + lib.a}) " +
+                                "ON CREATE SET l.groupId = lib.g, l.artifactId = lib.a WITH l, lib " +
+                                "MATCH (a:Artifact {groupId: lib.g, artifactId: lib.a}) MERGE (l)-[:HAS_VERSION]->(a) " +
+                                "WITH l, count(a) AS versions, sum(CASE WHEN EXISTS((a)-[:NEXT]-(:Artifact)) THEN 1 ELSE 0 END) AS linkedVersions " +
+                                "SET l.versionCount = versions, l.linked = (versions = 1 OR linkedVersions = versions)",
+                                parameters("libs", batch));
+                        return null;
+                    });
+                } catch(Exception x){
+                    log.error("Failed to create library nodes for batch starting at " + i, x);
+                    LibraryNodeErrors.increment();
+                }
+
+                LibraryNodes.mark(batch.size());
+
+                if((i / LibraryBatchSize) % 100 == 0){
+                    log.info("Processed " + (i + batch.size()) + " of " + libraries.size() + " libraries");
+                }
+            }
+        }
+
+        log.info("Finished creating " + LibraryNodes.getCount() + " library nodes with " + LibraryNodeErrors.getCount() +
+                " failed batches.");
+    }
+}
@@ -0,0 +1,126 @@
+package org.anon.vulnanalysis;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ *  Runs batches of artifacts on a fixed number of worker threads with one queue per worker. Batches with the same shard
+ *  key (e.g. a groupId) are queued for the same worker, which thereby processes whole library families and sees a stable
+ *  set of parents and BOMs. A worker whose own queue is empty steals a whole batch from the end of the longest other
+ *  queue, so a single very large family does not keep one worker busy while the others are idle.
+ */
+public class LibraryShardScheduler {
+
+    private final Logger log = LogManager.getLogger(LibraryShardScheduler.class);
+
+    private final Deque<Runnable>[] queues;
+    private final Thread[] workers;
+
+    // Guards all queues
+    private final Object lock = new Object();
+
+    private boolean closed = false;
+    private long stolenBatches = 0;
+
+    @SuppressWarnings("unchecked")
+    public LibraryShardScheduler(int numberOfWorkers){
+        this.queues = new Deque[numberOfWorkers];
+        this.workers = new Thread[numberOfWorkers];
+
+        // All queues must exist before the first worker looks for batches to steal
+        for(int i = 0; i < numberOfWorkers; i++){
+            queues[i] = new ArrayDeque<>();
+        }
+
+        for(int i = 0; i < numberOfWorkers; i++){
+            int shard = i;
+            workers[i] = new Thread(() -> work(shard), "library-shard-" + i);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Queues the given batch for the worker of the given shard key.
+     */
+    public void schedule(String shardKey, Runnable batch){
+        int shard = Math.floorMod(shardKey.hashCode(), queues.length);
+
+        synchronized (lock){
+            if(closed)
+                throw new IllegalStateException("Scheduler does not accept batches after awaitCompletion");
+
+            queues[shard].addLast(batch);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until all queued batches are processed and stops the workers.
+     */
+    public void awaitCompletion() throws InterruptedException {
+        synchronized (lock){
+            closed = true;
+            lock.notifyAll();
+        }
+
+        for(Thread worker : workers){
+            worker.join();
+        }
+
+        log.info(stolenBatches + " batches were stolen by idle workers");
+    }
+
+    public long getStolenBatches(){
+        synchronized (lock){
+            return stolenBatches;
+        }
+    }
+
+    private void work(int shard){
+        Runnable batch;
+
+        while((batch = take(shard)) != null){
+            try {
+                batch.run();
+            } catch(Exception x){
+                log.error("Uncaught exception while processing batch", x);
+            }
+        }
+    }
+
+    // Returns null once the scheduler is closed and all queues are empty
+    private Runnable take(int shard){
+        synchronized (lock){
+            while(true){
+                Runnable own = queues[shard].pollFirst();
+                if(own != null)
+                    return own;
+
+                Deque<Runnable> longest = null;
+                for(Deque<Runnable> queue : queues){
+                    if(!queue.isEmpty() && (longest == null || queue.size() > longest.size()))
+                        longest = queue;
+                }
+
+                // From the end, the owner keeps working on the family it is processing
+                if(longest != null){
+                    stolenBatches++;
+                    return longest.pollLast();
+                }
+
+                if(closed)
+                    return null;
+
+                try {
+                    lock.wait();
+                } catch(InterruptedException ix){
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+    }
+}
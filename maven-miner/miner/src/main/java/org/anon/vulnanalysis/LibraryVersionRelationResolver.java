@@ -1,19 +1,26 @@
 package org.anon.vulnanalysis;
 
+import org.anon.vulnanalysis.metrics.Counter;
+import org.anon.vulnanalysis.metrics.Meter;
+import org.anon.vulnanalysis.metrics.MetricsRegistry;
+import org.anon.vulnanalysis.model.VersionSortKey;
 import org.anon.vulnanalysis.storage.Neo4jSessionFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.maven.artifact.versioning.ArtifactVersion;
-import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.neo4j.driver.Record;
 import org.neo4j.driver.Result;
 import org.neo4j.driver.Session;
+import org.neo4j.driver.Transaction;
 import org.anon.vulnanalysis.storage.BufferedLibraryIdentifierIterator;
 import org.anon.vulnanalysis.utils.MinerConfiguration;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -25,27 +32,43 @@ public class LibraryVersionRelationResolver {
     private final Neo4jSessionFactory sessionFactory = Neo4jSessionFactory.getInstance();
     private final Logger log = LogManager.getLogger(LibraryVersionRelationResolver.class);
 
+    // Number of relations written per UNWIND statement in single-scan mode
+    private static final int RelationWriteBatchSize = 1000;
+
     private final BufferedLibraryIdentifierIterator libIdentIterator;
     private final ExecutorService threadPool;
+    private final boolean singleScanMode;
 
-    private int numberOfVersionParserErrors = 0;
-    private int numberOfLibrariesHandled = 0;
-    private int numberOfLibrariesFailed = 0;
+    // Updated by all worker threads
+    private static final MetricsRegistry Metrics = MetricsRegistry.getInstance();
+    private static final Meter LibrariesProcessed =
+            Metrics.meter("miner_libraries_processed", "Libraries whose version relations were resolved");
+    private static final Counter LibraryErrors = Metrics.errors("library");
+    private static final Counter VersionParserErrors = Metrics.errors("version_parser");
 
-    private int totalBatchCnt = -1;
+    // Written once all batches are scheduled, read by the workers
+    private volatile int totalBatchCnt = -1;
 
     public LibraryVersionRelationResolver(MinerConfiguration config){
         this.libIdentIterator = new BufferedLibraryIdentifierIterator();
         this.libIdentIterator.excludeLibrariesWithNextRelations(); // incremental only
         this.threadPool = Executors.newFixedThreadPool(config.NumberOfWorkerThreads);
+        this.singleScanMode = config.LibraryResolverSingleScan;
     }
 
     public void initialize(){
-        this.libIdentIterator.buildIndex();
+        // The single-scan mode reads all versions at once, there is no need for a separate library index
+        if(!this.singleScanMode)
+            this.libIdentIterator.buildIndex();
     }
 
     public void resolveAllLibraryRelations(){
 
+        if(this.singleScanMode){
+            this.resolveAllLibraryRelationsInSingleScan();
+            return;
+        }
+
         if(!this.libIdentIterator.isInitialized()){
             log.error("Cannot resolve library relations, library identifier index must be initialized first!");
             return;
@@ -70,8 +93,6 @@ public class LibraryVersionRelationResolver {
                 batchNumber += 1;
                 batch = new ArrayList<>();
             }
-
-            this.numberOfLibrariesHandled += 1;
         }
 
         if(batch.size() > 0){
@@ -92,8 +113,260 @@ public class LibraryVersionRelationResolver {
             log.error("Error while waiting for threadpool", ix);
         }
 
-        log.info("Successfully processed " + this.numberOfLibrariesHandled + " libraries.");
-        log.info("Got " + this.numberOfLibrariesFailed + " library failures and a total of " + this.numberOfVersionParserErrors + " version parser errors.");
+        log.info("Successfully processed " + LibrariesProcessed.getCount() + " libraries.");
+        log.info("Got " + LibraryErrors.getCount() + " library failures and a total of " +
+                VersionParserErrors.getCount() + " version parser errors.");
+    }
+
+    /**
+     * Resolves all library relations by streaming the versions of all artifacts in one query, grouping and sorting
+     * them in memory per library and writing NEXT / NEXT_RELEASE relations in batched UNWIND statements. This avoids
+     * one read query and one autocommit write per relation for every single library.
+     */
+    private void resolveAllLibraryRelationsInSingleScan(){
+        Map<String, List<LibraryRelease>> releasesPerLibrary = this.readAllLibraryReleases();
+
+        if(releasesPerLibrary == null){
+            log.error("Cannot resolve library relations, failed to read library releases.");
+            return;
+        }
+
+        log.info("Starting to schedule library relations for " + releasesPerLibrary.size() + " libraries...");
+
+        List<Map.Entry<String, List<LibraryRelease>>> batch = new ArrayList<>();
+        int batchNumber = 0;
+
+        for(Map.Entry<String, List<LibraryRelease>> library : releasesPerLibrary.entrySet()){
+            batch.add(library);
+
+            if(batch.size() >= 100){
+                int finalBatchNumber = batchNumber;
+                List<Map.Entry<String, List<LibraryRelease>>> finalBatch = batch;
+
+                this.threadPool.execute(() -> handleLibraryReleasesBatch(finalBatch, finalBatchNumber));
+
+                batchNumber += 1;
+                batch = new ArrayList<>();
+            }
+        }
+
+        if(batch.size() > 0){
+            int finalBatchNumber1 = batchNumber;
+            List<Map.Entry<String, List<LibraryRelease>>> finalBatch1 = batch;
+            this.threadPool.execute(() -> handleLibraryReleasesBatch(finalBatch1, finalBatchNumber1));
+        }
+
+        this.totalBatchCnt = batchNumber;
+
+        try{
+            log.info("Waiting for threadpool to finish execution...");
+            threadPool.shutdown();
+            threadPool.awaitTermination(15, TimeUnit.DAYS);
+        }
+        catch(InterruptedException ix){
+            log.error("Error while waiting for threadpool", ix);
+        }
+
+        log.info("Successfully processed " + LibrariesProcessed.getCount() + " libraries.");
+        log.info("Got " + LibraryErrors.getCount() + " library failures and a total of " +
+                VersionParserErrors.getCount() + " version parser errors.");
+    }
+
+    private Map<String, List<LibraryRelease>> readAllLibraryReleases(){
+        log.info("Start reading versions of all artifacts in a single scan...");
+
+        Map<String, List<LibraryRelease>> releasesPerLibrary = new HashMap<>();
+        // Same semantics as the incremental library iterator: Only libraries with at least one unlinked version
+        Set<String> librariesWithUnlinkedReleases = new HashSet<>();
+        int releaseCnt = 0;
+
+        try(Session session = sessionFactory.buildSession()){
+            Result releaseIterator = session.run("MATCH (a:Artifact) RETURN a.groupId AS group, a.artifactId AS artifact, " +
+                    "a.version AS version, a.createdAt AS created, a.versionKey AS key, " +
+                    "EXISTS((a)-[:NEXT]-(:Artifact)) AS linked");
+
+            while(releaseIterator.hasNext()){
+                Record record = releaseIterator.next();
+
+                String libraryIdentifier = record.get("group").asString() + ":" + record.get("artifact").asString();
+
+                LibraryRelease release = new LibraryRelease();
+                release.RawVersion = record.get("version").asString();
+                release.CreatedAt = record.get("created").asLong();
+                release.StoredVersionKey = record.get("key").asString(null);
+                release.Linked = record.get("linked").asBoolean();
+
+                releasesPerLibrary.computeIfAbsent(libraryIdentifier, k -> new ArrayList<>()).add(release);
+
+                if(!release.Linked)
+                    librariesWithUnlinkedReleases.add(libraryIdentifier);
+
+                releaseCnt += 1;
+
+                if(releaseCnt % 1000000 == 0){
+                    log.info("Read " + releaseCnt + " releases...");
+                }
+            }
+        } catch(Exception x){
+            log.error("Uncaught failure while reading library releases", x);
+            return null;
+        }
+
+        releasesPerLibrary.keySet().retainAll(librariesWithUnlinkedReleases);
+
+        log.info("Successfully read " + releaseCnt + " releases of " + releasesPerLibrary.size() + " libraries.");
+
+        return releasesPerLibrary;
+    }
+
+    private void handleLibraryReleasesBatch(List<Map.Entry<String, List<LibraryRelease>>> batch, int batchNumber){
+        log.info("Start working on batch " + batchNumber + " of " + this.totalBatchCnt);
+
+        List<Map<String, Object>> relinkedLibraries = new ArrayList<>();
+        List<String> linkedLibraries = new ArrayList<>();
+        List<Map<String, Object>> nextVersionRelations = new ArrayList<>();
+        List<Map<String, Object>> nextReleaseRelations = new ArrayList<>();
+        // Libraries whose relations are collected but not yet written
+        int pendingLibraries = 0;
+        int handledLibraries = 0;
+
+        try(Session session = sessionFactory.buildSession()){
+            for(Map.Entry<String, List<LibraryRelease>> library : batch){
+                if(!this.collectLibraryRelations(library.getKey(), library.getValue(), nextVersionRelations,
+                        nextReleaseRelations)){
+                    LibraryErrors.increment();
+                } else {
+                    pendingLibraries++;
+                    linkedLibraries.add(library.getKey());
+
+                    if(library.getValue().stream().anyMatch(release -> release.Linked)){
+                        // New versions may sort between linked ones, the existing chains are replaced as a whole
+                        String[] parts = library.getKey().split(":");
+                        Map<String, Object> relinkedLibrary = new HashMap<>();
+                        relinkedLibrary.put("g", parts[0]);
+                        relinkedLibrary.put("a", parts[1]);
+                        relinkedLibraries.add(relinkedLibrary);
+                    }
+                }
+
+                // Only flushed between libraries, so that all relations of a library are replaced at once
+                if(nextVersionRelations.size() >= RelationWriteBatchSize || nextReleaseRelations.size() >= RelationWriteBatchSize){
+                    this.flushRelations(pendingLibraries, relinkedLibraries, linkedLibraries, nextVersionRelations, nextReleaseRelations, session, batchNumber);
+                    pendingLibraries = 0;
+                }
+
+                handledLibraries++;
+            }
+
+            this.flushRelations(pendingLibraries, relinkedLibraries, linkedLibraries, nextVersionRelations, nextReleaseRelations, session, batchNumber);
+            pendingLibraries = 0;
+        }
+        catch(Exception x){
+            log.error("Uncaught exception while writing relations of batch " + batchNumber, x);
+            LibraryErrors.add(batch.size() - handledLibraries + pendingLibraries);
+        }
+
+        log.info("Finished processing batch " + batchNumber + " of " + this.totalBatchCnt);
+    }
+
+    /**
+     * Writes the collected relations and only then counts their libraries as processed. If writing fails, all libraries
+     * of the flush count as failed.
+     */
+    private void flushRelations(int libraryCount, List<Map<String, Object>> relinkedLibraries, List<String> linkedLibraries,
+                                List<Map<String, Object>> nextVersionRelations,
+                                List<Map<String, Object>> nextReleaseRelations, Session session, int batchNumber){
+        try {
+            this.writeRelations(relinkedLibraries, linkedLibraries, nextVersionRelations, nextReleaseRelations, session);
+            LibrariesProcessed.mark(libraryCount);
+        } catch(Exception x){
+            log.error("Failed to write relations of " + libraryCount + " libraries in batch " + batchNumber, x);
+            LibraryErrors.add(libraryCount);
+        } finally {
+            relinkedLibraries.clear();
+            linkedLibraries.clear();
+            nextVersionRelations.clear();
+            nextReleaseRelations.clear();
+        }
+    }
+
+    private boolean collectLibraryRelations(String libraryIdentifier, List<LibraryRelease> releases,
+                                            List<Map<String, Object>> nextVersionRelations,
+                                            List<Map<String, Object>> nextReleaseRelations){
+        try{
+            List<LibraryRelease> parsedReleases = new ArrayList<>(releases.size());
+
+            for(LibraryRelease release : releases){
+                try{
+                    release.VersionKey = computeVersionKey(release);
+                } catch(Exception x){
+                    log.error("Failed to interpret semantic version: " + release.RawVersion, x);
+                    VersionParserErrors.increment();
+                    continue;
+                }
+
+                parsedReleases.add(release);
+            }
+
+            log.trace("Got " + parsedReleases.size() + " releases for library " + libraryIdentifier);
+
+            // Collect NEXT relations (based on version ordering)
+            parsedReleases.sort((o1, o2) -> VersionSortKey.compare(o1.VersionKey, o2.VersionKey));
+            collectChainRelations(libraryIdentifier, parsedReleases, nextVersionRelations);
+
+            // Collect NEXT_RELEASE relations (based on creation date)
+            parsedReleases.sort(Comparator.comparing(o -> o.CreatedAt));
+            collectChainRelations(libraryIdentifier, parsedReleases, nextReleaseRelations);
+
+            return true;
+        }
+        catch(Exception x){
+            log.error("Uncaught exception while handling library: " + libraryIdentifier, x);
+            return false;
+        }
+    }
+
+    private void collectChainRelations(String libraryIdentifier, List<LibraryRelease> sortedReleases,
+                                       List<Map<String, Object>> relations){
+        for(int i = 0; i < sortedReleases.size() - 1; i++){
+            Map<String, Object> relation = new HashMap<>();
+            relation.put("ca", libraryIdentifier + ":" + sortedReleases.get(i).RawVersion);
+            relation.put("na", libraryIdentifier + ":" + sortedReleases.get(i + 1).RawVersion);
+            relations.add(relation);
+        }
+    }
+
+    private void writeRelations(List<Map<String, Object>> relinkedLibraries, List<String> linkedLibraries,
+                                List<Map<String, Object>> nextVersionRelations,
+                                List<Map<String, Object>> nextReleaseRelations, Session session){
+        if(linkedLibraries.isEmpty())
+            return;
+
+        // Libraries that got new versions are linked again as a whole, their old chains are removed in the same
+        // transaction so that no version keeps an outdated NEXT / NEXT_RELEASE edge
+        session.writeTransaction(transaction -> {
+            if(!relinkedLibraries.isEmpty()){
+                transaction.run("UNWIND $libraries AS lib MATCH (a:Artifact {groupId: lib.g, artifactId: lib.a})" +
+                        "-[r:NEXT|NEXT_RELEASE]->(:Artifact) DELETE r", parameters("libraries", relinkedLibraries));
+            }
+
+            this.createRelations("NEXT", nextVersionRelations, transaction);
+            this.createRelations("NEXT_RELEASE", nextReleaseRelations, transaction);
+
+            // Libraries without library node (yet) are enumerated via their artifacts anyway
+            transaction.run("UNWIND $libraries AS ga MATCH (l:Library {ga: ga}) SET l.linked = true",
+                    parameters("libraries", linkedLibraries));
+            return null;
+        });
+    }
+
+    private void createRelations(String relationType, List<Map<String, Object>> relations, Transaction transaction){
+        if(relations.isEmpty())
+            return;
+
+        transaction.run("UNWIND $relations AS rel MATCH (a:Artifact {coordinates: rel.ca}) " +
+                "MATCH (b:Artifact {coordinates: rel.na}) MERGE (a)-[:" + relationType + "]->(b)",
+                parameters("relations", relations));
     }
 
     private void handleLibraryBatch(List<String> batch, int batchNumber){
@@ -106,10 +379,11 @@ public class LibraryVersionRelationResolver {
                 log.info("Processing library identifier in batch (number " + batchNumber + "): " + cnt + " / " + batch.size());
             }
 
-            if(!this.handleLibrary(libIdent)){
-                this.numberOfLibrariesFailed += 1;
+            if(this.handleLibrary(libIdent)){
+                LibrariesProcessed.mark();
+            } else {
+                LibraryErrors.increment();
             }
-
             cnt++;
         }
 
@@ -124,8 +398,15 @@ public class LibraryVersionRelationResolver {
         List<LibraryRelease> releases = new ArrayList<>();
 
         try(Session session = sessionFactory.buildSession()){
-            Result libReleasesIterator = session.run("MATCH (a:Artifact {groupId: $g, artifactId: $a}) RETURN " +
-                    "a.version AS version, a.createdAt AS created", parameters("g", groupId, "a", artifactId));
+            Result libReleasesIterator;
+
+            if(this.libIdentIterator.usesLibraryNodes()){
+                libReleasesIterator = session.run("MATCH (:Library {ga: $ga})-[:HAS_VERSION]->(a:Artifact) RETURN " +
+                        "a.version AS version, a.createdAt AS created, a.versionKey AS key", parameters("ga", libraryIdentifier));
+            } else {
+                libReleasesIterator = session.run("MATCH (a:Artifact {groupId: $g, artifactId: $a}) RETURN " +
+                        "a.version AS version, a.createdAt AS created, a.versionKey AS key", parameters("g", groupId, "a", artifactId));
+            }
 
             while(libReleasesIterator.hasNext()){
                 Record record = libReleasesIterator.next();
@@ -133,13 +414,13 @@ public class LibraryVersionRelationResolver {
                 LibraryRelease release = new LibraryRelease();
                 release.RawVersion = record.get("version").asString();
                 release.CreatedAt = record.get("created").asLong();
+                release.StoredVersionKey = record.get("key").asString(null);
 
                 try{
-                    release.Version = new DefaultArtifactVersion(release.RawVersion);
-                    //release.Version = new Semver(release.RawVersion, Semver.SemverType.LOOSE);
+                    release.VersionKey = computeVersionKey(release);
                 } catch(Exception x){
                     log.error("Failed to interpret semantic version: " + release.RawVersion, x);
-                    this.numberOfVersionParserErrors += 1;
+                    VersionParserErrors.increment();
                     continue;
                 }
 
@@ -150,11 +431,16 @@ public class LibraryVersionRelationResolver {
 
             if(releases.size() == 1){
                 // No relations to create here
+                this.markLibraryLinked(libraryIdentifier, session);
                 return true;
             }
 
+            // New versions may sort between linked ones, the existing chains are replaced as a whole
+            session.run("MATCH (a:Artifact {groupId: $g, artifactId: $a})-[r:NEXT|NEXT_RELEASE]->(:Artifact) DELETE r",
+                    parameters("g", groupId, "a", artifactId)).consume();
+
             // Create NEXT relation (based on version ordering)
-            releases.sort(Comparator.comparing(o -> o.Version));
+            releases.sort((o1, o2) -> VersionSortKey.compare(o1.VersionKey, o2.VersionKey));
 
             for(int i = 0; i < releases.size(); i++){
                 LibraryRelease current = releases.get(i);
@@ -181,6 +467,7 @@ public class LibraryVersionRelationResolver {
                 }
             }
 
+            this.markLibraryLinked(libraryIdentifier, session);
             return true;
         }
         catch(Exception x){
@@ -189,6 +476,18 @@ public class LibraryVersionRelationResolver {
         }
     }
 
+    private byte[] computeVersionKey(LibraryRelease release){
+        // Sort keys that were stored along with the artifact do not need to be computed again
+        if(release.StoredVersionKey != null)
+            return VersionSortKey.fromSortableString(release.StoredVersionKey);
+        else
+            return VersionSortKey.encode(release.RawVersion);
+    }
+
+    private void markLibraryLinked(String libraryIdentifier, Session session){
+        session.run("MATCH (l:Library {ga: $ga}) SET l.linked = true", parameters("ga", libraryIdentifier)).consume();
+    }
+
     private void createNextVersionRelation(String coordinatesCurrent, String coordinatesNext, Session session){
         session.run("MATCH (a:Artifact {coordinates: $ca}) MATCH (b:Artifact {coordinates: $na}) " +
                 "CREATE (a)-[:NEXT]->(b)", parameters("ca", coordinatesCurrent, "na", coordinatesNext));
@@ -202,7 +501,9 @@ public class LibraryVersionRelationResolver {
     private static class LibraryRelease {
         String RawVersion;
         long CreatedAt;
-        //Semver Version;
-        ArtifactVersion Version;
+        String StoredVersionKey;
+        byte[] VersionKey;
+        // Whether the release already has NEXT relations
+        boolean Linked;
     }
 }
@@ -1,18 +1,37 @@
 package org.anon.vulnanalysis;
 
+import org.anon.vulnanalysis.distribution.FileLeaseCoordinator;
+import org.anon.vulnanalysis.distribution.GavPartitioner;
+import org.anon.vulnanalysis.distribution.StaticShardCoordinator;
+import org.anon.vulnanalysis.distribution.WorkCoordinator;
 import org.anon.vulnanalysis.lucene.BufferedGAVIterator;
+import org.anon.vulnanalysis.metrics.MetricsRegistry;
 import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.model.MavenCentralRepository;
+import org.anon.vulnanalysis.model.RepositoryStandIn;
+import org.anon.vulnanalysis.pom.PomContentBuffer;
 import org.anon.vulnanalysis.pom.PomFileBatchResolver;
-import org.anon.vulnanalysis.pom.dependencies.AetherDependencyResolver;
+import org.anon.vulnanalysis.pom.PomPrefetcher;
+import org.anon.vulnanalysis.pom.ResolverRouter;
+import org.anon.vulnanalysis.pom.dependencies.AetherDependencyResolverService;
 import org.anon.vulnanalysis.pom.dependencies.DependencyResolverProvider;
-import org.anon.vulnanalysis.pom.dependencies.RecursiveDependencyResolver;
+import org.anon.vulnanalysis.pom.dependencies.MissingPomCache;
+import org.anon.vulnanalysis.pom.dependencies.PomModelCache;
+import org.anon.vulnanalysis.pom.dependencies.RecursiveDependencyResolverService;
+import org.anon.vulnanalysis.pom.dependencies.ResolutionMemo;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.anon.vulnanalysis.utils.MinerConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -21,9 +40,11 @@ public class Miner {
 
     private static final DependencyResolverProvider ResolverProvider = DependencyResolverProvider.getInstance();
 
+    private static final String MissingPomCacheFileName = "missing-poms.tsv";
+    private static final String RoutingStatisticsFileName = "resolver-routing.tsv";
+
     private final Logger log = LogManager.getLogger(Miner.class);
 
-    private ExecutorService threadPool;
     private BufferedGAVIterator artifactIterator;
     private boolean isInitialized;
 
@@ -31,8 +52,23 @@ public class Miner {
 
     public Miner(MinerConfiguration config){
         this.isInitialized = false;
-        ResolverProvider.registerResolverType(RecursiveDependencyResolver.class);
-        ResolverProvider.registerBackupResolverType(AetherDependencyResolver.class);
+        ResolverProvider.registerResolver(new RecursiveDependencyResolverService(config));
+        ResolverProvider.registerBackupResolver(new AetherDependencyResolverService(config));
+        PomModelCache.getInstance().setCapacity(config.PomModelCacheSize);
+        ResolutionMemo.getInstance().setCapacity(config.ResolutionMemoCapacity);
+        MissingPomCache.getInstance().setTimeToLive(config.MissingPomTimeToLiveHours, TimeUnit.HOURS);
+        if(getMissingPomCacheFile(config) != null)
+            MissingPomCache.getInstance().loadFrom(getMissingPomCacheFile(config));
+        ResolverRouter.getInstance().configure(config);
+        ResolverRouter.getInstance().loadFrom(getRoutingStatisticsFile(config));
+        registerCacheMetrics();
+
+        // Prefetching transfers entire POM files, refresh runs only need the headers of most of them
+        if(config.RefreshExistingArtifacts && config.NumberOfPrefetchThreads > 0)
+            log.info("Prefetching is disabled on refresh runs");
+        else
+            PomPrefetcher.initialize(config);
+
         this.config = config;
     }
 
@@ -47,11 +83,9 @@ public class Miner {
         try{
             log.info("Initializing lucene index, this might take a few minutes...");
 
-            artifactIterator = new BufferedGAVIterator(luceneIndexDir.getAbsolutePath());
+            artifactIterator = new BufferedGAVIterator(luceneIndexDir.getAbsolutePath(), config.GroupArtifactsByLibrary);
             artifactIterator.initializeIndex();
 
-            this.threadPool = Executors.newFixedThreadPool(config.NumberOfWorkerThreads);
-
             log.info("Done initializing index.");
         }
         catch(IOException iox){
@@ -68,17 +102,121 @@ public class Miner {
             throw new IllegalStateException("Cannot process Maven Central artifacts, miner is not initialized.");
         }
 
+        WorkCoordinator coordinator = buildWorkCoordinator();
+
+        if(coordinator != null){
+            try {
+                this.processArtifactsDistributed(coordinator);
+            } finally {
+                coordinator.close();
+            }
+        } else {
+            this.processArtifacts(this.artifactIterator);
+        }
+
+        PomPrefetcher.shutdown();
+
+        if(getMissingPomCacheFile(config) != null)
+            MissingPomCache.getInstance().saveTo(getMissingPomCacheFile(config));
+        ResolverRouter.getInstance().saveTo(getRoutingStatisticsFile(config));
+
+        logModelCacheStatistics();
+        logRoutingStatistics();
+    }
+
+    /**
+     * Returns the file that missing POM files are kept in across runs, or null if they must not be kept. Missing files
+     * are only valid for the repository they are missing in, so every repository has its own file. Replayed 404s
+     * (including misses of the archive) are never kept.
+     */
+    private static Path getMissingPomCacheFile(MinerConfiguration config){
+        if(config.RepositoryMode == RepositoryStandIn.Mode.REPLAY)
+            return null;
+
+        String repositoryUrl = config.RepositoryUrl.endsWith("/") ? config.RepositoryUrl : config.RepositoryUrl + "/";
+
+        if(repositoryUrl.equals(MavenCentralRepository.DefaultRepoBasePath))
+            return Paths.get(config.WorkingDirectoryPath, MissingPomCacheFileName);
+
+        byte[] url = repositoryUrl.getBytes(StandardCharsets.UTF_8);
+        String repositoryKey = PomContentBuffer.sha1Hex(url, 0, url.length).substring(0, 12);
+        return Paths.get(config.WorkingDirectoryPath, MissingPomCacheFileName.replace(".tsv", "-" + repositoryKey + ".tsv"));
+    }
+
+    private static Path getRoutingStatisticsFile(MinerConfiguration config){
+        return Paths.get(config.WorkingDirectoryPath, RoutingStatisticsFileName);
+    }
+
+    private WorkCoordinator buildWorkCoordinator(){
+        if(config.LeaseDirectoryPath != null){
+            try {
+                return new FileLeaseCoordinator(config.LeaseDirectoryPath, config.NumberOfPartitions, config.InstanceId);
+            } catch(IOException iox){
+                throw new IllegalStateException("Failed to initialize lease directory " + config.LeaseDirectoryPath, iox);
+            }
+        } else if(config.ShardCount > 1){
+            return new StaticShardCoordinator(config.ShardCount, config.ShardIndex);
+        }
+
+        return null;
+    }
+
+    /**
+     * Processes all partitions of the GAV space this instance is given by the coordinator. Within a partition, the
+     * configured scheduling applies.
+     */
+    private void processArtifactsDistributed(WorkCoordinator coordinator){
+        int numberOfPartitions = coordinator.getNumberOfPartitions();
+        List<List<ArtifactIdentifier>> partitions = new ArrayList<>(numberOfPartitions);
+
+        for(int i = 0; i < numberOfPartitions; i++){
+            partitions.add(new ArrayList<>());
+        }
+
+        // Buckets all artifacts in a single pass instead of scanning all of them for every partition
+        while(this.artifactIterator.hasNext()){
+            ArtifactIdentifier identifier = this.artifactIterator.next();
+            partitions.get(GavPartitioner.partitionOf(identifier, numberOfPartitions)).add(identifier);
+        }
+
+        int partition;
+        int totalProcessed = 0;
+
+        while((partition = coordinator.acquirePartition()) >= 0){
+            // Kept after processing, an expired partition may be leased to this instance again
+            List<ArtifactIdentifier> partitionArtifacts = partitions.get(partition);
+
+            log.info("Processing partition " + partition + " with " + partitionArtifacts.size() + " artifacts...");
+            int processed = this.processArtifacts(partitionArtifacts.iterator());
+            totalProcessed += processed;
+
+            coordinator.completePartition(partition, processed);
+        }
+
+        log.info("No partitions left, processed " + totalProcessed + " artifacts in total");
+    }
+
+    private int processArtifacts(Iterator<ArtifactIdentifier> artifacts){
+        if(config.UseWorkStealingScheduler){
+            return this.processArtifactsWorkStealing(artifacts);
+        }
+
+        if(config.GroupArtifactsByLibrary){
+            return this.processArtifactsGroupedByLibrary(artifacts);
+        }
+
+        ExecutorService threadPool = Executors.newFixedThreadPool(config.NumberOfWorkerThreads);
         int artifactCnt = 0;
         ArrayList<ArtifactIdentifier> batch = new ArrayList<>();
 
-        while(this.artifactIterator.hasNext()){
-            ArtifactIdentifier currentIdentifier = this.artifactIterator.next();
+        while(artifacts.hasNext()){
+            ArtifactIdentifier currentIdentifier = artifacts.next();
             batch.add(currentIdentifier);
 
             if(batch.size() >= config.BatchSize){
                 log.trace("Scheduling a new batch @ " + artifactCnt + " artifacts..");
                 Thread worker = new PomFileBatchResolver(batch, config);
-                this.threadPool.execute(worker);
+                threadPool.execute(worker);
                 batch = new ArrayList<>();
             }
 
@@ -87,7 +225,7 @@ public class Miner {
 
         if(batch.size() > 0){
             log.trace("Scheduling last batch @ " + artifactCnt + " artifacts..");
-            this.threadPool.execute(new PomFileBatchResolver(batch, config));
+            threadPool.execute(new PomFileBatchResolver(batch, config));
         }
         
         try{
@@ -99,5 +237,134 @@ public class Miner {
             log.error("Error while waiting for threadpool", ix);
         }
         log.info("Finished processing " + artifactCnt + " artifacts");
+        return artifactCnt;
+    }
+
+    private int processArtifactsWorkStealing(Iterator<ArtifactIdentifier> artifactIterator){
+        List<ArtifactIdentifier> artifacts = new ArrayList<>();
+
+        while(artifactIterator.hasNext()){
+            artifacts.add(artifactIterator.next());
+        }
+
+        log.info("Processing " + artifacts.size() + " artifacts with work-stealing scheduler...");
+        new WorkStealingArtifactScheduler(config).processArtifacts(artifacts);
+        return artifacts.size();
+    }
+
+    /**
+     * Artifacts arrive ordered by library. Batches are only cut at library boundaries (unless a library is much larger
+     * than the batch size), and all batches of a groupId are queued on the same shard. Every worker thread thus
+     * processes whole library families and sees a stable set of parents and BOMs, idle workers steal whole batches
+     * from other shards (see LibraryShardScheduler).
+     */
+    private int processArtifactsGroupedByLibrary(Iterator<ArtifactIdentifier> artifacts){
+        LibraryShardScheduler scheduler = new LibraryShardScheduler(config.NumberOfWorkerThreads);
+
+        int artifactCnt = 0;
+        ArrayList<ArtifactIdentifier> batch = new ArrayList<>();
+        ArtifactIdentifier lastIdentifier = null;
+
+        while(artifacts.hasNext()){
+            ArtifactIdentifier currentIdentifier = artifacts.next();
+
+            if(lastIdentifier != null && batch.size() >= config.BatchSize &&
+                    (!isSameLibrary(lastIdentifier, currentIdentifier) || batch.size() >= 2 * config.BatchSize)){
+                log.trace("Scheduling a new batch @ " + artifactCnt + " artifacts..");
+                scheduler.schedule(batch.get(0).GroupId, new PomFileBatchResolver(batch, config));
+                batch = new ArrayList<>();
+            }
+
+            batch.add(currentIdentifier);
+            lastIdentifier = currentIdentifier;
+            artifactCnt++;
+        }
+
+        if(batch.size() > 0){
+            log.trace("Scheduling last batch @ " + artifactCnt + " artifacts..");
+            scheduler.schedule(batch.get(0).GroupId, new PomFileBatchResolver(batch, config));
+        }
+
+        try{
+            log.info("Waiting for shards to finish execution...");
+            scheduler.awaitCompletion();
+        }
+        catch(InterruptedException ix){
+            log.error("Error while waiting for shards", ix);
+        }
+        log.info("Finished processing " + artifactCnt + " artifacts");
+        return artifactCnt;
+    }
+
+    private void logModelCacheStatistics(){
+        PomModelCache cache = PomModelCache.getInstance();
+        if(cache.isEnabled()){
+            log.info("POM model cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses, " +
+                    cache.size() + " models cached");
+        }
+
+        ResolutionMemo memo = ResolutionMemo.getInstance();
+        if(memo.isEnabled()){
+            log.info("Resolution memo: " + memo.getHits() + " hits, " + memo.getMisses() + " misses, " +
+                    memo.getRejected() + " entries rejected, " + memo.size() + " results memoized");
+        }
+
+        MissingPomCache missingPoms = MissingPomCache.getInstance();
+        if(missingPoms.isEnabled()){
+            log.info("Missing POM cache: " + missingPoms.getHits() + " requests avoided, " + missingPoms.size() +
+                    " missing POM files known");
+        }
+    }
+
+    private static void registerCacheMetrics(){
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+        PomModelCache modelCache = PomModelCache.getInstance();
+        metrics.counter("miner_model_cache_hits_total", "POM model cache hits", modelCache::getHits);
+        metrics.counter("miner_model_cache_misses_total", "POM model cache misses", modelCache::getMisses);
+        metrics.gauge("miner_model_cache_size", "Models in the POM model cache", modelCache::size);
+
+        ResolutionMemo memo = ResolutionMemo.getInstance();
+        metrics.counter("miner_resolution_memo_hits_total", "Results taken from the resolution memo", memo::getHits);
+        metrics.counter("miner_resolution_memo_misses_total", "Resolution memo misses", memo::getMisses);
+        metrics.counter("miner_resolution_memo_rejected_total", "Rejected resolution memo entries", memo::getRejected);
+        metrics.gauge("miner_resolution_memo_size", "Results in the resolution memo", memo::size);
+
+        MissingPomCache missingPoms = MissingPomCache.getInstance();
+        metrics.counter("miner_missing_pom_hits_total", "Requests avoided for POM files known to be missing",
+                missingPoms::getHits);
+        metrics.gauge("miner_missing_pom_size", "POM files known to be missing", missingPoms::size);
+
+        ResolverRouter router = ResolverRouter.getInstance();
+        metrics.counter("miner_primary_resolver_attempts_total", "Artifacts resolved with the primary resolver",
+                router::getPrimaryAttempts);
+        metrics.counter("miner_primary_resolver_failures_total", "Artifacts the primary resolver failed for",
+                router::getPrimaryFailures);
+        metrics.counter("miner_routed_to_backup_total", "Artifacts routed directly to the backup resolver",
+                router::getRoutedToBackup);
+        metrics.counter("miner_routing_fallbacks_total", "Routed artifacts the backup resolver failed for",
+                router::getRoutingFallbacks);
+    }
+
+    private void logRoutingStatistics(){
+        ResolverRouter router = ResolverRouter.getInstance();
+        long attempts = router.getPrimaryAttempts();
+
+        log.info("Primary resolver: " + attempts + " attempts, " + router.getPrimaryFailures() + " failures (" +
+                String.format("%.1f", attempts == 0 ? 0.0 : 100.0 * router.getPrimaryFailures() / attempts) + "%)");
+
+        if(router.isEnabled()){
+            log.info("Resolver routing: " + router.getRoutedToBackup() + " artifacts routed to backup resolver, " +
+                    router.getRoutingFallbacks() + " fallbacks, " + router.getRoutedFamilies().size() + " families routed");
+
+            for(Map.Entry<String, Double> family : router.getTopFailingFamilies(10)){
+                log.info("  " + family.getKey() + ": " + String.format("%.1f", 100.0 * family.getValue()) +
+                        "% primary resolver failures");
+            }
+        }
+    }
+
+    private static boolean isSameLibrary(ArtifactIdentifier first, ArtifactIdentifier second){
+        return first.GroupId.equals(second.GroupId) && first.ArtifactId.equals(second.ArtifactId);
     }
 }
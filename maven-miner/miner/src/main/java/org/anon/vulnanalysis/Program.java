@@ -1,11 +1,17 @@
 package org.anon.vulnanalysis;
 
+import org.anon.vulnanalysis.metrics.MetricsRegistry;
+import org.anon.vulnanalysis.metrics.StageProgress;
+import org.anon.vulnanalysis.model.RepositoryStandIn;
+import org.anon.vulnanalysis.storage.DryRunStorageAdapter;
 import org.anon.vulnanalysis.storage.Neo4jSessionFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.anon.vulnanalysis.utils.ConfigReader;
 import org.anon.vulnanalysis.utils.MinerConfiguration;
 
+import java.io.IOException;
+
 public class Program {
 
     private static Logger log = LogManager.getLogger(Program.class);
@@ -37,12 +43,12 @@ public class Program {
     }
 
     public static void tryShutdownStorageConnection(){
-        if(Neo4jSessionFactory.getInstance() != null)
+        if(Neo4jSessionFactory.isInitialized())
             Neo4jSessionFactory.getInstance().close();
     }
 
     public enum ExecutionMode {
-        MINER_ONLY, NODE_RESOLVER_ONLY, LIB_RESOLVER_ONLY, ALL
+        MINER_ONLY, NODE_RESOLVER_ONLY, LIB_RESOLVER_ONLY, LIB_NODES_ONLY, ALL, DRY_RUN
     }
 
     public static void main(String[] args){
@@ -52,8 +58,15 @@ public class Program {
         if(theConfig == null)
             System.exit(1);
 
-        if(!Program.initStorageConnection(theConfig))
-            System.exit(2);
+        MetricsRegistry.getInstance().configure(theConfig);
+
+        try {
+            RepositoryStandIn.getInstance().configure(theConfig);
+        } catch(IOException iox){
+            log.error("Failed to start the repository stand-in in mode " + theConfig.RepositoryMode, iox);
+            MetricsRegistry.getInstance().shutdown();
+            System.exit(1);
+        }
 
         ExecutionMode mode = null;
 
@@ -67,30 +80,48 @@ public class Program {
                 case "resolve-libs":
                     mode = ExecutionMode.LIB_RESOLVER_ONLY;
                     break;
+                case "materialize-libs":
+                    mode = ExecutionMode.LIB_NODES_ONLY;
+                    break;
                 case "mine":
                     mode = ExecutionMode.MINER_ONLY;
                     break;
                 case "all":
                     mode = ExecutionMode.ALL;
                     break;
+                case "dry-run":
+                    mode = ExecutionMode.DRY_RUN;
+                    break;
                 default:
-                    log.error("Usage: Program [resolve-nodes|resolve-libs|mine|all]");
+                    log.error("Usage: Program [resolve-nodes|resolve-libs|materialize-libs|mine|all|dry-run]");
                     System.exit(1);
             }
         } else {
-            log.error("Usage: Program [resolve-nodes|resolve-libs|mine|all]");
+            log.error("Usage: Program [resolve-nodes|resolve-libs|materialize-libs|mine|all|dry-run]");
             System.exit(1);
         }
 
+        // Dry runs mine artifacts without storing them, they do not need a database
+        if(mode == ExecutionMode.DRY_RUN){
+            theConfig.DryRun = true;
+        } else if(!Program.initStorageConnection(theConfig)){
+            System.exit(2);
+        }
+
         try{
-            if(mode == ExecutionMode.MINER_ONLY || mode == ExecutionMode.ALL){
-                log.info("Starting to mine artifacts from Maven Central ...");
+            if(mode == ExecutionMode.MINER_ONLY || mode == ExecutionMode.ALL || mode == ExecutionMode.DRY_RUN){
+                log.info(mode == ExecutionMode.DRY_RUN ? "Starting dry run, mining artifacts without storing them ..." :
+                        "Starting to mine artifacts from Maven Central ...");
                 long startTime = System.currentTimeMillis();
-                Miner miner = new Miner(theConfig);
 
-                if(miner.initialize()){
-                    miner.processArtifacts();
+                try(StageProgress progress = StageProgress.start(mode == ExecutionMode.DRY_RUN ? "dry run" : "mining")){
+                    Miner miner = new Miner(theConfig);
+
+                    if(miner.initialize()){
+                        miner.processArtifacts();
+                    }
                 }
+
                 long durationSeconds = (System.currentTimeMillis() - startTime) / 1000;
                 log.info("Finished mining artifacts in " + durationSeconds + " seconds");
             }
@@ -98,28 +129,51 @@ public class Program {
             if(mode == ExecutionMode.NODE_RESOLVER_ONLY || mode == ExecutionMode.ALL){
                 log.info("Starting to resolve artifact dependencies in graph ...");
                 long startTime = System.currentTimeMillis();
-                GraphNodeRelationResolver resolver = new GraphNodeRelationResolver();
 
-                resolver.createRelationsInGraph();
+                try(StageProgress progress = StageProgress.start("node resolution")){
+                    GraphNodeRelationResolver resolver = new GraphNodeRelationResolver();
+
+                    resolver.createRelationsInGraph();
+                }
 
                 long durationSeconds = (System.currentTimeMillis() - startTime) / 1000;
                 log.info("Finished resolving node relations in " + durationSeconds + " seconds");
 
             }
 
+            if(mode == ExecutionMode.LIB_NODES_ONLY){
+                log.info("Starting to create library nodes in graph ...");
+                long startTime = System.currentTimeMillis();
+
+                try(StageProgress progress = StageProgress.start("library node creation")){
+                    LibraryNodeResolver resolver = new LibraryNodeResolver();
+
+                    resolver.materializeLibraryNodes();
+                }
+
+                long durationSeconds = (System.currentTimeMillis() - startTime) / 1000;
+                log.info("Finished creating library nodes in " + durationSeconds + " seconds");
+            }
+
             if(mode == ExecutionMode.LIB_RESOLVER_ONLY || mode == ExecutionMode.ALL){
                 log.info("Starting to resolve library relations in graph ...");
                 long startTime = System.currentTimeMillis();
-                LibraryVersionRelationResolver resolver = new LibraryVersionRelationResolver(theConfig);
-                resolver.initialize();
 
-                resolver.resolveAllLibraryRelations();
+                try(StageProgress progress = StageProgress.start("library resolution")){
+                    LibraryVersionRelationResolver resolver = new LibraryVersionRelationResolver(theConfig);
+                    resolver.initialize();
+
+                    resolver.resolveAllLibraryRelations();
+                }
 
                 long durationSeconds = (System.currentTimeMillis() - startTime) / 1000;
                 log.info("Finished resolving library relations in " + durationSeconds + " seconds");
             }
         } finally {
+            DryRunStorageAdapter.closeOutput();
             Program.tryShutdownStorageConnection();
+            RepositoryStandIn.getInstance().shutdown();
+            MetricsRegistry.getInstance().shutdown();
         }
 
     }
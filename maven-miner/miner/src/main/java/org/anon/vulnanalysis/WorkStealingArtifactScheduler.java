@@ -0,0 +1,115 @@
+package org.anon.vulnanalysis;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.pom.PomFileResolver;
+import org.anon.vulnanalysis.pom.PomPrefetcher;
+import org.anon.vulnanalysis.pom.dependencies.ResolverResult;
+import org.anon.vulnanalysis.storage.BufferedArtifactStorage;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  Processes artifacts individually on a work-stealing fork/join pool. Ranges of artifacts are split in halves until
+ *  single artifacts remain, idle workers steal the largest pending ranges from busy ones. A slow artifact therefore
+ *  only delays itself, not a whole batch. Results are written via a BufferedArtifactStorage, so storage batches are
+ *  independent of work units.
+ *
+ *  Workers process their own ranges in order, so if artifacts are grouped by library, every worker still processes
+ *  whole library families most of the time.
+ */
+public class WorkStealingArtifactScheduler {
+
+    private static final int ProgressLogInterval = 10000;
+
+    private final Logger log = LogManager.getLogger(WorkStealingArtifactScheduler.class);
+
+    private final ForkJoinPool workerPool;
+    private final PomFileResolver pomFileResolver;
+    private final BufferedArtifactStorage storage;
+
+    private final AtomicLong processedArtifacts = new AtomicLong(0);
+    private long totalArtifacts = 0;
+
+    public WorkStealingArtifactScheduler(MinerConfiguration config){
+        this.workerPool = new ForkJoinPool(config.NumberOfWorkerThreads);
+        this.pomFileResolver = new PomFileResolver(config);
+        this.storage = new BufferedArtifactStorage(config);
+    }
+
+    /**
+     * Processes all given artifacts and blocks until all results are stored.
+     */
+    public void processArtifacts(List<ArtifactIdentifier> artifacts){
+        this.totalArtifacts = artifacts.size();
+
+        try {
+            workerPool.invoke(new ArtifactRangeTask(artifacts, 0, artifacts.size()));
+        } finally {
+            storage.flush();
+            shutdown();
+        }
+
+        log.info("Finished processing " + processedArtifacts.get() + " artifacts");
+    }
+
+    private void shutdown(){
+        workerPool.shutdown();
+
+        try {
+            workerPool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch(InterruptedException ix){
+            log.error("Error while waiting for worker pool", ix);
+        }
+    }
+
+    private void processArtifact(ArtifactIdentifier identifier){
+        ResolverResult result = pomFileResolver.processIdentifier(identifier);
+
+        if(result != null)
+            storage.addResult(result);
+        else
+            storage.addFailedIdentifier(identifier);
+
+        long processed = processedArtifacts.incrementAndGet();
+        if(processed % ProgressLogInterval == 0){
+            log.info("Processed " + processed + " of " + totalArtifacts + " artifacts");
+        }
+    }
+
+    private class ArtifactRangeTask extends RecursiveAction {
+
+        private final List<ArtifactIdentifier> artifacts;
+        private final int from;
+        private final int to;
+
+        ArtifactRangeTask(List<ArtifactIdentifier> artifacts, int from, int to){
+            this.artifacts = artifacts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= 1){
+                if(to > from){
+                    PomPrefetcher prefetcher = PomPrefetcher.getInstance();
+                    if(prefetcher != null && from + PomPrefetcher.Lookahead < artifacts.size())
+                        prefetcher.prefetch(artifacts.get(from + PomPrefetcher.Lookahead));
+
+                    processArtifact(artifacts.get(from));
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ArtifactRangeTask(artifacts, from, middle), new ArtifactRangeTask(artifacts, middle, to));
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.anon.vulnanalysis.distribution;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Lease-based work distribution via a directory shared by all miner instances (e.g. a network file system). The GAV
+ *  space is split into more partitions than there are instances. An instance leases a partition by atomically creating
+ *  its lease file, keeps the lease alive by touching the file, and marks the partition as done when finished. Fast
+ *  instances thus simply process more partitions. Leases that have not been renewed for some time (crashed instances)
+ *  are broken and handed out again. Lease files contain the id of their owner, an instance whose lease was broken
+ *  notices this when renewing or completing it and gives up the partition without touching the new owner's lease.
+ *
+ *  Instances also write their progress to a file in the same directory, which allows monitoring the entire run.
+ */
+public class FileLeaseCoordinator implements WorkCoordinator {
+
+    private static final long DefaultLeaseTimeoutMillis = TimeUnit.MINUTES.toMillis(10);
+    private static final long LeaseRenewalIntervalMillis = TimeUnit.MINUTES.toMillis(1);
+    private static final long WaitForLeasesMillis = TimeUnit.SECONDS.toMillis(30);
+
+    private final Logger log = LogManager.getLogger(FileLeaseCoordinator.class);
+
+    private final Path leaseDirectory;
+    private final int numberOfPartitions;
+    private final String instanceId;
+    private final long leaseTimeoutMillis;
+
+    private final Set<Integer> heldPartitions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService leaseRenewal;
+
+    private int completedPartitions = 0;
+    private long processedArtifacts = 0;
+
+    public FileLeaseCoordinator(String leaseDirectory, int numberOfPartitions, String instanceId) throws IOException {
+        this(leaseDirectory, numberOfPartitions, instanceId, DefaultLeaseTimeoutMillis);
+    }
+
+    FileLeaseCoordinator(String leaseDirectory, int numberOfPartitions, String instanceId, long leaseTimeoutMillis)
+            throws IOException {
+        if(numberOfPartitions < 1)
+            throw new IllegalArgumentException("Number of partitions must be positive");
+
+        this.leaseDirectory = Paths.get(leaseDirectory);
+        this.numberOfPartitions = numberOfPartitions;
+        this.instanceId = instanceId;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+
+        Files.createDirectories(this.leaseDirectory);
+
+        this.leaseRenewal = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "lease-renewal");
+            t.setDaemon(true);
+            return t;
+        });
+        this.leaseRenewal.scheduleAtFixedRate(this::renewLeases, LeaseRenewalIntervalMillis,
+                LeaseRenewalIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int getNumberOfPartitions() {
+        return numberOfPartitions;
+    }
+
+    @Override
+    public int acquirePartition() {
+        // Start at an instance-specific offset, so that instances do not all compete for the same partitions
+        int offset = Math.floorMod(instanceId.hashCode(), numberOfPartitions);
+
+        while(true){
+            boolean allDone = true;
+
+            for(int i = 0; i < numberOfPartitions; i++){
+                int partition = (offset + i) % numberOfPartitions;
+
+                if(Files.exists(doneFile(partition)))
+                    continue;
+
+                allDone = false;
+
+                if(tryLease(partition)){
+                    log.info("Instance " + instanceId + " leased partition " + partition + " of " + numberOfPartitions);
+                    return partition;
+                }
+            }
+
+            if(allDone)
+                return -1;
+
+            // Remaining partitions are leased by other instances, wait in case any of them fail
+            log.info("All remaining partitions are leased by other instances, waiting...");
+            try {
+                Thread.sleep(WaitForLeasesMillis);
+            } catch(InterruptedException ix){
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public void completePartition(int partition, int processedArtifacts) {
+        if(!heldPartitions.contains(partition) || !ownsLease(partition)){
+            heldPartitions.remove(partition);
+            log.warn("Instance " + instanceId + " lost its lease on partition " + partition + ", not marking it as done");
+            return;
+        }
+
+        try {
+            Files.write(doneFile(partition), (instanceId + " " + processedArtifacts).getBytes(StandardCharsets.UTF_8));
+            heldPartitions.remove(partition);
+            Files.deleteIfExists(leaseFile(partition));
+
+            this.completedPartitions += 1;
+            this.processedArtifacts += processedArtifacts;
+            writeProgress();
+        } catch(IOException iox){
+            log.error("Failed to mark partition " + partition + " as done", iox);
+        }
+
+        log.info("Instance " + instanceId + " finished partition " + partition + " with " + processedArtifacts +
+                " artifacts (" + countDonePartitions() + " of " + numberOfPartitions + " partitions done overall)");
+    }
+
+    @Override
+    public void close() {
+        leaseRenewal.shutdownNow();
+    }
+
+    private boolean tryLease(int partition){
+        Path leaseFile = leaseFile(partition);
+
+        try {
+            Files.write(leaseFile, instanceId.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE);
+            heldPartitions.add(partition);
+            return true;
+        } catch(FileAlreadyExistsException fx){
+            return breakExpiredLease(leaseFile) && tryLease(partition);
+        } catch(IOException iox){
+            log.warn("Failed to lease partition " + partition, iox);
+            return false;
+        }
+    }
+
+    private boolean breakExpiredLease(Path leaseFile){
+        try {
+            long age = System.currentTimeMillis() - Files.getLastModifiedTime(leaseFile).toMillis();
+
+            if(age < leaseTimeoutMillis)
+                return false;
+
+            // Only one instance can move the expired lease away
+            Path brokenLease = leaseFile.resolveSibling(leaseFile.getFileName() + ".broken-" + instanceId);
+            Files.move(leaseFile, brokenLease, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(brokenLease);
+
+            log.warn("Broke expired lease " + leaseFile.getFileName());
+            return true;
+        } catch(NoSuchFileException nsfx){
+            // Lease was completed or broken by another instance meanwhile
+            return false;
+        } catch(IOException iox){
+            log.warn("Failed to break expired lease " + leaseFile.getFileName(), iox);
+            return false;
+        }
+    }
+
+    void renewLeases(){
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+
+        for(Integer partition : heldPartitions){
+            try {
+                // The lease may have been broken and handed to another instance, its file must not be touched then
+                if(!instanceId.equals(readLeaseOwner(partition))){
+                    heldPartitions.remove(partition);
+                    log.warn("Instance " + instanceId + " lost its lease on partition " + partition);
+                    continue;
+                }
+
+                Files.setLastModifiedTime(leaseFile(partition), now);
+            } catch(IOException iox){
+                log.error("Failed to renew lease for partition " + partition, iox);
+            }
+        }
+    }
+
+    /**
+     * Whether this instance still holds the lease on the given partition. A lease that cannot be read is not owned.
+     */
+    boolean ownsLease(int partition){
+        try {
+            return instanceId.equals(readLeaseOwner(partition));
+        } catch(IOException iox){
+            log.warn("Failed to read lease for partition " + partition, iox);
+            return false;
+        }
+    }
+
+    // Returns null if the partition is not leased
+    private String readLeaseOwner(int partition) throws IOException {
+        try {
+            return new String(Files.readAllBytes(leaseFile(partition)), StandardCharsets.UTF_8);
+        } catch(NoSuchFileException nsfx){
+            return null;
+        }
+    }
+
+    private void writeProgress() throws IOException {
+        String progress = "instance=" + instanceId + "\n" +
+                "completedPartitions=" + completedPartitions + "\n" +
+                "processedArtifacts=" + processedArtifacts + "\n" +
+                "updatedAt=" + System.currentTimeMillis() + "\n";
+
+        Files.write(leaseDirectory.resolve("progress-" + instanceId + ".properties"),
+                progress.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long countDonePartitions(){
+        long done = 0;
+        for(int i = 0; i < numberOfPartitions; i++){
+            if(Files.exists(doneFile(i)))
+                done++;
+        }
+        return done;
+    }
+
+    private Path leaseFile(int partition){
+        return leaseDirectory.resolve("partition-" + partition + ".lease");
+    }
+
+    private Path doneFile(int partition){
+        return leaseDirectory.resolve("partition-" + partition + ".done");
+    }
+}
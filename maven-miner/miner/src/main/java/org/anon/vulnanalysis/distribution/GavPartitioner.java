@@ -0,0 +1,28 @@
+package org.anon.vulnanalysis.distribution;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+
+/**
+ *  Deterministically maps artifacts to partitions. All versions of a library end up in the same partition, so each
+ *  instance processes whole library families. String hash codes are specified by the JLS, so all instances agree on
+ *  the partitioning regardless of JVM or host.
+ */
+public class GavPartitioner {
+
+    private GavPartitioner(){
+
+    }
+
+    public static int partitionOf(ArtifactIdentifier identifier, int numberOfPartitions){
+        int hash = 31 * identifier.GroupId.hashCode() + identifier.ArtifactId.hashCode();
+
+        // Spread bits (murmur3 finalizer), similar libraries have similar hash codes
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+
+        return Math.floorMod(hash, numberOfPartitions);
+    }
+}
@@ -0,0 +1,49 @@
+package org.anon.vulnanalysis.distribution;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ *  Fixed sharding without any coordination: instance i of n processes exactly partition i of n partitions.
+ */
+public class StaticShardCoordinator implements WorkCoordinator {
+
+    private final Logger log = LogManager.getLogger(StaticShardCoordinator.class);
+
+    private final int shardCount;
+    private final int shardIndex;
+    private boolean acquired;
+
+    public StaticShardCoordinator(int shardCount, int shardIndex){
+        if(shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount)
+            throw new IllegalArgumentException("Invalid shard " + shardIndex + " of " + shardCount);
+
+        this.shardCount = shardCount;
+        this.shardIndex = shardIndex;
+        this.acquired = false;
+    }
+
+    @Override
+    public int getNumberOfPartitions() {
+        return shardCount;
+    }
+
+    @Override
+    public int acquirePartition() {
+        if(acquired)
+            return -1;
+
+        acquired = true;
+        return shardIndex;
+    }
+
+    @Override
+    public void completePartition(int partition, int processedArtifacts) {
+        log.info("Finished shard " + partition + " of " + shardCount + " with " + processedArtifacts + " artifacts");
+    }
+
+    @Override
+    public void close() {
+
+    }
+}
@@ -0,0 +1,21 @@
+package org.anon.vulnanalysis.distribution;
+
+/**
+ *  Hands out partitions of the GAV space to miner instances. Partitions are identified by their index, an artifact
+ *  belongs to the partition computed by the GavPartitioner for the coordinator's number of partitions.
+ */
+public interface WorkCoordinator extends AutoCloseable {
+
+    int getNumberOfPartitions();
+
+    /**
+     * Returns the next partition this instance has to process, or -1 if there is no work left. May block while other
+     * instances hold the remaining partitions.
+     */
+    int acquirePartition();
+
+    void completePartition(int partition, int processedArtifacts);
+
+    @Override
+    void close();
+}
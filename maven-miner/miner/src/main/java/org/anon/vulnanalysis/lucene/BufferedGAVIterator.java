@@ -1,32 +1,55 @@
 package org.anon.vulnanalysis.lucene;
 
 import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.model.IdentifierDictionary;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
 public class BufferedGAVIterator implements Iterator<ArtifactIdentifier> {
 
+    /**
+     * Orders artifacts by library, so that all versions of a library and all libraries of a group are adjacent.
+     */
+    public static final Comparator<ArtifactIdentifier> LibraryOrder = Comparator
+            .comparing((ArtifactIdentifier ident) -> ident.GroupId)
+            .thenComparing(ident -> ident.ArtifactId)
+            .thenComparing(ident -> ident.Version);
+
     private Set<ArtifactIdentifier> artifacts;
     private IndexIterator indexReadIterator;
     private Iterator<ArtifactIdentifier> listIterator;
 
     private boolean initialized;
-    private String splitPattern;
+    private int totalArtifactCount;
+    private final boolean groupByLibrary;
+    private final Pattern splitPattern;
 
     private Logger log = LogManager.getLogger(BufferedGAVIterator.class);
 
     public BufferedGAVIterator(String pathToIndex) throws IOException {
+        this(pathToIndex, false);
+    }
+
+    /**
+     * If groupByLibrary is set, artifacts are handed out in LibraryOrder instead of (effectively random) hash order.
+     * Consecutive artifacts then share their parents and BOMs, which keeps downstream caches warm.
+     */
+    public BufferedGAVIterator(String pathToIndex, boolean groupByLibrary) throws IOException {
+        this.groupByLibrary = groupByLibrary;
         indexReadIterator = new IndexIterator(pathToIndex);
         artifacts = new HashSet<>();
         initialized = false;
         listIterator = null;
-        splitPattern = Pattern.quote("|");
+        splitPattern = Pattern.compile(Pattern.quote("|"));
     }
 
     public void initializeIndex() throws IOException {
@@ -38,7 +61,8 @@ public class BufferedGAVIterator implements Iterator<ArtifactIdentifier> {
             if(value == null)
                 continue;
 
-            String[] parts = value.split(splitPattern);
+            // Only GAV is needed, the remaining index fields stay unsplit
+            String[] parts = splitPattern.split(value, 4);
             ArtifactIdentifier artifact = new ArtifactIdentifier(parts[0], parts[1], parts[2]);
 
             artifacts.add(artifact);
@@ -51,7 +75,21 @@ public class BufferedGAVIterator implements Iterator<ArtifactIdentifier> {
             current++;
         }
         indexReadIterator.closeReader();
-        listIterator = artifacts.iterator();
+        log.debug("Index contains " + artifacts.size() + " artifacts of " + IdentifierDictionary.getNumberOfGroupIds() +
+                " distinct groupIds and " + IdentifierDictionary.getNumberOfArtifactIds() + " distinct artifactIds");
+        totalArtifactCount = artifacts.size();
+
+        if(groupByLibrary){
+            log.info("Ordering artifacts by library...");
+            List<ArtifactIdentifier> orderedArtifacts = new ArrayList<>(artifacts);
+            // The set is only needed for deduplication, release it before sorting
+            artifacts = null;
+            orderedArtifacts.sort(LibraryOrder);
+            listIterator = orderedArtifacts.iterator();
+        } else {
+            listIterator = artifacts.iterator();
+        }
+
         initialized = true;
     }
 
@@ -59,7 +97,7 @@ public class BufferedGAVIterator implements Iterator<ArtifactIdentifier> {
         if(!initialized)
             return -1;
         else
-            return artifacts.size();
+            return totalArtifactCount;
     }
 
     @Override
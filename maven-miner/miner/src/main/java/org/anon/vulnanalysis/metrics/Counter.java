@@ -0,0 +1,44 @@
+package org.anon.vulnanalysis.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  A monotonically increasing count. Increments do not contend between threads.
+ */
+public class Counter extends Metric {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name, String help, String labelName, String labelValue){
+        super(name, help, labelName, labelValue);
+    }
+
+    public void increment(){
+        count.increment();
+    }
+
+    public void add(long amount){
+        count.add(amount);
+    }
+
+    public long getCount(){
+        return count.sum();
+    }
+
+    @Override
+    String getType(){
+        return "counter";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out){
+        out.append(Name).append(labels(null, null)).append(' ').append(getCount()).append('\n');
+    }
+
+    @Override
+    Map<String, Number> getAttributes(){
+        return Collections.singletonMap("Count", getCount());
+    }
+}
@@ -0,0 +1,39 @@
+package org.anon.vulnanalysis.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ *  Reads its value from existing statistics (e.g. cache hit counts) whenever it is exposed.
+ */
+class FunctionMetric extends Metric {
+
+    private final String type;
+    private final Supplier<? extends Number> value;
+
+    FunctionMetric(String name, String help, String type, Supplier<? extends Number> value){
+        super(name, help, null, null);
+        this.type = type;
+        this.value = value;
+    }
+
+    Number getValue(){
+        return value.get();
+    }
+
+    @Override
+    String getType(){
+        return type;
+    }
+
+    @Override
+    void writeSamples(StringBuilder out){
+        out.append(Name).append(' ').append(value.get()).append('\n');
+    }
+
+    @Override
+    Map<String, Number> getAttributes(){
+        return Collections.singletonMap("Value", value.get());
+    }
+}
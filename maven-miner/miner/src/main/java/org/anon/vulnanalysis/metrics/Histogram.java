@@ -0,0 +1,135 @@
+package org.anon.vulnanalysis.metrics;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  Latency distribution with fixed buckets from half a millisecond to five minutes. Recording a value is a short
+ *  bucket search and two uncontended additions, quantiles are approximated by the upper bound of their bucket.
+ */
+public class Histogram extends Metric {
+
+    // Upper bucket bounds in seconds, the last bucket is unbounded
+    private static final double[] BucketBounds =
+            { 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300 };
+
+    private static final long[] BucketBoundNanos = new long[BucketBounds.length];
+    private static final String[] BucketLabels = new String[BucketBounds.length + 1];
+
+    static {
+        for(int i = 0; i < BucketBounds.length; i++){
+            BucketBoundNanos[i] = (long) (BucketBounds[i] * 1e9);
+            BucketLabels[i] = BigDecimal.valueOf(BucketBounds[i]).toPlainString();
+        }
+        BucketLabels[BucketBounds.length] = "+Inf";
+    }
+
+    private final LongAdder[] buckets;
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    Histogram(String name, String help, String labelName, String labelValue){
+        super(name, help, labelName, labelValue);
+
+        this.buckets = new LongAdder[BucketBounds.length + 1];
+        for(int i = 0; i < buckets.length; i++){
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the time elapsed since the given System.nanoTime() value.
+     */
+    public void observeSince(long startNanos){
+        observeNanos(System.nanoTime() - startNanos);
+    }
+
+    public void observeNanos(long nanos){
+        int bucket = 0;
+        while(bucket < BucketBoundNanos.length && nanos > BucketBoundNanos[bucket]){
+            bucket++;
+        }
+
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount(){
+        long count = 0;
+        for(LongAdder bucket : buckets){
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the upper bound (in milliseconds) of the bucket that contains the given quantile, or the maximum for
+     * the unbounded bucket.
+     */
+    public double getQuantileMillis(double quantile){
+        long[] counts = new long[buckets.length];
+        long total = 0;
+
+        for(int i = 0; i < buckets.length; i++){
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+
+        if(total == 0)
+            return 0;
+
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+
+        for(int i = 0; i < BucketBounds.length; i++){
+            seen += counts[i];
+            if(seen >= rank)
+                return BucketBounds[i] * 1000;
+        }
+
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Returns the sum of all recorded durations in nanoseconds.
+     */
+    public long getSumNanos(){
+        return sumNanos.sum();
+    }
+
+    @Override
+    String getType(){
+        return "histogram";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out){
+        long cumulative = 0;
+
+        for(int i = 0; i < buckets.length; i++){
+            cumulative += buckets[i].sum();
+            out.append(Name).append("_bucket").append(labels("le", BucketLabels[i])).append(' ').append(cumulative).append('\n');
+        }
+
+        out.append(Name).append("_sum").append(labels(null, null)).append(' ').append(sumNanos.sum() / 1e9).append('\n');
+        out.append(Name).append("_count").append(labels(null, null)).append(' ').append(cumulative).append('\n');
+    }
+
+    @Override
+    Map<String, Number> getAttributes(){
+        long count = getCount();
+
+        Map<String, Number> attributes = new LinkedHashMap<>();
+        attributes.put("Count", count);
+        attributes.put("MeanMillis", count == 0 ? 0.0 : sumNanos.sum() / 1e6 / count);
+        attributes.put("P50Millis", getQuantileMillis(0.5));
+        attributes.put("P95Millis", getQuantileMillis(0.95));
+        attributes.put("P99Millis", getQuantileMillis(0.99));
+        attributes.put("MaxMillis", maxNanos.get() / 1e6);
+        return attributes;
+    }
+}
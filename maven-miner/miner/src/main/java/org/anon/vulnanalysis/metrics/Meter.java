@@ -0,0 +1,104 @@
+package org.anon.vulnanalysis.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  Counts events and their rate over the last minute. Events are counted in one slot per second, slots are reused
+ *  once they are older than a minute.
+ */
+public class Meter extends Metric {
+
+    private static final int WindowSeconds = 60;
+
+    private final LongAdder count = new LongAdder();
+
+    private final AtomicLongArray slotCounts = new AtomicLongArray(WindowSeconds);
+    private final AtomicLongArray slotSeconds = new AtomicLongArray(WindowSeconds);
+
+    private final long startMillis = System.currentTimeMillis();
+
+    Meter(String name, String help){
+        super(name, help, null, null);
+    }
+
+    public void mark(){
+        mark(1);
+    }
+
+    public void mark(long events){
+        count.add(events);
+
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % WindowSeconds);
+        long slotSecond = slotSeconds.get(slot);
+
+        // The first thread of a new second resets the slot, concurrent marks may get lost at that moment
+        if(slotSecond != second && slotSeconds.compareAndSet(slot, slotSecond, second))
+            slotCounts.set(slot, 0);
+
+        slotCounts.addAndGet(slot, events);
+    }
+
+    public long getCount(){
+        return count.sum();
+    }
+
+    /**
+     * Returns the average number of events per second over the last (completed) minute.
+     */
+    public double getOneMinuteRate(){
+        long now = System.currentTimeMillis() / 1000;
+        long events = 0;
+
+        for(int slot = 0; slot < WindowSeconds; slot++){
+            long age = now - slotSeconds.get(slot);
+            if(age > 0 && age <= WindowSeconds)
+                events += slotCounts.get(slot);
+        }
+
+        long elapsedSeconds = Math.max(1, Math.min(WindowSeconds, (System.currentTimeMillis() - startMillis) / 1000));
+        return (double) events / elapsedSeconds;
+    }
+
+    public double getMeanRate(){
+        long elapsedMillis = Math.max(1, System.currentTimeMillis() - startMillis);
+        return getCount() * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    String getType(){
+        return "counter";
+    }
+
+    @Override
+    String getExposedName(){
+        return Name + "_total";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out){
+        out.append(getExposedName()).append(' ').append(getCount()).append('\n');
+    }
+
+    /**
+     * The rate is exposed as separate gauge, although Prometheus can compute rates from the counter itself.
+     */
+    void writeRate(StringBuilder out){
+        String rateName = Name + "_per_second";
+        out.append("# HELP ").append(rateName).append(' ').append(Help).append(" (per second, last minute)\n");
+        out.append("# TYPE ").append(rateName).append(" gauge\n");
+        out.append(rateName).append(' ').append(getOneMinuteRate()).append('\n');
+    }
+
+    @Override
+    Map<String, Number> getAttributes(){
+        Map<String, Number> attributes = new LinkedHashMap<>();
+        attributes.put("Count", getCount());
+        attributes.put("OneMinuteRate", getOneMinuteRate());
+        attributes.put("MeanRate", getMeanRate());
+        return attributes;
+    }
+}
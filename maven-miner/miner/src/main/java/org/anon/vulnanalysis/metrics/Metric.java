@@ -0,0 +1,64 @@
+package org.anon.vulnanalysis.metrics;
+
+import java.util.Map;
+
+/**
+ *  A single time series (or group of series, for histograms) of the MetricsRegistry.
+ */
+public abstract class Metric {
+
+    final String Name;
+    final String Help;
+
+    // Null for metrics without label
+    final String LabelName;
+    final String LabelValue;
+
+    Metric(String name, String help, String labelName, String labelValue){
+        this.Name = name;
+        this.Help = help;
+        this.LabelName = labelName;
+        this.LabelValue = labelValue;
+    }
+
+    /**
+     * The name of this metric in the Prometheus exposition format.
+     */
+    String getExposedName(){
+        return Name;
+    }
+
+    /**
+     * The Prometheus metric type, used in the TYPE line of the exposition format.
+     */
+    abstract String getType();
+
+    /**
+     * Appends all samples of this metric in the Prometheus text exposition format.
+     */
+    abstract void writeSamples(StringBuilder out);
+
+    /**
+     * Returns the current values of this metric by attribute name, as exposed via JMX.
+     */
+    abstract Map<String, Number> getAttributes();
+
+    String labels(String additionalName, String additionalValue){
+        if(LabelName == null && additionalName == null)
+            return "";
+
+        StringBuilder labels = new StringBuilder("{");
+        if(LabelName != null)
+            labels.append(LabelName).append("=\"").append(escape(LabelValue)).append('"');
+        if(additionalName != null){
+            if(LabelName != null)
+                labels.append(',');
+            labels.append(additionalName).append("=\"").append(escape(additionalValue)).append('"');
+        }
+        return labels.append('}').toString();
+    }
+
+    private static String escape(String value){
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
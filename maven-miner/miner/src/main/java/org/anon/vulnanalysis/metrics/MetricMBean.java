@@ -0,0 +1,73 @@
+package org.anon.vulnanalysis.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
+import java.util.Map;
+
+/**
+ *  Exposes the attributes of a single metric as read-only JMX attributes.
+ */
+class MetricMBean implements DynamicMBean {
+
+    private final Metric metric;
+
+    MetricMBean(Metric metric){
+        this.metric = metric;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Number value = metric.getAttributes().get(attribute);
+
+        if(value == null)
+            throw new AttributeNotFoundException(attribute);
+
+        return value;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metric attributes are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes){
+        Map<String, Number> values = metric.getAttributes();
+        AttributeList list = new AttributeList();
+
+        for(String attribute : attributes){
+            if(values.containsKey(attribute))
+                list.add(new Attribute(attribute, values.get(attribute)));
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes){
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new UnsupportedOperationException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo(){
+        Map<String, Number> values = metric.getAttributes();
+        MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+
+        int i = 0;
+        for(Map.Entry<String, Number> value : values.entrySet()){
+            attributes[i++] = new MBeanAttributeInfo(value.getKey(), value.getValue().getClass().getName(),
+                    value.getKey(), true, false, false);
+        }
+
+        return new MBeanInfo(Metric.class.getName(), metric.Help, attributes, null, null, null);
+    }
+}
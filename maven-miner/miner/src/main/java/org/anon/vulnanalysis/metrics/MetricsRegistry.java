@@ -0,0 +1,319 @@
+package org.anon.vulnanalysis.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ *  Holds all metrics of the process. Metrics are always recorded, they can additionally be exposed via JMX and a local
+ *  HTTP endpoint in the Prometheus text format.
+ *
+ *  Components obtain their metrics once (usually in static fields) and record values on the hot path without any
+ *  registry lookup. Asking for the same name and label twice returns the same metric.
+ */
+public class MetricsRegistry {
+
+    private static final String JmxDomain = "org.anon.vulnanalysis";
+    private static final String MetricsPath = "/metrics";
+
+    private static final MetricsRegistry theInstance = new MetricsRegistry();
+
+    private final Logger log = LogManager.getLogger(MetricsRegistry.class);
+
+    // Sorted, so that all series of a metric are exposed together
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    private volatile boolean jmxEnabled = false;
+
+    private volatile int reportIntervalSeconds = 60;
+
+    private HttpServer httpServer = null;
+
+    private MetricsRegistry(){
+    }
+
+    public static MetricsRegistry getInstance(){
+        return theInstance;
+    }
+
+    /**
+     * Exposes the metrics as configured.
+     */
+    public void configure(MinerConfiguration config){
+        this.reportIntervalSeconds = config.ProgressReportIntervalSeconds;
+
+        if(config.MetricsJmxEnabled)
+            enableJmx();
+
+        if(config.MetricsHttpPort > 0){
+            try {
+                startHttpEndpoint(config.MetricsHttpPort);
+            } catch(IOException iox){
+                log.error("Failed to start metrics endpoint on port " + config.MetricsHttpPort, iox);
+            }
+        }
+    }
+
+    public Counter counter(String name, String help){
+        return counter(name, help, null, null);
+    }
+
+    public Counter counter(String name, String help, String labelName, String labelValue){
+        return register(new Counter(name, help, labelName, labelValue), Counter.class);
+    }
+
+    public Histogram histogram(String name, String help, String labelName, String labelValue){
+        return register(new Histogram(name, help, labelName, labelValue), Histogram.class);
+    }
+
+    /**
+     * Returns the histogram of the given processing stage, all stages share one metric name.
+     */
+    public Histogram stageDuration(String stage){
+        return histogram("miner_stage_duration_seconds", "Duration of processing stages", "stage", stage);
+    }
+
+    /**
+     * Returns the counter of the given error class, all classes share one metric name.
+     */
+    public Counter errors(String errorClass){
+        return counter("miner_errors_total", "Errors by class", "class", errorClass);
+    }
+
+    public Meter meter(String name, String help){
+        return register(new Meter(name, help), Meter.class);
+    }
+
+    /**
+     * Exposes an existing monotonically increasing count, e.g. cache hits, as counter. Replaces a previously
+     * registered function with the same name.
+     */
+    public void counter(String name, String help, Supplier<? extends Number> value){
+        replace(new FunctionMetric(name, help, "counter", value));
+    }
+
+    /**
+     * Exposes an existing value, e.g. a cache size, as gauge. Replaces a previously registered function with the same
+     * name.
+     */
+    public void gauge(String name, String help, Supplier<? extends Number> value){
+        replace(new FunctionMetric(name, help, "gauge", value));
+    }
+
+    /**
+     * The interval in which stages log their progress, zero if progress is only logged when a stage finishes.
+     */
+    public int getReportIntervalSeconds(){
+        return reportIntervalSeconds;
+    }
+
+    /**
+     * Returns the current count of every counter, meter and histogram by series, e.g.
+     * "miner_errors_total{class=download}". Gauges are not included.
+     */
+    public Map<String, Long> getCounts(){
+        Map<String, Long> counts = new TreeMap<>();
+
+        for(Map.Entry<String, Metric> entry : metrics.entrySet()){
+            Metric metric = entry.getValue();
+
+            if(metric instanceof Counter)
+                counts.put(entry.getKey(), ((Counter) metric).getCount());
+            else if(metric instanceof Meter)
+                counts.put(entry.getKey(), ((Meter) metric).getCount());
+            else if(metric instanceof Histogram)
+                counts.put(entry.getKey(), ((Histogram) metric).getCount());
+            else if(metric.getType().equals("counter"))
+                counts.put(entry.getKey(), ((FunctionMetric) metric).getValue().longValue());
+        }
+
+        return counts;
+    }
+
+    /**
+     * Returns the total observed time of every histogram by series, in nanoseconds.
+     */
+    public Map<String, Long> getDurations(){
+        Map<String, Long> durations = new TreeMap<>();
+
+        for(Map.Entry<String, Metric> entry : metrics.entrySet()){
+            if(entry.getValue() instanceof Histogram)
+                durations.put(entry.getKey(), ((Histogram) entry.getValue()).getSumNanos());
+        }
+
+        return durations;
+    }
+
+    public List<Meter> getMeters(){
+        List<Meter> meters = new ArrayList<>();
+
+        for(Metric metric : metrics.values()){
+            if(metric instanceof Meter)
+                meters.add((Meter) metric);
+        }
+
+        return meters;
+    }
+
+    private static String keyOf(Metric metric){
+        return metric.LabelName == null ? metric.Name : metric.Name + "{" + metric.LabelName + "=" + metric.LabelValue + "}";
+    }
+
+    private <T extends Metric> T register(T metric, Class<T> type){
+        Metric registered = metrics.computeIfAbsent(keyOf(metric), k -> {
+            registerMBean(metric);
+            return metric;
+        });
+
+        if(!type.isInstance(registered))
+            throw new IllegalArgumentException("Metric " + keyOf(metric) + " is already registered as " +
+                    registered.getType());
+
+        return type.cast(registered);
+    }
+
+    private void replace(Metric metric){
+        Metric previous = metrics.put(keyOf(metric), metric);
+
+        if(previous != null)
+            unregisterMBean(previous);
+        registerMBean(metric);
+    }
+
+    /**
+     * Returns all metrics in the Prometheus text exposition format (version 0.0.4).
+     */
+    public String toPrometheusText(){
+        StringBuilder out = new StringBuilder();
+        List<Meter> meters = new ArrayList<>();
+        String lastName = null;
+
+        for(Metric metric : metrics.values()){
+            if(!metric.Name.equals(lastName)){
+                out.append("# HELP ").append(metric.getExposedName()).append(' ').append(metric.Help).append('\n');
+                out.append("# TYPE ").append(metric.getExposedName()).append(' ').append(metric.getType()).append('\n');
+                lastName = metric.Name;
+            }
+
+            metric.writeSamples(out);
+
+            if(metric instanceof Meter)
+                meters.add((Meter) metric);
+        }
+
+        for(Meter meter : meters){
+            meter.writeRate(out);
+        }
+
+        return out.toString();
+    }
+
+    public synchronized void enableJmx(){
+        if(jmxEnabled)
+            return;
+
+        jmxEnabled = true;
+        for(Metric metric : metrics.values()){
+            registerMBean(metric);
+        }
+    }
+
+    private void registerMBean(Metric metric){
+        if(!jmxEnabled)
+            return;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = objectNameOf(metric);
+
+            if(!server.isRegistered(name))
+                server.registerMBean(new MetricMBean(metric), name);
+        } catch(Exception x){
+            log.warn("Failed to register metric " + keyOf(metric) + " with JMX", x);
+        }
+    }
+
+    private void unregisterMBean(Metric metric){
+        if(!jmxEnabled)
+            return;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = objectNameOf(metric);
+
+            if(server.isRegistered(name))
+                server.unregisterMBean(name);
+        } catch(Exception x){
+            log.warn("Failed to unregister metric " + keyOf(metric) + " from JMX", x);
+        }
+    }
+
+    private static ObjectName objectNameOf(Metric metric) throws Exception {
+        String name = JmxDomain + ":type=Metrics,name=" + quoteIfNeeded(metric.Name);
+
+        if(metric.LabelName != null)
+            name += "," + metric.LabelName + "=" + quoteIfNeeded(metric.LabelValue);
+
+        return new ObjectName(name);
+    }
+
+    private static String quoteIfNeeded(String value){
+        return value.matches("[A-Za-z0-9_.-]+") ? value : ObjectName.quote(value);
+    }
+
+    /**
+     * Serves the metrics on the loopback interface, at /metrics on the given port.
+     */
+    public synchronized void startHttpEndpoint(int port) throws IOException {
+        if(httpServer != null)
+            return;
+
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext(MetricsPath, exchange -> {
+            byte[] body = toPrometheusText().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try(OutputStream response = exchange.getResponseBody()){
+                response.write(body);
+            }
+        });
+        httpServer.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        httpServer.start();
+
+        log.info("Serving metrics at http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" +
+                httpServer.getAddress().getPort() + MetricsPath);
+    }
+
+    /**
+     * Stops the HTTP endpoint, its dispatcher thread would otherwise keep the process alive.
+     */
+    public synchronized void shutdown(){
+        if(httpServer != null){
+            httpServer.stop(0);
+            httpServer = null;
+        }
+    }
+}
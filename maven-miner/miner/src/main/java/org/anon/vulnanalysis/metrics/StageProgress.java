@@ -0,0 +1,129 @@
+package org.anon.vulnanalysis.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Reports the progress of a processing stage based on the metrics all components record into the MetricsRegistry.
+ *  While the stage runs, the rates of all meters and the number of errors are logged periodically. When the stage is
+ *  closed, every count that changed during the stage is logged, so all stages end with a summary in the same format.
+ *
+ *  Counts are reported relative to the start of the stage, stages that run after each other in one process (e.g. in
+ *  mode ALL) do not include the counts of previous stages.
+ */
+public class StageProgress implements AutoCloseable {
+
+    private static final String ErrorsPrefix = "miner_errors_total{";
+
+    private final Logger log = LogManager.getLogger(StageProgress.class);
+
+    private final String stage;
+    private final MetricsRegistry registry;
+    private final Map<String, Long> baseline;
+    private final Map<String, Long> durationBaseline;
+    private final long startMillis;
+
+    // Null if progress is not logged periodically
+    private final ScheduledExecutorService reporter;
+
+    private StageProgress(String stage, MetricsRegistry registry){
+        this.stage = stage;
+        this.registry = registry;
+        this.baseline = registry.getCounts();
+        this.durationBaseline = registry.getDurations();
+        this.startMillis = System.currentTimeMillis();
+
+        int intervalSeconds = registry.getReportIntervalSeconds();
+
+        if(intervalSeconds > 0){
+            this.reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "progress-" + stage);
+                t.setDaemon(true);
+                return t;
+            });
+            this.reporter.scheduleAtFixedRate(this::logProgress, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            this.reporter = null;
+        }
+    }
+
+    /**
+     * Starts reporting the progress of the given stage until the returned instance is closed.
+     */
+    public static StageProgress start(String stage){
+        return new StageProgress(stage, MetricsRegistry.getInstance());
+    }
+
+    private void logProgress(){
+        try {
+            Map<String, Long> counts = registry.getCounts();
+            StringBuilder line = new StringBuilder("Progress of " + stage + " after " + getElapsedSeconds() + "s:");
+
+            for(Meter meter : registry.getMeters()){
+                long processed = delta(counts, meter.Name);
+
+                if(processed > 0){
+                    line.append(' ').append(meter.Name).append('=').append(processed)
+                            .append(" (").append(String.format("%.1f", meter.getOneMinuteRate())).append("/s)");
+                }
+            }
+
+            long errors = 0;
+            for(String key : counts.keySet()){
+                if(key.startsWith(ErrorsPrefix))
+                    errors += delta(counts, key);
+            }
+
+            log.info(line.append(" errors=").append(errors));
+        } catch(Exception x){
+            // Must not cancel subsequent reports
+            log.warn("Failed to report progress of " + stage, x);
+        }
+    }
+
+    private long delta(Map<String, Long> counts, String key){
+        return counts.getOrDefault(key, 0L) - baseline.getOrDefault(key, 0L);
+    }
+
+    private long getElapsedSeconds(){
+        return (System.currentTimeMillis() - startMillis) / 1000;
+    }
+
+    /**
+     * Stops the periodic reports and logs the summary of the stage.
+     */
+    @Override
+    public void close(){
+        if(reporter != null)
+            reporter.shutdownNow();
+
+        long elapsedMillis = Math.max(1, System.currentTimeMillis() - startMillis);
+        Map<String, Long> counts = registry.getCounts();
+        Map<String, Long> durations = registry.getDurations();
+
+        log.info("Summary of " + stage + " (" + elapsedMillis / 1000 + "s):");
+
+        for(String key : counts.keySet()){
+            long change = delta(counts, key);
+
+            if(change == 0)
+                continue;
+
+            String summary = "  " + key + ": " + change + " (" +
+                    String.format("%.1f", change * 1000.0 / elapsedMillis) + "/s";
+
+            // Histograms measure stages, their mean duration tells where the time goes
+            if(durations.containsKey(key)){
+                long nanos = durations.get(key) - durationBaseline.getOrDefault(key, 0L);
+                summary += ", mean " + String.format("%.2f", nanos / 1e6 / change) + " ms";
+            }
+
+            log.info(summary + ")");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.anon.vulnanalysis.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+
+/**
+ *  Download and resolution of a single artifact, from the start of the download until the result is available.
+ */
+@Name("org.anon.vulnanalysis.ArtifactResolution")
+@Label("Artifact Resolution")
+@Category(FlightRecorderEvents.Category)
+@StackTrace(false)
+public class ArtifactResolutionEvent extends jdk.jfr.Event {
+
+    @Label("Coordinates")
+    String coordinates;
+
+    @Label("Outcome")
+    @Description("resolved, unchanged or failed")
+    String outcome;
+
+    @Label("Prefetched")
+    @Description("The POM file was downloaded in advance by the prefetcher")
+    boolean prefetched;
+
+    @Label("Dependencies")
+    int dependencies;
+
+    @Label("Resolver Errors")
+    int errors;
+
+    public ArtifactResolutionEvent(){
+        begin();
+    }
+
+    public void complete(ArtifactIdentifier identifier, String outcome, boolean prefetched, int dependencies, int errors){
+        if(!shouldCommit())
+            return;
+
+        this.coordinates = identifier.getCoordinates();
+        this.outcome = outcome;
+        this.prefetched = prefetched;
+        this.dependencies = dependencies;
+        this.errors = errors;
+        commit();
+    }
+}
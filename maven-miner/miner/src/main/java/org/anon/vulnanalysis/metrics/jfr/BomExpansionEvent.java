@@ -0,0 +1,36 @@
+package org.anon.vulnanalysis.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+
+/**
+ *  Expansion of import scope dependencies (BOMs) of an artifact in the recursive resolver.
+ */
+@Name("org.anon.vulnanalysis.BomExpansion")
+@Label("BOM Expansion")
+@Category(FlightRecorderEvents.Category)
+@StackTrace(false)
+public class BomExpansionEvent extends jdk.jfr.Event {
+
+    @Label("Coordinates")
+    String coordinates;
+
+    @Label("Imported BOMs")
+    int importedBoms;
+
+    public BomExpansionEvent(){
+        begin();
+    }
+
+    public void complete(ArtifactIdentifier identifier, int importedBoms){
+        if(!shouldCommit())
+            return;
+
+        this.coordinates = identifier.getCoordinates();
+        this.importedBoms = importedBoms;
+        commit();
+    }
+}
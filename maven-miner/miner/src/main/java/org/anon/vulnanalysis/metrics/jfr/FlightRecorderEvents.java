@@ -0,0 +1,35 @@
+package org.anon.vulnanalysis.metrics.jfr;
+
+/**
+ *  Tells whether JDK Flight Recorder events can be emitted. The miner targets Java 8, whose runtimes do not all ship
+ *  the jdk.jfr API, and the event classes of this package must not be loaded on those runtimes. Callers therefore only
+ *  create events if Available is true:
+ *
+ *  <pre>
+ *  PomFetchEvent event = FlightRecorderEvents.Available ? new PomFetchEvent() : null;
+ *  ...
+ *  if(event != null)
+ *      event.complete(identifier, false, bytes, status);
+ *  </pre>
+ *
+ *  Events are only committed while a recording with the event enabled is running, e.g. when the miner was started with
+ *  -XX:StartFlightRecording. Otherwise they do not record anything and are cheap to create.
+ */
+public final class FlightRecorderEvents {
+
+    public static final String Category = "Maven Miner";
+
+    public static final boolean Available = isFlightRecorderPresent();
+
+    private FlightRecorderEvents(){
+    }
+
+    private static boolean isFlightRecorderPresent(){
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch(ClassNotFoundException | LinkageError x){
+            return false;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.anon.vulnanalysis.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *  A write transaction of the artifact storage, including retries of the driver.
+ */
+@Name("org.anon.vulnanalysis.Neo4jTransaction")
+@Label("Neo4j Transaction")
+@Category(FlightRecorderEvents.Category)
+@StackTrace(false)
+public class Neo4jTransactionEvent extends jdk.jfr.Event {
+
+    @Label("Coordinates")
+    String coordinates;
+
+    @Label("Operation")
+    @Description("create, update or failure")
+    String operation;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    public Neo4jTransactionEvent(){
+        begin();
+    }
+
+    public void complete(String coordinates, String operation, boolean succeeded){
+        if(!shouldCommit())
+            return;
+
+        this.coordinates = coordinates;
+        this.operation = operation;
+        this.succeeded = succeeded;
+        commit();
+    }
+}
@@ -0,0 +1,36 @@
+package org.anon.vulnanalysis.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+
+/**
+ *  Loading the parent POM hierarchy of an artifact in the recursive resolver.
+ */
+@Name("org.anon.vulnanalysis.ParentChain")
+@Label("Parent Chain")
+@Category(FlightRecorderEvents.Category)
+@StackTrace(false)
+public class ParentChainEvent extends jdk.jfr.Event {
+
+    @Label("Coordinates")
+    String coordinates;
+
+    @Label("Depth")
+    int depth;
+
+    public ParentChainEvent(){
+        begin();
+    }
+
+    public void complete(ArtifactIdentifier identifier, int depth){
+        if(!shouldCommit())
+            return;
+
+        this.coordinates = identifier.getCoordinates();
+        this.depth = depth;
+        commit();
+    }
+}
@@ -0,0 +1,49 @@
+package org.anon.vulnanalysis.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+
+/**
+ *  Access to a POM file, either downloaded from the repository or served from one of the caches (prefetched POM
+ *  files, the model cache and the cache of missing POM files).
+ */
+@Name("org.anon.vulnanalysis.PomFetch")
+@Label("POM Fetch")
+@Category(FlightRecorderEvents.Category)
+@StackTrace(false)
+public class PomFetchEvent extends jdk.jfr.Event {
+
+    @Label("Coordinates")
+    String coordinates;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Status")
+    @Description("HTTP status code, 0 if the repository was not requested and -1 if the request failed")
+    int status;
+
+    public PomFetchEvent(){
+        begin();
+    }
+
+    public void complete(ArtifactIdentifier identifier, boolean cacheHit, long bytes, int status){
+        if(!shouldCommit())
+            return;
+
+        this.coordinates = identifier.getCoordinates();
+        this.cacheHit = cacheHit;
+        this.bytes = bytes;
+        this.status = status;
+        commit();
+    }
+}
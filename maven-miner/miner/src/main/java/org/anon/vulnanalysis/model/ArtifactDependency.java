@@ -4,11 +4,14 @@ import java.util.Objects;
 
 public class ArtifactDependency extends ArtifactIdentifier {
 
-    public String Scope;
+    public final String Scope;
+
+    private final int dependencyHash;
 
     public ArtifactDependency(String groupId, String artifactId, String version, String scope){
         super(groupId, artifactId, version);
-        this.Scope = scope;
+        this.Scope = IdentifierDictionary.internScope(scope);
+        this.dependencyHash = 31 * super.hashCode() + Objects.hashCode(Scope);
     }
 
     public static ArtifactDependency fromCompositeIdentifier(String compositeIdentifier){
@@ -46,6 +49,6 @@ public class ArtifactDependency extends ArtifactIdentifier {
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), Scope);
+        return dependencyHash;
     }
 }
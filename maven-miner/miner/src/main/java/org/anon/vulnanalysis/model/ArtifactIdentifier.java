@@ -6,20 +6,27 @@ import org.apache.logging.log4j.Logger;
 import java.net.URI;
 import java.util.Objects;
 
+/**
+ *  Immutable GAV identifier. GroupId and artifactId are canonicalized via the IdentifierDictionary, the hash code is
+ *  computed once on construction.
+ */
 public class ArtifactIdentifier {
 
-    public String GroupId;
+    private static final Logger log = LogManager.getLogger(ArtifactIdentifier.class);
 
-    public String ArtifactId;
+    public final String GroupId;
 
-    public String Version;
+    public final String ArtifactId;
 
-    private Logger log = LogManager.getLogger(ArtifactIdentifier.class);
+    public final String Version;
+
+    private final int hash;
 
     public ArtifactIdentifier(String g, String a, String v){
-        this.GroupId = g;
-        this.ArtifactId = a;
+        this.GroupId = IdentifierDictionary.internGroupId(g);
+        this.ArtifactId = IdentifierDictionary.internArtifactId(a);
         this.Version = v;
+        this.hash = computeHash(GroupId, ArtifactId, Version);
     }
 
     public String getCoordinates(){
@@ -45,13 +52,21 @@ public class ArtifactIdentifier {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ArtifactIdentifier that = (ArtifactIdentifier) o;
-        return GroupId.equals(that.GroupId) &&
-                ArtifactId.equals(that.ArtifactId) &&
+        return hash == that.hash &&
+                Objects.equals(GroupId, that.GroupId) &&
+                Objects.equals(ArtifactId, that.ArtifactId) &&
                 Objects.equals(Version, that.Version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(GroupId, ArtifactId, Version);
+        return hash;
+    }
+
+    static int computeHash(String first, String second, String third){
+        int result = Objects.hashCode(first);
+        result = 31 * result + Objects.hashCode(second);
+        result = 31 * result + Objects.hashCode(third);
+        return result;
     }
 }
@@ -0,0 +1,78 @@
+package org.anon.vulnanalysis.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *  Dictionary that maps equal identifier strings to one canonical instance. The same groupIds, artifactIds and scopes
+ *  occur millions of times across all artifacts and their dependencies, sharing one instance per distinct value keeps
+ *  the identifier model small. The dictionary only grows with the number of distinct values (ie. libraries).
+ */
+public class IdentifierDictionary {
+
+    public static final String ScopeCompile = "compile";
+    public static final String ScopeProvided = "provided";
+    public static final String ScopeRuntime = "runtime";
+    public static final String ScopeTest = "test";
+    public static final String ScopeSystem = "system";
+    public static final String ScopeImport = "import";
+
+    private static final IdentifierDictionary GroupIds = new IdentifierDictionary();
+    private static final IdentifierDictionary ArtifactIds = new IdentifierDictionary();
+    private static final IdentifierDictionary OtherScopes = new IdentifierDictionary();
+
+    private final ConcurrentHashMap<String, String> entries;
+
+    private IdentifierDictionary(){
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    public String intern(String value){
+        if(value == null)
+            return null;
+
+        String existing = this.entries.putIfAbsent(value, value);
+        return existing == null ? value : existing;
+    }
+
+    public int size(){
+        return this.entries.size();
+    }
+
+    public static String internGroupId(String groupId){
+        return GroupIds.intern(groupId);
+    }
+
+    public static String internArtifactId(String artifactId){
+        return ArtifactIds.intern(artifactId);
+    }
+
+    public static String internScope(String scope){
+        if(scope == null)
+            return null;
+
+        switch(scope){
+            case ScopeCompile:
+                return ScopeCompile;
+            case ScopeProvided:
+                return ScopeProvided;
+            case ScopeRuntime:
+                return ScopeRuntime;
+            case ScopeTest:
+                return ScopeTest;
+            case ScopeSystem:
+                return ScopeSystem;
+            case ScopeImport:
+                return ScopeImport;
+            default:
+                return OtherScopes.intern(scope);
+        }
+    }
+
+    public static int getNumberOfGroupIds(){
+        return GroupIds.size();
+    }
+
+    public static int getNumberOfArtifactIds(){
+        return ArtifactIds.size();
+    }
+}
@@ -1,11 +1,18 @@
 package org.anon.vulnanalysis.model;
 
+import org.anon.vulnanalysis.metrics.jfr.FlightRecorderEvents;
+import org.anon.vulnanalysis.metrics.jfr.PomFetchEvent;
 import org.anon.vulnanalysis.pom.PomFileDownloadResponse;
 import org.anon.vulnanalysis.pom.PomFileUtils;
+import org.anon.vulnanalysis.pom.PomFileValidator;
 
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLConnection;
@@ -14,7 +21,9 @@ import java.nio.charset.StandardCharsets;
 
 public class MavenCentralRepository {
 
-    private static final String RepoBasePath = "https://repo1.maven.org/maven2/";
+    public static final String DefaultRepoBasePath = "https://repo1.maven.org/maven2/";
+
+    private static volatile String repoBasePath = DefaultRepoBasePath;
 
     private static MavenCentralRepository theInstance = null;
 
@@ -31,10 +40,43 @@ public class MavenCentralRepository {
         return PomFileUtils.openPomFileInputStream(ident);
     }
 
+    public InputStream openPomFileInputStreamOrFail(ArtifactIdentifier ident) throws IOException {
+        if(!FlightRecorderEvents.Available)
+            return PomFileUtils.openPomFileInputStreamOrFail(ident);
+
+        PomFetchEvent event = new PomFetchEvent();
+
+        try {
+            return new FetchRecordingInputStream(PomFileUtils.openPomFileInputStreamOrFail(ident), ident, event);
+        } catch(FileNotFoundException fnfx){
+            event.complete(ident, false, 0, HttpURLConnection.HTTP_NOT_FOUND);
+            throw fnfx;
+        } catch(IOException iox){
+            event.complete(ident, false, 0, -1);
+            throw iox;
+        }
+    }
+
+    public URLConnection openConditionalPomFileConnection(ArtifactIdentifier ident, PomFileValidator validator){
+        return PomFileUtils.openConditionalPomFileConnection(ident, validator);
+    }
+
     public URLConnection openPomFileConnection(ArtifactIdentifier ident){
         return PomFileUtils.openPomFileConnection(ident);
     }
 
+    /**
+     * Changes the repository POM files are read from, e.g. to a mirror or a local directory in Maven repository
+     * layout (as file: URL).
+     */
+    public static void setRepoBasePath(String basePath){
+        repoBasePath = basePath.endsWith("/") ? basePath : basePath + "/";
+    }
+
+    public static String getRepoBasePath(){
+        return repoBasePath;
+    }
+
     public static MavenCentralRepository getInstance(){
         if(theInstance == null)
             theInstance = new MavenCentralRepository();
@@ -50,7 +92,7 @@ public class MavenCentralRepository {
 
     public static URI buildArtifactBaseURI(ArtifactIdentifier artifact)
             throws URISyntaxException, UnsupportedEncodingException {
-        return new URI(RepoBasePath)
+        return new URI(repoBasePath)
                 .resolve(encode(artifact.GroupId).replace(".", "/") + "/")
                 .resolve(encode(artifact.ArtifactId) + "/")
                 .resolve(encode(artifact.Version) + "/");
@@ -60,4 +102,54 @@ public class MavenCentralRepository {
         return URLEncoder.encode(path, StandardCharsets.UTF_8.toString());
     }
 
+    /**
+     * Counts the bytes read from a POM file and records the fetch once the stream is closed.
+     */
+    private static class FetchRecordingInputStream extends FilterInputStream {
+
+        private final ArtifactIdentifier identifier;
+        private final PomFetchEvent event;
+
+        private long bytesRead = 0;
+        private boolean closed = false;
+
+        FetchRecordingInputStream(InputStream in, ArtifactIdentifier identifier, PomFetchEvent event){
+            super(in);
+            this.identifier = identifier;
+            this.event = event;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if(b >= 0)
+                bytesRead++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if(read > 0)
+                bytesRead += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            bytesRead += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(!closed){
+                closed = true;
+                event.complete(identifier, false, bytesRead, HttpURLConnection.HTTP_OK);
+            }
+            super.close();
+        }
+    }
+
 }
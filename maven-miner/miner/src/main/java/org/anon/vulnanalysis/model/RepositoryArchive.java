@@ -0,0 +1,178 @@
+package org.anon.vulnanalysis.model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *  Responses of a Maven repository recorded by the RepositoryStandIn. An archive is a directory: the bodies of all
+ *  successful responses are stored in repository layout below "files", and every response (including 404s and other
+ *  failures) is appended to "responses.tsv" with its status, latency and cache validators. Bodies are stored in
+ *  repository layout so that an archive can also be used as a plain file repository.
+ *
+ *  Recording into an existing archive adds to it, files that are already recorded are not recorded again.
+ */
+public class RepositoryArchive implements AutoCloseable {
+
+    private static final String ResponsesFileName = "responses.tsv";
+    private static final String FilesDirectoryName = "files";
+
+    private final Logger log = LogManager.getLogger(RepositoryArchive.class);
+
+    private final Path directory;
+    private final Map<String, RecordedResponse> responses;
+
+    // Null if the archive is only replayed
+    private BufferedWriter responseWriter = null;
+
+    private RepositoryArchive(Path directory){
+        this.directory = directory;
+        this.responses = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Opens the archive in the given directory for replaying. Fails if the directory contains no archive.
+     */
+    public static RepositoryArchive open(Path directory) throws IOException {
+        RepositoryArchive archive = new RepositoryArchive(directory);
+
+        if(!Files.exists(directory.resolve(ResponsesFileName)))
+            throw new IOException("No repository archive found at " + directory);
+
+        archive.loadResponses();
+        return archive;
+    }
+
+    /**
+     * Opens the archive in the given directory for recording, creating it if necessary.
+     */
+    public static RepositoryArchive openForRecording(Path directory) throws IOException {
+        RepositoryArchive archive = new RepositoryArchive(directory);
+        Files.createDirectories(directory.resolve(FilesDirectoryName));
+
+        if(Files.exists(directory.resolve(ResponsesFileName)))
+            archive.loadResponses();
+
+        archive.responseWriter = Files.newBufferedWriter(directory.resolve(ResponsesFileName), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return archive;
+    }
+
+    private void loadResponses() throws IOException {
+        try(BufferedReader reader = Files.newBufferedReader(directory.resolve(ResponsesFileName), StandardCharsets.UTF_8)){
+            String line;
+            while((line = reader.readLine()) != null){
+                String[] parts = line.split("\t", -1);
+
+                if(parts.length != 5)
+                    continue;
+
+                try {
+                    responses.putIfAbsent(parts[0], new RecordedResponse(Integer.parseInt(parts[1]),
+                            Long.parseLong(parts[2]), Long.parseLong(parts[3]), parts[4].isEmpty() ? null : parts[4]));
+                } catch(NumberFormatException nfx){
+                    log.warn("Skipping invalid response in repository archive: " + line);
+                }
+            }
+        }
+
+        log.info("Loaded " + responses.size() + " recorded responses from " + directory);
+    }
+
+    /**
+     * Returns the recorded response for the given repository path, or null if it was not recorded.
+     */
+    public RecordedResponse get(String path){
+        return responses.get(path);
+    }
+
+    public boolean contains(String path){
+        return responses.containsKey(path);
+    }
+
+    public int size(){
+        return responses.size();
+    }
+
+    /**
+     * Reads the recorded body of the given repository path, only successful responses have a body.
+     */
+    public byte[] readBody(String path) throws IOException {
+        return Files.readAllBytes(resolveFile(path));
+    }
+
+    /**
+     * Adds a response to the archive. The body is only stored for successful responses, responses for paths that are
+     * already recorded are ignored.
+     */
+    public synchronized void record(String path, RecordedResponse response, byte[] body) throws IOException {
+        if(responseWriter == null)
+            throw new IllegalStateException("Repository archive is not open for recording");
+
+        if(responses.containsKey(path))
+            return;
+
+        if(response.isSuccessful()){
+            Path file = resolveFile(path);
+            Files.createDirectories(file.getParent());
+            Files.write(file, body);
+        }
+
+        responseWriter.write(path + "\t" + response.Status + "\t" + response.LatencyMillis + "\t" +
+                response.LastModified + "\t" + (response.ETag != null ? response.ETag : ""));
+        responseWriter.newLine();
+        // Recordings of aborted runs remain usable
+        responseWriter.flush();
+
+        responses.put(path, response);
+    }
+
+    private Path resolveFile(String path) throws IOException {
+        Path filesDirectory = directory.resolve(FilesDirectoryName);
+        Path file = filesDirectory.resolve(path.startsWith("/") ? path.substring(1) : path).normalize();
+
+        if(!file.startsWith(filesDirectory))
+            throw new IOException("Invalid repository path " + path);
+
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if(responseWriter != null){
+            responseWriter.close();
+            responseWriter = null;
+        }
+    }
+
+    /**
+     * Status, latency and cache validators of a recorded response.
+     */
+    public static class RecordedResponse {
+        public final int Status;
+        public final long LatencyMillis;
+        // Zero if the response had no Last-Modified header
+        public final long LastModified;
+        public final String ETag;
+
+        public RecordedResponse(int status, long latencyMillis, long lastModified, String eTag){
+            this.Status = status;
+            this.LatencyMillis = latencyMillis;
+            this.LastModified = lastModified;
+            this.ETag = eTag;
+        }
+
+        public boolean isSuccessful(){
+            return Status == 200;
+        }
+    }
+}
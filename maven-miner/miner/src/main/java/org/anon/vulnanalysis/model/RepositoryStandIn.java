@@ -0,0 +1,306 @@
+package org.anon.vulnanalysis.model;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.anon.vulnanalysis.metrics.Counter;
+import org.anon.vulnanalysis.metrics.MetricsRegistry;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ *  Local stand-in for the Maven repository, so that performance runs of different miner versions get identical
+ *  inputs. In record mode, every request is forwarded to the configured repository and the response (body, 404s and
+ *  other failures, latency and cache validators) is added to a RepositoryArchive. In replay mode, all responses are
+ *  served from the archive without any network access, optionally delayed by their recorded latency. Requests for
+ *  files that were not recorded are answered with 404 and counted as replay misses.
+ *
+ *  While the stand-in runs, the MavenCentralRepository (and thereby all POM downloads and the Aether backend) uses
+ *  it as the repository. The stand-in serves HTTP on the loopback interface.
+ */
+public class RepositoryStandIn {
+
+    public enum Mode {
+        LIVE, RECORD, REPLAY
+    }
+
+    private static final int UpstreamTimeoutMillis = 30000;
+
+    private static final RepositoryStandIn theInstance = new RepositoryStandIn();
+
+    private static final MetricsRegistry Metrics = MetricsRegistry.getInstance();
+    private static final Counter Recorded =
+            Metrics.counter("miner_repository_recorded_total", "Responses added to the repository archive");
+    private static final Counter Replayed =
+            Metrics.counter("miner_repository_replayed_total", "Responses served from the repository archive");
+    private static final Counter ReplayMisses =
+            Metrics.counter("miner_repository_replay_misses_total", "Requests for files missing in the repository archive");
+
+    private final Logger log = LogManager.getLogger(RepositoryStandIn.class);
+
+    private HttpServer httpServer = null;
+    private ExecutorService executor = null;
+    private RepositoryArchive archive = null;
+    // Restored on shutdown
+    private String previousBasePath = null;
+
+    private volatile Mode mode = Mode.LIVE;
+    private volatile String upstreamBasePath = MavenCentralRepository.DefaultRepoBasePath;
+    private volatile boolean replayLatency = false;
+
+    RepositoryStandIn(){
+    }
+
+    /**
+     * Sets the repository all POM files are read from, and starts the stand-in if a record or replay mode is configured.
+     */
+    public void configure(MinerConfiguration config) throws IOException {
+        MavenCentralRepository.setRepoBasePath(config.RepositoryUrl);
+
+        switch(config.RepositoryMode){
+            case RECORD:
+                startRecording(config.RepositoryUrl, RepositoryArchive.openForRecording(Paths.get(config.RepositoryArchivePath)));
+                break;
+            case REPLAY:
+                startReplay(RepositoryArchive.open(Paths.get(config.RepositoryArchivePath)), config.ReplayRecordedLatency);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Forwards all requests to the given repository and records the responses into the archive.
+     */
+    public synchronized void startRecording(String upstreamBasePath, RepositoryArchive archive) throws IOException {
+        this.upstreamBasePath = upstreamBasePath.endsWith("/") ? upstreamBasePath : upstreamBasePath + "/";
+        start(Mode.RECORD, archive);
+        log.info("Recording repository responses from " + this.upstreamBasePath);
+    }
+
+    /**
+     * Serves all requests from the archive, optionally delayed by the recorded latency.
+     */
+    public synchronized void startReplay(RepositoryArchive archive, boolean replayLatency) throws IOException {
+        this.replayLatency = replayLatency;
+        start(Mode.REPLAY, archive);
+        log.info("Replaying " + archive.size() + " recorded repository responses" +
+                (replayLatency ? " with their recorded latency" : ""));
+    }
+
+    private void start(Mode mode, RepositoryArchive archive) throws IOException {
+        if(httpServer != null)
+            throw new IllegalStateException("Repository stand-in is already running");
+
+        this.mode = mode;
+        this.archive = archive;
+
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        httpServer.createContext("/", this::handle);
+
+        // Requests are slow in record mode and delayed in replay mode, so they must not wait for each other
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "repository-stand-in");
+            t.setDaemon(true);
+            return t;
+        });
+        httpServer.setExecutor(executor);
+        httpServer.start();
+
+        previousBasePath = MavenCentralRepository.getRepoBasePath();
+        MavenCentralRepository.setRepoBasePath("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" +
+                httpServer.getAddress().getPort() + "/");
+    }
+
+    public Mode getMode(){
+        return mode;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getRawPath().substring(1);
+
+        try {
+            if(!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())){
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+                return;
+            }
+
+            if(mode == Mode.RECORD)
+                handleRecording(exchange, path);
+            else
+                handleReplay(exchange, path);
+        } catch(Exception x){
+            log.warn("Repository stand-in failed to serve " + path, x);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_GATEWAY, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleRecording(HttpExchange exchange, String path) throws IOException {
+        long start = System.currentTimeMillis();
+        int status;
+        long lastModified = 0;
+        String eTag = null;
+        byte[] body = null;
+
+        // Always the full response, the client's validators are checked against the recording
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(upstreamBasePath + path).openConnection();
+            connection.setConnectTimeout(UpstreamTimeoutMillis);
+            connection.setReadTimeout(UpstreamTimeoutMillis);
+
+            status = connection.getResponseCode();
+
+            if(status == HttpURLConnection.HTTP_OK){
+                lastModified = connection.getLastModified();
+                eTag = connection.getHeaderField("ETag");
+
+                try(InputStream in = connection.getInputStream()){
+                    body = readAll(in);
+                }
+            } else {
+                connection.disconnect();
+            }
+        } catch(IOException iox){
+            log.debug("Failed to fetch " + path + " from " + upstreamBasePath, iox);
+            status = HttpURLConnection.HTTP_BAD_GATEWAY;
+        }
+
+        RepositoryArchive.RecordedResponse response =
+                new RepositoryArchive.RecordedResponse(status, System.currentTimeMillis() - start, lastModified, eTag);
+
+        if(!archive.contains(path)){
+            archive.record(path, response, body);
+            Recorded.increment();
+        }
+
+        respond(exchange, response, body);
+    }
+
+    private void handleReplay(HttpExchange exchange, String path) throws IOException {
+        RepositoryArchive.RecordedResponse response = archive.get(path);
+
+        if(response == null){
+            ReplayMisses.increment();
+            log.debug("No recorded response for " + path);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, -1);
+            return;
+        }
+
+        Replayed.increment();
+
+        if(replayLatency && response.LatencyMillis > 0){
+            try {
+                Thread.sleep(response.LatencyMillis);
+            } catch(InterruptedException ix){
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        respond(exchange, response, response.isSuccessful() ? archive.readBody(path) : null);
+    }
+
+    private void respond(HttpExchange exchange, RepositoryArchive.RecordedResponse response, byte[] body) throws IOException {
+        if(!response.isSuccessful()){
+            exchange.sendResponseHeaders(response.Status, -1);
+            return;
+        }
+
+        if(response.LastModified > 0){
+            exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                    ZonedDateTime.ofInstant(Instant.ofEpochMilli(response.LastModified), ZoneOffset.UTC)));
+        }
+        if(response.ETag != null)
+            exchange.getResponseHeaders().set("ETag", response.ETag);
+
+        if(isNotModified(exchange, response)){
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+            return;
+        }
+
+        if("HEAD".equals(exchange.getRequestMethod())){
+            exchange.getResponseHeaders().set("Content-Length", Integer.toString(body.length));
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, -1);
+            return;
+        }
+
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+        try(OutputStream out = exchange.getResponseBody()){
+            out.write(body);
+        }
+    }
+
+    private static boolean isNotModified(HttpExchange exchange, RepositoryArchive.RecordedResponse response){
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if(ifNoneMatch != null)
+            return ifNoneMatch.equals(response.ETag);
+
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if(ifModifiedSince != null && response.LastModified > 0){
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                // HTTP dates have a resolution of seconds
+                return response.LastModified / 1000 <= since / 1000;
+            } catch(DateTimeParseException dtpx){
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while((read = in.read(buffer)) > 0){
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Stops the stand-in and closes its archive. POM files are read from the previous repository afterwards.
+     */
+    public synchronized void shutdown(){
+        if(httpServer == null)
+            return;
+
+        httpServer.stop(0);
+        executor.shutdownNow();
+        httpServer = null;
+        executor = null;
+
+        try {
+            archive.close();
+        } catch(IOException iox){
+            log.error("Failed to close repository archive", iox);
+        }
+        archive = null;
+
+        mode = Mode.LIVE;
+        MavenCentralRepository.setRepoBasePath(previousBasePath);
+    }
+
+    public static RepositoryStandIn getInstance(){
+        return theInstance;
+    }
+}
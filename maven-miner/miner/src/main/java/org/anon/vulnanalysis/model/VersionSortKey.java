@@ -0,0 +1,380 @@
+package org.anon.vulnanalysis.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *  Encodes Maven version strings into compact sort keys that compare byte-wise (unsigned, lexicographic) in the same
+ *  order as Maven's ComparableVersion (and thus DefaultArtifactVersion) would order the original strings. Versions
+ *  are parsed once into the same item structure Maven uses (numbers, qualifiers and '-' sub-lists, normalized), and
+ *  every item is written as a tag byte followed by its value. Tags are chosen so that comparing an item against the
+ *  end of a list yields the same result as Maven's comparison of an item against 'null', unless that contradicts
+ *  Maven's order of the items themselves.
+ *
+ *  Note that ComparableVersion is not transitive. Maven orders a qualifier that follows a '.' below every '-' sub-list,
+ *  but above the version it follows if the qualifier is above a release, e.g. "1.2.3.v20200101" < "1.2.3-SNAPSHOT" <
+ *  "1.2.3" < "1.2.3.v20200101". Zeros cause similar cycles, e.g. "1.0.alpha" < "1" < "1-1" < "1.0.alpha". Such cycles
+ *  occur in real libraries that mix '.' and '-' qualifiers, and no total order can reproduce them. The keys follow
+ *  Maven's order of item types (qualifiers < sub-lists < numbers), so within a cycle a '.' qualifier above a release
+ *  sorts below the version it follows (e.g. "3.2.6.SP1" < "3.2.6"), and a zero followed by a qualifier below a release
+ *  sorts below sub-lists above a release. All other pairs are ordered exactly like Maven orders them.
+ *
+ *  Keys are cached per raw version string, as the same version strings occur for many different libraries. Returned
+ *  key arrays are shared and must not be modified.
+ */
+public class VersionSortKey {
+
+    private static final int MaxCacheSize = 1000000;
+
+    private static final ConcurrentHashMap<String, byte[]> KeyCache = new ConcurrentHashMap<>();
+
+    private static final List<String> Qualifiers = Arrays.asList("alpha", "beta", "milestone", "rc", "snapshot", "", "sp");
+    private static final int ReleaseQualifierIndex = 5;
+
+    // Tag bytes, ordered the same way Maven orders the corresponding items against each other and against 'null'. Every
+    // list tag lies between all string tags and the number tags, where this contradicts the order against 'null'
+    // (TagEnd) the keys cannot agree with Maven (see above)
+    private static final byte TagStringBelowRelease = 0x10;
+    private static final byte TagNullStringBeforeLower = 0x18;
+    private static final byte TagNullStringBeforeHigher = 0x20;
+    private static final byte TagStringAboveRelease = 0x28;
+    private static final byte TagListBelowRelease = 0x30;
+    private static final byte TagZeroBeforeLower = 0x38;
+    private static final byte TagEnd = 0x40;
+    private static final byte TagListAboveRelease = 0x50;
+    private static final byte TagZeroBeforeHigher = 0x60;
+    private static final byte TagNumber = (byte) 0x80;
+
+    private static final char[] HexDigits = "0123456789abcdef".toCharArray();
+
+    private VersionSortKey(){
+
+    }
+
+    /**
+     * Returns the (cached) sort key for the given Maven version string.
+     */
+    public static byte[] encode(String version){
+        byte[] key = KeyCache.get(version);
+
+        if(key == null){
+            key = encodeUncached(version);
+
+            if(KeyCache.size() >= MaxCacheSize)
+                KeyCache.clear();
+
+            KeyCache.put(version, key);
+        }
+
+        return key;
+    }
+
+    /**
+     * Computes the sort key for the given Maven version string without consulting the cache.
+     */
+    public static byte[] encodeUncached(String version){
+        ListNode root = parse(version);
+        KeyWriter writer = new KeyWriter(version.length() * 2 + 8);
+        writeListItems(root, writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Compares two sort keys byte-wise, treating bytes as unsigned values.
+     */
+    public static int compare(byte[] first, byte[] second){
+        int length = Math.min(first.length, second.length);
+
+        for(int i = 0; i < length; i++){
+            int result = (first[i] & 0xFF) - (second[i] & 0xFF);
+            if(result != 0)
+                return result;
+        }
+
+        return first.length - second.length;
+    }
+
+    /**
+     * Converts a sort key to a hex string. Hex strings compare lexicographically in the same order as the keys, which
+     * makes them suitable for being stored (and indexed) as node properties.
+     */
+    public static String toSortableString(byte[] key){
+        char[] chars = new char[key.length * 2];
+
+        for(int i = 0; i < key.length; i++){
+            chars[2 * i] = HexDigits[(key[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HexDigits[key[i] & 0xF];
+        }
+
+        return new String(chars);
+    }
+
+    public static byte[] fromSortableString(String sortableString){
+        byte[] key = new byte[sortableString.length() / 2];
+
+        for(int i = 0; i < key.length; i++){
+            key[i] = (byte) Integer.parseInt(sortableString.substring(2 * i, 2 * i + 2), 16);
+        }
+
+        return key;
+    }
+
+    public static void clearCache(){
+        KeyCache.clear();
+    }
+
+    private static void writeListItems(ListNode list, KeyWriter writer){
+        for(int i = 0; i < list.Atoms.size(); i++){
+            Atom atom = list.Atoms.get(i);
+
+            if(atom.IsNumber){
+                if(atom.isNull()){
+                    writer.write(nullSignOfRemainder(list, i) < 0 ? TagZeroBeforeLower : TagZeroBeforeHigher);
+                } else {
+                    writer.write(TagNumber);
+                    writer.write((byte) ((atom.Value.length() >> 8) & 0xFF));
+                    writer.write((byte) (atom.Value.length() & 0xFF));
+                    for(int j = 0; j < atom.Value.length(); j++){
+                        writer.write((byte) Character.digit(atom.Value.charAt(j), 10));
+                    }
+                }
+            } else {
+                int qualifierIndex = Qualifiers.indexOf(atom.Value);
+
+                if(qualifierIndex == ReleaseQualifierIndex){
+                    writer.write(nullSignOfRemainder(list, i) < 0 ? TagNullStringBeforeLower : TagNullStringBeforeHigher);
+                } else if(qualifierIndex >= 0 && qualifierIndex < ReleaseQualifierIndex){
+                    writer.write(TagStringBelowRelease);
+                    writer.write((byte) qualifierIndex);
+                } else if(qualifierIndex > ReleaseQualifierIndex){
+                    writer.write(TagStringAboveRelease);
+                    writer.write((byte) qualifierIndex);
+                } else {
+                    // Unknown qualifiers are greater than all known ones and ordered lexically
+                    writer.write(TagStringAboveRelease);
+                    writer.write((byte) Qualifiers.size());
+                    writer.write(atom.Value.getBytes(StandardCharsets.UTF_8));
+                    writer.write((byte) 0);
+                }
+            }
+        }
+
+        if(list.SubList != null){
+            writer.write(nullSign(list.SubList) < 0 ? TagListBelowRelease : TagListAboveRelease);
+            writeListItems(list.SubList, writer);
+        }
+
+        writer.write(TagEnd);
+    }
+
+    /**
+     * The sign of comparing the given (non-empty) list against 'null', ie. against a version that ended before. Maven
+     * only compares the first item of the list, so e.g. "1-0.1" equals "1".
+     */
+    private static int nullSign(ListNode list){
+        if(list.Atoms.isEmpty())
+            return nullSign(list.SubList);
+
+        return list.Atoms.get(0).nullSign();
+    }
+
+    /**
+     * For null items (zeros, release qualifiers) the comparison against 'null' is decided by the next non-null item.
+     */
+    private static int nullSignOfRemainder(ListNode list, int startIndex){
+        for(int i = startIndex; i < list.Atoms.size(); i++){
+            int sign = list.Atoms.get(i).nullSign();
+            if(sign != 0)
+                return sign;
+        }
+
+        return list.SubList != null ? nullSign(list.SubList) : 0;
+    }
+
+    private static ListNode parse(String version){
+        version = version.toLowerCase(Locale.ENGLISH);
+
+        ListNode root = new ListNode();
+        ListNode list = root;
+        List<ListNode> stack = new ArrayList<>();
+        stack.add(list);
+
+        boolean isDigit = false;
+        int startIndex = 0;
+
+        for(int i = 0; i < version.length(); i++){
+            char c = version.charAt(i);
+
+            if(c == '.' || c == '-'){
+                if(i == startIndex){
+                    list.Atoms.add(Atom.Zero);
+                } else {
+                    list.Atoms.add(Atom.parse(isDigit, version.substring(startIndex, i), false));
+                }
+                startIndex = i + 1;
+
+                if(c == '-'){
+                    list = list.newSubList();
+                    stack.add(list);
+                }
+            } else if(Character.isDigit(c)){
+                if(!isDigit && i > startIndex){
+                    list.Atoms.add(Atom.parse(false, version.substring(startIndex, i), true));
+                    startIndex = i;
+                    list = list.newSubList();
+                    stack.add(list);
+                }
+                isDigit = true;
+            } else {
+                if(isDigit && i > startIndex){
+                    list.Atoms.add(Atom.parse(true, version.substring(startIndex, i), false));
+                    startIndex = i;
+                    list = list.newSubList();
+                    stack.add(list);
+                }
+                isDigit = false;
+            }
+        }
+
+        if(version.length() > startIndex){
+            list.Atoms.add(Atom.parse(isDigit, version.substring(startIndex), false));
+        }
+
+        // Normalize innermost lists first, just like Maven does
+        for(int i = stack.size() - 1; i >= 0; i--){
+            stack.get(i).normalize();
+        }
+
+        return root;
+    }
+
+    /**
+     *  A list of version items. Because of the way versions are parsed, a sub-list is always the last item of its
+     *  parent list, so a list consists of a number of atoms that may be followed by exactly one sub-list.
+     */
+    private static class ListNode {
+        final List<Atom> Atoms = new ArrayList<>();
+        ListNode SubList = null;
+
+        ListNode newSubList(){
+            this.SubList = new ListNode();
+            return this.SubList;
+        }
+
+        boolean isEmpty(){
+            return Atoms.isEmpty() && SubList == null;
+        }
+
+        void normalize(){
+            if(SubList != null && SubList.isEmpty())
+                SubList = null;
+
+            for(int i = Atoms.size() - 1; i >= 0; i--){
+                if(Atoms.get(i).isNull()){
+                    Atoms.remove(i);
+                } else {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static class Atom {
+        static final Atom Zero = new Atom(true, "0");
+
+        final boolean IsNumber;
+        final String Value;
+
+        private Atom(boolean isNumber, String value){
+            this.IsNumber = isNumber;
+            this.Value = value;
+        }
+
+        static Atom parse(boolean isDigit, String value, boolean followedByDigit){
+            if(isDigit){
+                int firstNonZero = 0;
+                while(firstNonZero < value.length() - 1 && value.charAt(firstNonZero) == '0'){
+                    firstNonZero++;
+                }
+                return new Atom(true, value.substring(firstNonZero));
+            }
+
+            if(followedByDigit && value.length() == 1){
+                switch(value.charAt(0)){
+                    case 'a':
+                        value = "alpha";
+                        break;
+                    case 'b':
+                        value = "beta";
+                        break;
+                    case 'm':
+                        value = "milestone";
+                        break;
+                }
+            }
+
+            switch(value){
+                case "ga":
+                case "final":
+                case "release":
+                    value = "";
+                    break;
+                case "cr":
+                    value = "rc";
+                    break;
+            }
+
+            return new Atom(false, value);
+        }
+
+        boolean isNull(){
+            return IsNumber ? Value.equals("0") : Value.isEmpty();
+        }
+
+        int nullSign(){
+            if(IsNumber)
+                return isNull() ? 0 : 1;
+
+            int qualifierIndex = Qualifiers.indexOf(Value);
+            if(qualifierIndex < 0)
+                return 1;
+
+            return Integer.compare(qualifierIndex, ReleaseQualifierIndex);
+        }
+    }
+
+    private static class KeyWriter {
+        private byte[] buffer;
+        private int size;
+
+        KeyWriter(int initialCapacity){
+            this.buffer = new byte[initialCapacity];
+            this.size = 0;
+        }
+
+        void write(byte b){
+            ensureCapacity(1);
+            buffer[size++] = b;
+        }
+
+        void write(byte[] bytes){
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toByteArray(){
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int additional){
+            if(size + additional > buffer.length){
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.anon.vulnanalysis.pom;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ *  Holds the content of a downloaded POM file, so that it can be read by any number of resolvers without downloading
+ *  it again. Buffers are pooled per thread and reused for subsequent artifacts, the content is therefore only valid
+ *  until the same thread acquires the buffer again.
+ */
+public class PomContentBuffer extends ByteArrayOutputStream {
+
+    private static final int InitialCapacity = 16 * 1024;
+
+    // Buffers that grew beyond this size for unusually large POM files are not kept
+    private static final int MaxPooledCapacity = 1024 * 1024;
+
+    private static final ThreadLocal<PomContentBuffer> Pool = ThreadLocal.withInitial(PomContentBuffer::new);
+
+    private static final char[] HexDigits = "0123456789abcdef".toCharArray();
+
+    private PomContentBuffer(){
+        super(InitialCapacity);
+    }
+
+    /**
+     * Returns the (empty) buffer of the current thread.
+     */
+    public static PomContentBuffer acquire(){
+        PomContentBuffer buffer = Pool.get();
+
+        if(buffer.buf.length > MaxPooledCapacity){
+            buffer = new PomContentBuffer();
+            Pool.set(buffer);
+        }
+
+        buffer.reset();
+        return buffer;
+    }
+
+    /**
+     * Reads the given stream until its end and closes it.
+     */
+    public PomContentBuffer readFully(InputStream stream) throws IOException {
+        try(InputStream in = stream){
+            int read;
+            ensureCapacity(count + 8192);
+            while((read = in.read(buf, count, buf.length - count)) > 0){
+                count += read;
+                ensureCapacity(count + 8192);
+            }
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int capacity){
+        if(capacity > buf.length){
+            byte[] grown = new byte[Math.max(capacity, buf.length * 2)];
+            System.arraycopy(buf, 0, grown, 0, count);
+            buf = grown;
+        }
+    }
+
+    /**
+     * Returns a new stream over the current content, without copying it.
+     */
+    public InputStream newInputStream(){
+        return new ContentStream(this);
+    }
+
+    /**
+     * Returns the buffer the given stream was created from, or reads the stream into a new (not pooled) buffer. The
+     * stream is consumed in both cases.
+     */
+    public static PomContentBuffer from(InputStream stream) throws IOException {
+        if(stream instanceof ContentStream)
+            return ((ContentStream) stream).owner;
+
+        return new PomContentBuffer().readFully(stream);
+    }
+
+    /**
+     * Returns the internal array, only the first size() bytes are content.
+     */
+    public byte[] getBuffer(){
+        return buf;
+    }
+
+    private static class ContentStream extends ByteArrayInputStream {
+        private final PomContentBuffer owner;
+
+        ContentStream(PomContentBuffer owner){
+            super(owner.buf, 0, owner.count);
+            this.owner = owner;
+        }
+    }
+
+    public String sha1Hex(){
+        return sha1Hex(buf, 0, count);
+    }
+
+    public static String sha1Hex(byte[] content, int offset, int length){
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(content, offset, length);
+
+            byte[] hash = digest.digest();
+            char[] hex = new char[hash.length * 2];
+            for(int i = 0; i < hash.length; i++){
+                hex[2 * i] = HexDigits[(hash[i] >> 4) & 0xF];
+                hex[2 * i + 1] = HexDigits[hash[i] & 0xF];
+            }
+            return new String(hex);
+        } catch(NoSuchAlgorithmException nsax){
+            // Every Java platform is required to support SHA-1
+            throw new IllegalStateException(nsax);
+        }
+    }
+}
@@ -5,25 +5,23 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 
-import org.anon.vulnanalysis.model.MavenCentralRepository;
-import org.anon.vulnanalysis.pom.dependencies.DependencyResolverProvider;
+import org.anon.vulnanalysis.pom.PomFileResolver.PrefetchedPomFile;
 import org.anon.vulnanalysis.pom.dependencies.ResolverResult;
 import org.anon.vulnanalysis.storage.ArtifactStorageAdapter;
 import org.anon.vulnanalysis.utils.MinerConfiguration;
 
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.net.URLConnection;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class PomFileBatchResolver extends Thread {
 
-    private static DependencyResolverProvider ResolverProvider = DependencyResolverProvider.getInstance();
-    private static MavenCentralRepository MavenRepo = MavenCentralRepository.getInstance();
-
     private List<ArtifactIdentifier> batch;
     private ArtifactStorageAdapter storageAdapter;
+    private PomFileResolver pomFileResolver;
     private Logger log = LogManager.getLogger(PomFileBatchResolver.class);
 
     private MinerConfiguration configuration;
@@ -31,7 +29,8 @@ public class PomFileBatchResolver extends Thread {
 
     public PomFileBatchResolver(List<ArtifactIdentifier> batch, MinerConfiguration config){
         this.batch = batch;
-        this.storageAdapter = new ArtifactStorageAdapter();
+        this.storageAdapter = ArtifactStorageAdapter.create(config);
+        this.pomFileResolver = new PomFileResolver(config);
         this.configuration = config;
     }
 
@@ -43,12 +42,30 @@ public class PomFileBatchResolver extends Thread {
 
     private void processBatch(){
 
+        // Ordering parents first needs all POM files of the batch, refresh runs only request changed ones
+        if(this.configuration.ResolveParentsFirst && !this.configuration.RefreshExistingArtifacts){
+            this.processBatchParentsFirst();
+            return;
+        }
+
         List<ResolverResult> resultBatch = new ArrayList<>();
         List<ArtifactIdentifier> failedIdentifiers = new ArrayList<>();
+        PomPrefetcher prefetcher = PomPrefetcher.getInstance();
+
+        if(prefetcher != null){
+            for(int i = 0; i < Math.min(PomPrefetcher.Lookahead, this.batch.size()); i++){
+                prefetcher.prefetch(this.batch.get(i));
+            }
+        }
 
         while(!this.batch.isEmpty()){
             ArtifactIdentifier current = this.batch.remove(0);
-            ResolverResult result = processIdentifier(current);
+
+            // Keep the prefetcher a fixed number of artifacts ahead
+            if(prefetcher != null && this.batch.size() >= PomPrefetcher.Lookahead)
+                prefetcher.prefetch(this.batch.get(PomPrefetcher.Lookahead - 1));
+
+            ResolverResult result = pomFileResolver.processIdentifier(current);
 
             if(result!= null)
                 resultBatch.add(result);
@@ -63,79 +80,65 @@ public class PomFileBatchResolver extends Thread {
         log.info("Finished processing batch.");
     }
 
-    private ResolverResult processIdentifier(ArtifactIdentifier identifier){
-        log.trace("Processing identifier: " + identifier);
-
-        try{
-            URLConnection connection = MavenRepo.openPomFileConnection(identifier);
+    /**
+     * Downloads all POM files of the batch first and scans them for parent and import-scope references. Artifacts are
+     * then resolved so that parents and BOMs contained in the batch come before the artifacts that reference them, all
+     * descendants can then reuse their models from the shared model cache.
+     */
+    private void processBatchParentsFirst(){
 
-            if(connection == null){
-                log.error("Download failed.");
-                return null;
-            }
+        List<ResolverResult> resultBatch = new ArrayList<>();
+        List<ArtifactIdentifier> failedIdentifiers = new ArrayList<>();
+        Map<ArtifactIdentifier, PrefetchedPomFile> prefetchedFiles = new LinkedHashMap<>();
 
-            long lastModified = connection.getLastModified();
-
-            ResolverResult dependcyResolverResult = ResolverProvider
-                    .buildResolver(connection.getInputStream(), identifier, configuration)
-                    .resolveDependencies();
-
-            if(!dependcyResolverResult.hasDownloadErrors())
-            {
-                // If we have (possibly corrupt) results and errors while resolving, retry with slower implementation
-                if(dependcyResolverResult.hasErrors()){
-                    log.warn("Got " + dependcyResolverResult.getErrors().size() +
-                            " errors while resolving " + identifier.toString());
-
-                    if(ResolverProvider.backupResolverEnabled()){
-                        log.trace("Retrying artifact with backup resolver: " + identifier.toString());
-
-                        ResolverResult oldResult = dependcyResolverResult;
-
-                        dependcyResolverResult = ResolverProvider
-                                .buildBackupResolver(MavenRepo.openPomFileInputStream(identifier), identifier, configuration)
-                                .resolveDependencies();
-
-                        // Copy old parent identifier for now
-                        if(oldResult.hasParentIdentifier() && !dependcyResolverResult.hasParentIdentifier()){
-                            dependcyResolverResult.setParentIdentifier(oldResult.getParentIdentifier());
-                        }
-
-                        if(!dependcyResolverResult.hasResults()){
-                            log.error("Backup resolver failed to produce any results.");
-                            dependcyResolverResult = oldResult;
-                        } else if(dependcyResolverResult.hasErrors()){
-                            log.warn("Backup resolver also produced errors while resolving " + identifier.toString());
-                        } else {
-                            log.info("Backup resolver successfully corrected resolver errors.");
-                        }
-                    }
-                }
-            } else {
-                log.warn("Got download errors for " + identifier.toString());
-            }
+        for(ArtifactIdentifier current : this.batch){
+            PrefetchedPomFile prefetched = pomFileResolver.prefetchPomFile(current);
 
-            if(dependcyResolverResult.hasResults()){
-                dependcyResolverResult.LastModified = lastModified;
-                log.trace("Successfully processed " + identifier.toString());
-                return dependcyResolverResult;
-            }
+            if(prefetched != null)
+                prefetchedFiles.put(current, prefetched);
             else
-            {
-                log.warn("No results for this artifact: " + identifier.toString());
-                return null;
-            }
+                failedIdentifiers.add(current);
         }
-        catch(FileNotFoundException fnfx){
-            log.warn("Failed to locate POM file definition on Maven Central: " + identifier.toString());
+
+        for(ArtifactIdentifier current : orderParentsFirst(prefetchedFiles)){
+            ResolverResult result = pomFileResolver.processIdentifier(current, prefetchedFiles.remove(current));
+
+            if(result!= null)
+                resultBatch.add(result);
+            else
+                failedIdentifiers.add(current);
         }
-        catch(IOException iox){
-            log.warn("IO Failure while processing artifact identifier " + identifier.toString(), iox);
+
+        this.storageAdapter.storeArtifactBatch(resultBatch);
+        this.storageAdapter.storeFailedIdentifiers(failedIdentifiers);
+
+        this.batch = null;
+        log.info("Finished processing batch.");
+    }
+
+    private List<ArtifactIdentifier> orderParentsFirst(Map<ArtifactIdentifier, PrefetchedPomFile> prefetchedFiles){
+        List<ArtifactIdentifier> order = new ArrayList<>(prefetchedFiles.size());
+        Set<ArtifactIdentifier> visited = new HashSet<>();
+
+        for(ArtifactIdentifier identifier : prefetchedFiles.keySet()){
+            visitParentsFirst(identifier, prefetchedFiles, visited, order);
         }
-        catch(Exception x){
-            log.error("Unexpected error while processing artifact identifier " + identifier.toString(), x);
+
+        return order;
+    }
+
+    private void visitParentsFirst(ArtifactIdentifier identifier, Map<ArtifactIdentifier, PrefetchedPomFile> prefetchedFiles,
+                                   Set<ArtifactIdentifier> visited, List<ArtifactIdentifier> order){
+        // Also stops at reference cycles
+        if(!visited.add(identifier))
+            return;
+
+        for(ArtifactIdentifier reference : prefetchedFiles.get(identifier).References){
+            if(prefetchedFiles.containsKey(reference))
+                visitParentsFirst(reference, prefetchedFiles, visited, order);
         }
-        return null;
+
+        order.add(identifier);
     }
 
 }
@@ -0,0 +1,343 @@
+package org.anon.vulnanalysis.pom;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.model.MavenCentralRepository;
+import org.anon.vulnanalysis.metrics.Counter;
+import org.anon.vulnanalysis.metrics.Histogram;
+import org.anon.vulnanalysis.metrics.Meter;
+import org.anon.vulnanalysis.metrics.MetricsRegistry;
+import org.anon.vulnanalysis.metrics.jfr.ArtifactResolutionEvent;
+import org.anon.vulnanalysis.metrics.jfr.FlightRecorderEvents;
+import org.anon.vulnanalysis.metrics.jfr.PomFetchEvent;
+import org.anon.vulnanalysis.pom.dependencies.DependencyResolverProvider;
+import org.anon.vulnanalysis.pom.dependencies.ResolverResult;
+import org.anon.vulnanalysis.storage.ArtifactStorageAdapter;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *  Downloads and resolves the POM file of a single artifact, retrying with the backup resolver if the primary resolver
+ *  produces errors. Instances hold no per-artifact state and can be used by multiple threads concurrently.
+ */
+public class PomFileResolver {
+
+    private static DependencyResolverProvider ResolverProvider = DependencyResolverProvider.getInstance();
+    private static MavenCentralRepository MavenRepo = MavenCentralRepository.getInstance();
+    private static ResolverRouter Router = ResolverRouter.getInstance();
+
+    private static final MetricsRegistry Metrics = MetricsRegistry.getInstance();
+    private static final Meter ArtifactsProcessed =
+            Metrics.meter("miner_artifacts_processed", "Artifacts processed by the resolver");
+    private static final Histogram DownloadTime = Metrics.stageDuration("download");
+    private static final Histogram ResolveTime = Metrics.stageDuration("resolve");
+    private static final Histogram BackupResolveTime = Metrics.stageDuration("backup_resolve");
+    private static final Counter NotFoundErrors = Metrics.errors("not_found");
+    private static final Counter DownloadErrors = Metrics.errors("download");
+    private static final Counter ResolverErrors = Metrics.errors("resolver");
+    private static final Counter BackupResolverErrors = Metrics.errors("backup_resolver");
+    private static final Counter NoResultErrors = Metrics.errors("no_results");
+    private static final Counter UnexpectedErrors = Metrics.errors("unexpected");
+
+    private final Logger log = LogManager.getLogger(PomFileResolver.class);
+
+    private final MinerConfiguration configuration;
+
+    // Source of the validators of already stored POM files, only used on refresh runs
+    private final ArtifactStorageAdapter storedArtifacts;
+
+    public PomFileResolver(MinerConfiguration config){
+        this.configuration = config;
+        this.storedArtifacts = config.RefreshExistingArtifacts ? ArtifactStorageAdapter.create(config) : null;
+    }
+
+    public PrefetchedPomFile prefetchPomFile(ArtifactIdentifier identifier){
+        PomFetchEvent fetchEvent = FlightRecorderEvents.Available ? new PomFetchEvent() : null;
+
+        try{
+            long downloadStart = System.nanoTime();
+            URLConnection connection = MavenRepo.openPomFileConnection(identifier);
+
+            if(connection == null){
+                log.error("Download failed.");
+                DownloadErrors.increment();
+                return null;
+            }
+
+            long lastModified = connection.getLastModified();
+            String eTag = connection.getHeaderField("ETag");
+            PomContentBuffer content = PomContentBuffer.acquire().readFully(connection.getInputStream());
+            DownloadTime.observeSince(downloadStart);
+
+            if(fetchEvent != null)
+                fetchEvent.complete(identifier, false, content.size(), statusOf(connection));
+
+            List<ArtifactIdentifier> references;
+            try {
+                references = PomReferenceScanner.scanReferences(content.newInputStream());
+            } catch(Exception x){
+                // The resolver will report the actual parsing errors
+                log.trace("Failed to scan POM references of " + identifier.toString(), x);
+                references = Collections.emptyList();
+            }
+
+            return new PrefetchedPomFile(content.toByteArray(), lastModified, eTag, references);
+        }
+        catch(FileNotFoundException fnfx){
+            log.warn("Failed to locate POM file definition on Maven Central: " + identifier.toString());
+            NotFoundErrors.increment();
+            if(fetchEvent != null)
+                fetchEvent.complete(identifier, false, 0, HttpURLConnection.HTTP_NOT_FOUND);
+        }
+        catch(IOException iox){
+            log.warn("IO Failure while downloading POM file for artifact identifier " + identifier.toString(), iox);
+            DownloadErrors.increment();
+            if(fetchEvent != null)
+                fetchEvent.complete(identifier, false, 0, -1);
+        }
+        return null;
+    }
+
+    public ResolverResult processIdentifier(ArtifactIdentifier identifier){
+        PomPrefetcher prefetcher = PomPrefetcher.getInstance();
+        return processIdentifier(identifier, prefetcher != null ? prefetcher.takePrefetched(identifier) : null);
+    }
+
+    public ResolverResult processIdentifier(ArtifactIdentifier identifier, PrefetchedPomFile prefetched){
+        ArtifactResolutionEvent event = FlightRecorderEvents.Available ? new ArtifactResolutionEvent() : null;
+
+        ResolverResult result = resolveIdentifier(identifier, prefetched);
+        ArtifactsProcessed.mark();
+
+        if(event != null){
+            String outcome = result == null ? "failed" : result.isUnchanged() ? "unchanged" : "resolved";
+            event.complete(identifier, outcome, prefetched != null,
+                    result != null && result.hasResults() ? result.getResults().size() : 0,
+                    result != null ? result.getErrors().size() : 0);
+        }
+
+        return result;
+    }
+
+    private ResolverResult resolveIdentifier(ArtifactIdentifier identifier, PrefetchedPomFile prefetched){
+        log.trace("Processing identifier: " + identifier);
+
+        // Only set while the POM file is downloaded
+        PomFetchEvent fetchEvent = null;
+
+        try{
+            // Downloaded once, all resolvers read the same content
+            PomContentBuffer content = PomContentBuffer.acquire();
+            long lastModified;
+            String eTag;
+
+            PomFileValidator validator = storedArtifacts != null ? storedArtifacts.loadValidator(identifier) : null;
+
+            if(prefetched != null){
+                if(FlightRecorderEvents.Available)
+                    new PomFetchEvent().complete(identifier, true, prefetched.Content.length, 0);
+
+                lastModified = prefetched.LastModified;
+                eTag = prefetched.ETag;
+
+                if(validator != null && validator.matches(lastModified, eTag)){
+                    log.trace("POM file unchanged since last run: " + identifier.toString());
+                    return ResolverResult.unchanged(identifier);
+                }
+
+                content.write(prefetched.Content, 0, prefetched.Content.length);
+            } else {
+                long downloadStart = System.nanoTime();
+                fetchEvent = FlightRecorderEvents.Available ? new PomFetchEvent() : null;
+                URLConnection connection = validator != null ?
+                        MavenRepo.openConditionalPomFileConnection(identifier, validator) :
+                        MavenRepo.openPomFileConnection(identifier);
+
+                if(connection == null){
+                    log.error("Download failed.");
+                    DownloadErrors.increment();
+                    return null;
+                }
+
+                if(connection instanceof HttpURLConnection &&
+                        ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED){
+                    log.trace("POM file unchanged since last run: " + identifier.toString());
+                    ((HttpURLConnection) connection).disconnect();
+                    if(fetchEvent != null)
+                        fetchEvent.complete(identifier, false, 0, HttpURLConnection.HTTP_NOT_MODIFIED);
+                    return ResolverResult.unchanged(identifier);
+                }
+
+                lastModified = connection.getLastModified();
+                eTag = connection.getHeaderField("ETag");
+
+                // Servers may ignore conditional requests
+                if(validator != null && validator.matches(lastModified, eTag)){
+                    connection.getInputStream().close();
+                    return ResolverResult.unchanged(identifier);
+                }
+
+                content.readFully(connection.getInputStream());
+                DownloadTime.observeSince(downloadStart);
+
+                if(fetchEvent != null){
+                    fetchEvent.complete(identifier, false, content.size(), statusOf(connection));
+                    fetchEvent = null;
+                }
+            }
+
+            List<String> families = Collections.emptyList();
+            ArtifactIdentifier parentIdentifier = null;
+            ResolverResult dependcyResolverResult = null;
+
+            if(Router.isEnabled() && ResolverProvider.backupResolverEnabled()){
+                parentIdentifier = scanParent(identifier, content);
+                families = Router.getFamilies(identifier, parentIdentifier);
+
+                if(Router.shouldSkipPrimary(families)){
+                    log.trace("Resolving artifact of a family the primary resolver fails for with backup resolver: " +
+                            identifier.toString());
+
+                    long resolveStart = System.nanoTime();
+                    dependcyResolverResult = ResolverProvider.getBackupResolver()
+                            .resolveDependencies(content.newInputStream(), identifier);
+                    BackupResolveTime.observeSince(resolveStart);
+
+                    if(dependcyResolverResult.hasResults() && !dependcyResolverResult.hasErrors()){
+                        if(parentIdentifier != null)
+                            dependcyResolverResult.setParentIdentifier(parentIdentifier);
+                    } else {
+                        // Routing was wrong for this artifact, resolve it as usual
+                        Router.recordRoutingFallback();
+                        dependcyResolverResult = null;
+                    }
+                }
+            }
+
+            if(dependcyResolverResult == null){
+                dependcyResolverResult = resolveWithFallback(identifier, content, families);
+            }
+
+            if(dependcyResolverResult.hasResults()){
+                dependcyResolverResult.LastModified = lastModified;
+                dependcyResolverResult.ETag = eTag;
+                dependcyResolverResult.ContentHash = content.sha1Hex();
+                dependcyResolverResult.ContentSize = content.size();
+                log.trace("Successfully processed " + identifier.toString());
+                return dependcyResolverResult;
+            }
+            else
+            {
+                log.warn("No results for this artifact: " + identifier.toString());
+                NoResultErrors.increment();
+                return null;
+            }
+        }
+        catch(FileNotFoundException fnfx){
+            log.warn("Failed to locate POM file definition on Maven Central: " + identifier.toString());
+            NotFoundErrors.increment();
+            if(fetchEvent != null)
+                fetchEvent.complete(identifier, false, 0, HttpURLConnection.HTTP_NOT_FOUND);
+        }
+        catch(IOException iox){
+            log.warn("IO Failure while processing artifact identifier " + identifier.toString(), iox);
+            DownloadErrors.increment();
+            if(fetchEvent != null)
+                fetchEvent.complete(identifier, false, 0, -1);
+        }
+        catch(Exception x){
+            log.error("Unexpected error while processing artifact identifier " + identifier.toString(), x);
+            UnexpectedErrors.increment();
+        }
+        return null;
+    }
+
+    private static int statusOf(URLConnection connection) throws IOException {
+        return connection instanceof HttpURLConnection ? ((HttpURLConnection) connection).getResponseCode() :
+                HttpURLConnection.HTTP_OK;
+    }
+
+    private ArtifactIdentifier scanParent(ArtifactIdentifier identifier, PomContentBuffer content){
+        try {
+            return PomReferenceScanner.scanParent(content.newInputStream());
+        } catch(Exception x){
+            log.trace("Failed to scan parent of " + identifier.toString(), x);
+            return null;
+        }
+    }
+
+    /**
+     * Resolves with the primary resolver, and retries with the backup resolver if the primary one reports errors.
+     */
+    private ResolverResult resolveWithFallback(ArtifactIdentifier identifier, PomContentBuffer content, List<String> families){
+        long resolveStart = System.nanoTime();
+        ResolverResult dependcyResolverResult = ResolverProvider.getResolver(configuration)
+                .resolveDependencies(content.newInputStream(), identifier);
+        ResolveTime.observeSince(resolveStart);
+
+        if(!dependcyResolverResult.hasDownloadErrors())
+        {
+            Router.recordPrimaryOutcome(families, dependcyResolverResult.hasErrors());
+
+            // If we have (possibly corrupt) results and errors while resolving, retry with slower implementation
+            if(dependcyResolverResult.hasErrors()){
+                log.warn("Got " + dependcyResolverResult.getErrors().size() +
+                        " errors while resolving " + identifier.toString());
+                ResolverErrors.increment();
+
+                if(ResolverProvider.backupResolverEnabled()){
+                    log.trace("Retrying artifact with backup resolver: " + identifier.toString());
+
+                    ResolverResult oldResult = dependcyResolverResult;
+
+                    long backupStart = System.nanoTime();
+                    dependcyResolverResult = ResolverProvider.getBackupResolver()
+                            .resolveDependencies(content.newInputStream(), identifier);
+                    BackupResolveTime.observeSince(backupStart);
+
+                    // Copy old parent identifier for now
+                    if(oldResult.hasParentIdentifier() && !dependcyResolverResult.hasParentIdentifier()){
+                        dependcyResolverResult.setParentIdentifier(oldResult.getParentIdentifier());
+                    }
+
+                    if(!dependcyResolverResult.hasResults()){
+                        log.error("Backup resolver failed to produce any results.");
+                        BackupResolverErrors.increment();
+                        dependcyResolverResult = oldResult;
+                    } else if(dependcyResolverResult.hasErrors()){
+                        log.warn("Backup resolver also produced errors while resolving " + identifier.toString());
+                        BackupResolverErrors.increment();
+                    } else {
+                        log.info("Backup resolver successfully corrected resolver errors.");
+                    }
+                }
+            }
+        } else {
+            log.warn("Got download errors for " + identifier.toString());
+            DownloadErrors.increment();
+        }
+
+        return dependcyResolverResult;
+    }
+
+    public static class PrefetchedPomFile {
+        public final byte[] Content;
+        public final long LastModified;
+        public final String ETag;
+        public final List<ArtifactIdentifier> References;
+
+        PrefetchedPomFile(byte[] content, long lastModified, String eTag, List<ArtifactIdentifier> references){
+            this.Content = content;
+            this.LastModified = lastModified;
+            this.ETag = eTag;
+            this.References = references;
+        }
+    }
+}
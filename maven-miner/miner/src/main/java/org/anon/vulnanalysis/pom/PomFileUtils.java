@@ -4,7 +4,9 @@ import org.anon.vulnanalysis.model.ArtifactIdentifier;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.net.URLConnection;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
@@ -61,6 +63,40 @@ public class PomFileUtils {
         }
     }
 
+    /**
+     * Opens the POM file of the given artifact, throws a FileNotFoundException if the file does not exist and an
+     * IOException for all other failures.
+     */
+    public static InputStream openPomFileInputStreamOrFail(ArtifactIdentifier ident) throws IOException {
+        URI pomUri = ident.getMavenCentralPomUri();
+
+        if(pomUri == null)
+            throw new IOException("Invalid POM file location for " + ident);
+
+        return pomUri.toURL().openStream();
+    }
+
+    /**
+     * Opens a connection that only transfers the POM file if it does not match the given validators, otherwise the
+     * response code is 304 (Not Modified).
+     */
+    public static URLConnection openConditionalPomFileConnection(ArtifactIdentifier ident, PomFileValidator validator){
+        try{
+            URLConnection conn = ident.getMavenCentralPomUri().toURL().openConnection();
+
+            if(validator.LastModified > 0)
+                conn.setIfModifiedSince(validator.LastModified);
+            if(validator.ETag != null)
+                conn.setRequestProperty("If-None-Match", validator.ETag);
+
+            conn.connect();
+            return conn;
+        }
+        catch(Exception x){
+            return null;
+        }
+    }
+
     public static InputStream openPomFileInputStream(ArtifactIdentifier ident){
         try{
             return ident.getMavenCentralPomUri().toURL().openStream();
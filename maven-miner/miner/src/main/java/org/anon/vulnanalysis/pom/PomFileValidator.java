@@ -0,0 +1,26 @@
+package org.anon.vulnanalysis.pom;
+
+/**
+ *  HTTP cache validators of a POM file that has been stored before. They are sent along with the request on refresh
+ *  runs, so that Maven Central only sends the POM file if it changed since.
+ */
+public class PomFileValidator {
+
+    public final long LastModified;
+    public final String ETag;
+
+    public PomFileValidator(long lastModified, String eTag){
+        this.LastModified = lastModified;
+        this.ETag = eTag;
+    }
+
+    /**
+     * Returns true if a response with the given validators contains the same POM file as the one stored before.
+     */
+    public boolean matches(long lastModified, String eTag){
+        if(this.ETag != null && eTag != null)
+            return this.ETag.equals(eTag);
+
+        return this.LastModified > 0 && lastModified > 0 && lastModified <= this.LastModified;
+    }
+}
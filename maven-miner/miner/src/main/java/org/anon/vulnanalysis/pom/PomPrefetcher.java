@@ -0,0 +1,147 @@
+package org.anon.vulnanalysis.pom;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.pom.PomFileResolver.PrefetchedPomFile;
+import org.anon.vulnanalysis.pom.dependencies.PomModelCache;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Speculatively downloads the POM files of artifacts that are about to be processed, and warms the model cache with
+ *  their parent and BOM chains. Without prefetching, a resolver fetches one hierarchy level after the other. With it,
+ *  the chain of an upcoming artifact is fetched in the background while workers are busy with the current ones, and
+ *  the resolver usually finds all models in the cache (or joins a download that is already in progress).
+ */
+public class PomPrefetcher {
+
+    public static final int Lookahead = 8;
+
+    // Bounds the memory used by downloaded POM files that have not been picked up yet
+    private static final int MaxPendingFiles = 1000;
+    private static final int MaxChainDepth = 16;
+
+    private static PomPrefetcher theInstance = null;
+
+    private final Logger log = LogManager.getLogger(PomPrefetcher.class);
+
+    private final ExecutorService prefetchPool;
+    private final PomFileResolver pomFileResolver;
+    private final PomModelCache modelCache = PomModelCache.getInstance();
+
+    private final ConcurrentHashMap<ArtifactIdentifier, CompletableFuture<PrefetchedPomFile>> pendingFiles;
+
+    private PomPrefetcher(MinerConfiguration config){
+        this.prefetchPool = Executors.newFixedThreadPool(config.NumberOfPrefetchThreads, r -> {
+            Thread t = new Thread(r, "pom-prefetcher");
+            t.setDaemon(true);
+            return t;
+        });
+        this.pomFileResolver = new PomFileResolver(config);
+        this.pendingFiles = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Enables prefetching if any prefetch threads are configured.
+     */
+    public static synchronized void initialize(MinerConfiguration config){
+        if(theInstance == null && config.NumberOfPrefetchThreads > 0)
+            theInstance = new PomPrefetcher(config);
+    }
+
+    /**
+     * Returns the prefetcher, or null if prefetching is disabled.
+     */
+    public static PomPrefetcher getInstance(){
+        return theInstance;
+    }
+
+    /**
+     * Schedules downloading the POM file of the given (upcoming) artifact and preloading all POM files it references.
+     */
+    public void prefetch(ArtifactIdentifier identifier){
+        if(identifier == null || pendingFiles.containsKey(identifier))
+            return;
+
+        if(pendingFiles.size() >= MaxPendingFiles){
+            // Files of artifacts that were processed before their prefetch finished are never picked up
+            pendingFiles.values().removeIf(CompletableFuture::isDone);
+
+            if(pendingFiles.size() >= MaxPendingFiles)
+                return;
+        }
+
+        // Do not fall behind, prefetching for artifacts that are already processed is wasted work
+        if(prefetchPool instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) prefetchPool).getQueue().size() > MaxPendingFiles)
+            return;
+
+        CompletableFuture<PrefetchedPomFile> future = new CompletableFuture<>();
+        if(pendingFiles.putIfAbsent(identifier, future) != null)
+            return;
+
+        prefetchPool.execute(() -> {
+            PrefetchedPomFile file = null;
+            try {
+                file = pomFileResolver.prefetchPomFile(identifier);
+            } catch(Exception x){
+                log.trace("Failed to prefetch " + identifier, x);
+            } finally {
+                future.complete(file);
+            }
+
+            if(file != null && modelCache.isEnabled()){
+                for(ArtifactIdentifier reference : file.References){
+                    prefetchPomChain(reference, 0);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the prefetched POM file for the given artifact, waiting if the download is still in progress. Returns null
+     * if the artifact was never prefetched or prefetching failed.
+     */
+    public PrefetchedPomFile takePrefetched(ArtifactIdentifier identifier){
+        CompletableFuture<PrefetchedPomFile> future = pendingFiles.remove(identifier);
+
+        if(future == null)
+            return null;
+
+        try {
+            return future.get(1, TimeUnit.MINUTES);
+        } catch(Exception x){
+            return null;
+        }
+    }
+
+    private void prefetchPomChain(ArtifactIdentifier identifier, int depth){
+        if(depth >= MaxChainDepth)
+            return;
+
+        // Independent references (parent, BOMs) are fetched concurrently, each level of a chain as soon as it is known
+        prefetchPool.execute(() -> {
+            for(ArtifactIdentifier reference : modelCache.preload(identifier)){
+                prefetchPomChain(reference, depth + 1);
+            }
+        });
+    }
+
+    /**
+     * Stops all pending prefetches and disables prefetching.
+     */
+    public static synchronized void shutdown(){
+        if(theInstance == null)
+            return;
+
+        theInstance.prefetchPool.shutdownNow();
+        theInstance.pendingFiles.clear();
+        theInstance = null;
+    }
+}
@@ -0,0 +1,195 @@
+package org.anon.vulnanalysis.pom;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *  Streams over a POM file and only extracts the POM files it references: the parent and all import-scope
+ *  dependencies in the project's dependency management. References whose coordinates contain properties that cannot
+ *  be resolved from the POM file itself are omitted. This is much cheaper than building a DOM, and is used to order
+ *  artifacts so that parents and BOMs are resolved before the artifacts that use them.
+ */
+public class PomReferenceScanner {
+
+    private static final XMLInputFactory InputFactory = createInputFactory();
+
+    private static XMLInputFactory createInputFactory(){
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    public static List<ArtifactIdentifier> scanReferences(InputStream pomStream) throws XMLStreamException {
+        XMLStreamReader reader = InputFactory.createXMLStreamReader(pomStream);
+
+        List<String> path = new ArrayList<>();
+        Map<String, String> currentElementValues = new HashMap<>();
+        Map<String, String> properties = new HashMap<>();
+        List<Map<String, String>> importCandidates = new ArrayList<>();
+        Map<String, String> parentValues = null;
+        String projectGroupId = null, projectVersion = null;
+        StringBuilder text = new StringBuilder();
+
+        try {
+            while(reader.hasNext()){
+                int event = reader.next();
+
+                if(event == XMLStreamConstants.START_ELEMENT){
+                    path.add(reader.getLocalName());
+                    text.setLength(0);
+
+                    if(pathEquals(path, "project", "dependencyManagement", "dependencies", "dependency") ||
+                            pathEquals(path, "project", "parent")){
+                        currentElementValues = new HashMap<>();
+                    }
+                } else if(event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA){
+                    text.append(reader.getText());
+                } else if(event == XMLStreamConstants.END_ELEMENT){
+                    String value = text.toString().trim();
+                    text.setLength(0);
+
+                    if(path.size() == 3 && pathStartsWith(path, "project", "parent")){
+                        currentElementValues.put(path.get(2).toLowerCase(), value);
+                    } else if(path.size() == 5 && pathStartsWith(path, "project", "dependencyManagement", "dependencies", "dependency")){
+                        currentElementValues.put(path.get(4).toLowerCase(), value);
+                    } else if(pathEquals(path, "project", "parent")){
+                        parentValues = currentElementValues;
+                    } else if(pathEquals(path, "project", "dependencyManagement", "dependencies", "dependency")){
+                        if("import".equals(currentElementValues.get("scope")))
+                            importCandidates.add(currentElementValues);
+                    } else if(path.size() == 3 && pathStartsWith(path, "project", "properties")){
+                        properties.putIfAbsent(path.get(2), value);
+                    } else if(pathEquals(path, "project", "groupId")){
+                        projectGroupId = value;
+                    } else if(pathEquals(path, "project", "version")){
+                        projectVersion = value;
+                    }
+
+                    path.remove(path.size() - 1);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        List<ArtifactIdentifier> references = new ArrayList<>();
+        ArtifactIdentifier parent = null;
+
+        if(parentValues != null){
+            parent = toIdentifier(parentValues, properties);
+            if(parent != null)
+                references.add(parent);
+        }
+
+        // Group and version are inherited from the parent if not specified
+        properties.putIfAbsent("project.groupId", projectGroupId != null ? projectGroupId :
+                parent != null ? parent.GroupId : null);
+        properties.putIfAbsent("project.version", projectVersion != null ? projectVersion :
+                parent != null ? parent.Version : null);
+        if(parent != null)
+            properties.putIfAbsent("project.parent.version", parent.Version);
+
+        for(Map<String, String> importValues : importCandidates){
+            ArtifactIdentifier importIdentifier = toIdentifier(importValues, properties);
+            if(importIdentifier != null)
+                references.add(importIdentifier);
+        }
+
+        return references;
+    }
+
+    /**
+     * Returns the parent of the given POM file, or null if it has no parent or the parent's coordinates contain
+     * properties. Stops reading as soon as the parent element is complete.
+     */
+    public static ArtifactIdentifier scanParent(InputStream pomStream) throws XMLStreamException {
+        XMLStreamReader reader = InputFactory.createXMLStreamReader(pomStream);
+
+        List<String> path = new ArrayList<>();
+        Map<String, String> parentValues = new HashMap<>();
+        StringBuilder text = new StringBuilder();
+
+        try {
+            while(reader.hasNext()){
+                int event = reader.next();
+
+                if(event == XMLStreamConstants.START_ELEMENT){
+                    path.add(reader.getLocalName());
+                    text.setLength(0);
+                } else if(event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA){
+                    text.append(reader.getText());
+                } else if(event == XMLStreamConstants.END_ELEMENT){
+                    if(path.size() == 3 && pathStartsWith(path, "project", "parent")){
+                        parentValues.put(path.get(2).toLowerCase(), text.toString().trim());
+                    } else if(pathEquals(path, "project", "parent")){
+                        return toIdentifier(parentValues, new HashMap<>());
+                    }
+
+                    text.setLength(0);
+                    path.remove(path.size() - 1);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return null;
+    }
+
+    private static ArtifactIdentifier toIdentifier(Map<String, String> values, Map<String, String> properties){
+        String groupId = resolveSimpleReferences(values.get("groupid"), properties);
+        String artifactId = resolveSimpleReferences(values.get("artifactid"), properties);
+        String version = resolveSimpleReferences(values.get("version"), properties);
+
+        if(groupId == null || artifactId == null || version == null)
+            return null;
+
+        return new ArtifactIdentifier(groupId, artifactId, version);
+    }
+
+    private static String resolveSimpleReferences(String value, Map<String, String> properties){
+        // Bounded, properties may reference each other in cycles
+        for(int i = 0; value != null && value.contains("${") && i < 10; i++){
+            int start = value.indexOf("${");
+            int end = value.indexOf('}', start);
+
+            if(end < 0)
+                return null;
+
+            String propertyValue = properties.get(value.substring(start + 2, end));
+
+            if(propertyValue == null)
+                return null;
+
+            value = value.substring(0, start) + propertyValue + value.substring(end + 1);
+        }
+
+        return value == null || value.isEmpty() || value.contains("${") ? null : value;
+    }
+
+    private static boolean pathEquals(List<String> path, String... expected){
+        return path.size() == expected.length && pathStartsWith(path, expected);
+    }
+
+    private static boolean pathStartsWith(List<String> path, String... expected){
+        if(path.size() < expected.length)
+            return false;
+
+        for(int i = 0; i < expected.length; i++){
+            if(!path.get(i).equals(expected[i]))
+                return false;
+        }
+
+        return true;
+    }
+}
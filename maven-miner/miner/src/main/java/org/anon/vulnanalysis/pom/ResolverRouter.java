@@ -0,0 +1,244 @@
+package org.anon.vulnanalysis.pom;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ *  Decides whether an artifact is resolved with the primary resolver first, or directly with the backup resolver.
+ *  Some artifact families (all artifacts of a groupId, or all children of a parent POM) use POM features the primary
+ *  resolver does not support, it then fails for each of them and the backup resolver runs anyway. The router keeps
+ *  per-family statistics on failures of the primary resolver and skips it for families whose failure rate is known
+ *  to be high. A small share of those artifacts is still resolved with the primary resolver, so that the statistics
+ *  follow if a family becomes resolvable (e.g. after resolver improvements).
+ *
+ *  Statistics are kept across runs in a file.
+ */
+public class ResolverRouter {
+
+    // Families need this many observations before they are routed
+    private static final long MinimumAttempts = 20;
+
+    // Every n-th artifact of a routed family is still resolved with the primary resolver
+    private static final long ExplorationInterval = 20;
+
+    private static final String GroupPrefix = "group:";
+    private static final String ParentPrefix = "parent:";
+
+    private static final ResolverRouter theInstance = new ResolverRouter();
+
+    private final Logger log = LogManager.getLogger(ResolverRouter.class);
+
+    private final ConcurrentHashMap<String, FamilyStatistics> statistics = new ConcurrentHashMap<>();
+
+    private volatile double failureRateThreshold = 0;
+
+    private final LongAdder primaryAttempts = new LongAdder();
+    private final LongAdder primaryFailures = new LongAdder();
+    private final LongAdder routedToBackup = new LongAdder();
+    private final LongAdder routingFallbacks = new LongAdder();
+
+    ResolverRouter(){
+    }
+
+    /**
+     * Enables routing if a failure rate threshold is configured.
+     */
+    public void configure(MinerConfiguration config){
+        this.failureRateThreshold = config.RoutingFailureRateThreshold;
+    }
+
+    public boolean isEnabled(){
+        return failureRateThreshold > 0;
+    }
+
+    /**
+     * Returns the families the given artifact belongs to.
+     */
+    public List<String> getFamilies(ArtifactIdentifier identifier, ArtifactIdentifier parentIdentifier){
+        List<String> families = new ArrayList<>(2);
+        families.add(GroupPrefix + identifier.GroupId);
+
+        if(parentIdentifier != null)
+            families.add(ParentPrefix + parentIdentifier.getCoordinates());
+
+        return families;
+    }
+
+    /**
+     * Returns true if the primary resolver is expected to fail for an artifact of the given families.
+     */
+    public boolean shouldSkipPrimary(List<String> families){
+        if(!isEnabled())
+            return false;
+
+        for(String family : families){
+            FamilyStatistics familyStatistics = statistics.get(family);
+
+            if(familyStatistics != null && familyStatistics.isDoomed(failureRateThreshold)){
+                if(familyStatistics.RoutedArtifacts.incrementAndGet() % ExplorationInterval == 0)
+                    return false;
+
+                routedToBackup.increment();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Records the outcome of the primary resolver for an artifact of the given families.
+     */
+    public void recordPrimaryOutcome(List<String> families, boolean failed){
+        primaryAttempts.increment();
+        if(failed)
+            primaryFailures.increment();
+
+        if(!isEnabled())
+            return;
+
+        for(String family : families){
+            FamilyStatistics familyStatistics = statistics.computeIfAbsent(family, k -> new FamilyStatistics());
+            familyStatistics.Attempts.increment();
+            if(failed)
+                familyStatistics.Failures.increment();
+        }
+    }
+
+    /**
+     * Records that the backup resolver failed for a routed artifact, which was then resolved with the primary resolver.
+     */
+    public void recordRoutingFallback(){
+        routingFallbacks.increment();
+    }
+
+    public long getPrimaryAttempts(){
+        return primaryAttempts.sum();
+    }
+
+    public long getPrimaryFailures(){
+        return primaryFailures.sum();
+    }
+
+    public long getRoutedToBackup(){
+        return routedToBackup.sum();
+    }
+
+    public long getRoutingFallbacks(){
+        return routingFallbacks.sum();
+    }
+
+    /**
+     * Returns the primary resolver failure rate of all families that are currently routed to the backup resolver.
+     */
+    public Map<String, Double> getRoutedFamilies(){
+        return statistics.entrySet().stream()
+                .filter(e -> e.getValue().isDoomed(failureRateThreshold))
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getFailureRate()));
+    }
+
+    /**
+     * Returns the given number of families with most primary resolver failures, with their failure rates.
+     */
+    public List<Map.Entry<String, Double>> getTopFailingFamilies(int limit){
+        List<Map.Entry<String, FamilyStatistics>> entries = new ArrayList<>(statistics.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, FamilyStatistics> e) -> e.getValue().Failures.sum()).reversed());
+
+        List<Map.Entry<String, Double>> topFamilies = new ArrayList<>();
+        for(Map.Entry<String, FamilyStatistics> entry : entries.subList(0, Math.min(limit, entries.size()))){
+            if(entry.getValue().Failures.sum() > 0)
+                topFamilies.add(new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue().getFailureRate()));
+        }
+        return Collections.unmodifiableList(topFamilies);
+    }
+
+    /**
+     * Adds the statistics of the given file, which was written by a previous run. A missing file is ignored.
+     */
+    public void loadFrom(Path file){
+        if(!isEnabled() || !Files.exists(file))
+            return;
+
+        int loaded = 0;
+
+        try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)){
+            String line;
+            while((line = reader.readLine()) != null){
+                String[] parts = line.split("\t");
+
+                if(parts.length != 3)
+                    continue;
+
+                FamilyStatistics familyStatistics = statistics.computeIfAbsent(parts[0], k -> new FamilyStatistics());
+                familyStatistics.Attempts.add(Long.parseLong(parts[1]));
+                familyStatistics.Failures.add(Long.parseLong(parts[2]));
+                loaded++;
+            }
+        } catch(IOException | NumberFormatException x){
+            log.warn("Failed to read resolver routing statistics from " + file, x);
+        }
+
+        log.info("Loaded resolver routing statistics for " + loaded + " artifact families, " +
+                getRoutedFamilies().size() + " of them are routed to the backup resolver");
+    }
+
+    public void saveTo(Path file){
+        if(!isEnabled())
+            return;
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            try(BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)){
+                for(Map.Entry<String, FamilyStatistics> entry : statistics.entrySet()){
+                    writer.write(entry.getKey() + "\t" + entry.getValue().Attempts.sum() + "\t" +
+                            entry.getValue().Failures.sum());
+                    writer.newLine();
+                }
+            }
+
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch(IOException iox){
+            log.warn("Failed to write resolver routing statistics to " + file, iox);
+        }
+    }
+
+    public static ResolverRouter getInstance(){
+        return theInstance;
+    }
+
+    private static class FamilyStatistics {
+        final LongAdder Attempts = new LongAdder();
+        final LongAdder Failures = new LongAdder();
+        final AtomicLong RoutedArtifacts = new AtomicLong();
+
+        double getFailureRate(){
+            long attempts = Attempts.sum();
+            return attempts == 0 ? 0 : (double) Failures.sum() / attempts;
+        }
+
+        boolean isDoomed(double threshold){
+            return Attempts.sum() >= MinimumAttempts && getFailureRate() >= threshold;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.model.ArtifactDependency;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.pom.PomFileUtils;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ *  Resolves dependencies with Aether, using the shared AetherRepositoryBackend. Holds no per-artifact state.
+ */
+public class AetherDependencyResolverService implements DependencyResolverService {
+
+    private final Logger log = LogManager.getLogger(AetherDependencyResolverService.class);
+
+    private final AetherRepositoryBackend backend;
+
+    public AetherDependencyResolverService(MinerConfiguration config){
+        this.backend = AetherRepositoryBackend.getInstance(config);
+    }
+
+    /**
+     * Places the POM file that was already downloaded into the local repository, so that Aether does not download it
+     * again. Untracked files in the local repository are treated as locally installed.
+     */
+    private void seedLocalRepository(InputStream pomStream, ArtifactIdentifier identifier){
+        if(pomStream == null)
+            return;
+
+        Artifact pomArtifact = new DefaultArtifact(identifier.GroupId, identifier.ArtifactId, "pom", identifier.Version);
+        RepositorySystemSession session = backend.getSession();
+        File pomFile = new File(session.getLocalRepository().getBasedir(),
+                session.getLocalRepositoryManager().getPathForLocalArtifact(pomArtifact));
+
+        if(pomFile.exists())
+            return;
+
+        pomFile.getParentFile().mkdirs();
+
+        if(!PomFileUtils.writeToPomFile(pomStream, pomFile)){
+            log.debug("Failed to seed local repository with POM file of " + identifier);
+            pomFile.delete();
+        }
+    }
+
+    @Override
+    public ResolverResult resolveDependencies(InputStream pomStream, ArtifactIdentifier identifier){
+        ResolverResult r = new ResolverResult(identifier);
+
+        this.seedLocalRepository(pomStream, identifier);
+
+        ArtifactDescriptorRequest request = new ArtifactDescriptorRequest();
+        request.setArtifact(new DefaultArtifact(identifier.getCoordinates()));
+        request.setRepositories(Collections.singletonList(backend.getCentralRepository()));
+
+        try{
+            ArtifactDescriptorResult result = backend.getRepositorySystem().readArtifactDescriptor(backend.getSession(), request);
+            r.setParentIdentifier(null); //TODO: Handle this
+
+            Set<ArtifactDependency> deps = new HashSet<>();
+
+            for(Dependency d : result.getDependencies()){
+                ArtifactDependency dependencyToAdd = new ArtifactDependency(d.getArtifact().getGroupId(),
+                        d.getArtifact().getArtifactId(), d.getArtifact().getVersion(), d.getScope());
+                deps.add(dependencyToAdd);
+            }
+
+            r.setResults(deps);
+        } catch (Exception x){
+            log.error("Failed to resolve dependencies", x);
+            r.appendError(new ResolverError("", x, false));
+            r.setResults(null);
+        }
+
+        return r;
+    }
+}
@@ -0,0 +1,95 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.model.MavenCentralRepository;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
+import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transport.file.FileTransporterFactory;
+import org.eclipse.aether.transport.http.HttpTransporterFactory;
+
+import java.nio.file.Paths;
+
+/**
+ *  The Aether repository system and session used by all AetherDependencyResolver instances. Both are expensive to set
+ *  up and thread-safe once configured, so they are created once per JVM. Sharing the session shares the HTTP
+ *  connection pool of the transport, the local repository and the (bounded) repository cache, so parent POMs and BOMs
+ *  that were read for one artifact are reused for all others.
+ */
+class AetherRepositoryBackend {
+
+    private static AetherRepositoryBackend theInstance = null;
+
+    private final Logger log = LogManager.getLogger(AetherRepositoryBackend.class);
+
+    private final RepositorySystem repoSystem;
+    private final RepositorySystemSession repoSession;
+    private final RemoteRepository centralRepository;
+
+    private AetherRepositoryBackend(MinerConfiguration config){
+        this.repoSystem = buildRepositorySystem();
+        this.repoSession = buildSession(this.repoSystem, config);
+        // The configured repository, or the stand-in that records or replays it
+        this.centralRepository = new RemoteRepository.Builder("central", "default",
+                MavenCentralRepository.getRepoBasePath()).build();
+
+        log.info("Initialized Aether backend with local repository " +
+                repoSession.getLocalRepository().getBasedir().getAbsolutePath());
+    }
+
+    private static RepositorySystem buildRepositorySystem(){
+        DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+
+        locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
+        locator.addService(TransporterFactory.class, FileTransporterFactory.class);
+        locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+
+        return locator.getService(RepositorySystem.class);
+    }
+
+    private static RepositorySystemSession buildSession(RepositorySystem system, MinerConfiguration config){
+        DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
+
+        LocalRepository local = new LocalRepository(Paths.get(config.WorkingDirectoryPath, "local-repo").toString());
+        session.setLocalRepositoryManager(system.newLocalRepositoryManager(session, local));
+
+        // Caches parsed models (e.g. parents) across all requests of the session, bounded as the session lives as long
+        // as the JVM
+        session.setCache(new BoundedRepositoryCache(config.AetherCacheSize));
+
+        // Shared by all workers, must not be modified anymore
+        session.setReadOnly();
+        return session;
+    }
+
+    /**
+     * Returns the shared backend, creating it from the given configuration on first use.
+     */
+    static synchronized AetherRepositoryBackend getInstance(MinerConfiguration config){
+        if(theInstance == null)
+            theInstance = new AetherRepositoryBackend(config);
+
+        return theInstance;
+    }
+
+    RepositorySystem getRepositorySystem(){
+        return repoSystem;
+    }
+
+    RepositorySystemSession getSession(){
+        return repoSession;
+    }
+
+    RemoteRepository getCentralRepository(){
+        return centralRepository;
+    }
+}
@@ -0,0 +1,49 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *  Bounded LRU replacement for Aether's DefaultRepositoryCache. The repository session is shared for the whole run, and
+ *  maven-aether-provider keeps every parent and imported POM it has read in the session cache, so an unbounded cache
+ *  grows with the number of library families resolved via Aether. Evicted entries are simply read and parsed again.
+ */
+class BoundedRepositoryCache implements RepositoryCache {
+
+    private final Map<Object, Object> entries;
+
+    BoundedRepositoryCache(int capacity){
+        if(capacity < 1)
+            throw new IllegalArgumentException("Cache capacity must be positive");
+
+        this.entries = new LinkedHashMap<Object, Object>(1024, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public void put(RepositorySystemSession session, Object key, Object data){
+        synchronized (entries){
+            entries.put(key, data);
+        }
+    }
+
+    @Override
+    public Object get(RepositorySystemSession session, Object key){
+        synchronized (entries){
+            return entries.get(key);
+        }
+    }
+
+    int size(){
+        synchronized (entries){
+            return entries.size();
+        }
+    }
+}
@@ -1,62 +1,52 @@
 package org.anon.vulnanalysis.pom.dependencies;
 
-import org.anon.vulnanalysis.model.ArtifactIdentifier;
 import org.anon.vulnanalysis.utils.MinerConfiguration;
 
-import java.io.InputStream;
-import java.lang.reflect.Constructor;
-
+/**
+ *  Holds the primary and (optional) backup resolver. Both are long-lived services that are shared by all threads.
+ */
 public class DependencyResolverProvider {
 
     private static DependencyResolverProvider theInstance;
-    private Class<? extends DependencyResolver> resolverType;
-    private Class<? extends DependencyResolver> backupResolverType;
+    private DependencyResolverService resolver;
+    private DependencyResolverService backupResolver;
 
     private DependencyResolverProvider(){
-        // The default resolver
-        this.registerResolverType(MvnPluginDependencyResolver.class);
-        this.backupResolverType = null;
+        // The default resolver is created on first use, see getResolver
+        this.resolver = null;
+        this.backupResolver = null;
     }
 
     public boolean backupResolverEnabled(){
-        return this.backupResolverType != null;
+        return this.backupResolver != null;
     }
 
-    public DependencyResolver buildResolver(InputStream stream, ArtifactIdentifier identifier, MinerConfiguration config){
-        try {
-            Constructor<? extends DependencyResolver> c =
-                    resolverType.getConstructor(InputStream.class, ArtifactIdentifier.class, MinerConfiguration.class);
-            return c.newInstance(stream, identifier, config);
-        } catch (Exception x){
-            return null;
-        }
-    }
+    /**
+     * Returns the primary resolver. If none is registered, the Maven-based resolver is used.
+     */
+    public synchronized DependencyResolverService getResolver(MinerConfiguration config){
+        if(this.resolver == null)
+            this.resolver = new MvnPluginDependencyResolverService(config);
 
-    public DependencyResolver buildBackupResolver(InputStream stream, ArtifactIdentifier identifier, MinerConfiguration config){
-        if(this.backupResolverType == null)
-            return null;
+        return this.resolver;
+    }
 
-        try {
-            Constructor<? extends DependencyResolver> c =
-                    backupResolverType.getConstructor(InputStream.class, ArtifactIdentifier.class, MinerConfiguration.class);
-            return c.newInstance(stream, identifier, config);
-        } catch (Exception x){
-            return null;
-        }
+    public DependencyResolverService getBackupResolver(){
+        return this.backupResolver;
     }
 
-    public void registerResolverType(Class<? extends DependencyResolver> resolver){
+    public synchronized void registerResolver(DependencyResolverService resolver){
         if(resolver == null){
-            throw new IllegalArgumentException("Primary resolver type cannot be null.");
+            throw new IllegalArgumentException("Primary resolver cannot be null.");
         }
-        this.resolverType = resolver;
+        this.resolver = resolver;
     }
 
-    public void registerBackupResolverType(Class<? extends DependencyResolver> resolver){
-        this.backupResolverType = resolver;
+    public synchronized void registerBackupResolver(DependencyResolverService resolver){
+        this.backupResolver = resolver;
     }
 
-    public static DependencyResolverProvider getInstance() {
+    public static synchronized DependencyResolverProvider getInstance() {
         if(theInstance == null)
             theInstance = new DependencyResolverProvider();
 
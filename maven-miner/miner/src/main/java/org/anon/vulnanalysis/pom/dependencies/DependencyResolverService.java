@@ -0,0 +1,14 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+
+import java.io.InputStream;
+
+/**
+ *  A long-lived dependency resolver that is shared by all threads. In contrast to IDependencyResolver, which is built
+ *  for a single artifact, the POM file and identifier are passed on each call, per-call state must be confined to the
+ *  calling thread.
+ */
+public interface DependencyResolverService {
+    ResolverResult resolveDependencies(InputStream pomStream, ArtifactIdentifier identifier);
+}
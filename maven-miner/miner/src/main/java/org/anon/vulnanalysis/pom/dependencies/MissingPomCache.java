@@ -0,0 +1,169 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  Negative cache of POM files that are not available on Maven Central, shared by all resolver instances. Thousands of
+ *  artifacts reference the same missing parents and BOMs, with this cache only the first of them pays for the failing
+ *  request. Entries expire after a configurable time, as missing files may still be published later on. The cache can
+ *  be written to and read from a file, so that it survives restarts of the miner.
+ */
+public class MissingPomCache {
+
+    public static final long DefaultTimeToLiveHours = 24;
+
+    private static final MissingPomCache theInstance = new MissingPomCache();
+
+    private final Logger log = LogManager.getLogger(MissingPomCache.class);
+
+    // Identifier -> time (millis) at which the file was found to be missing
+    private final ConcurrentHashMap<ArtifactIdentifier, Long> missingSince;
+
+    private volatile long timeToLiveMillis;
+
+    private final AtomicLong hits = new AtomicLong(0);
+
+    MissingPomCache(){
+        this.missingSince = new ConcurrentHashMap<>();
+        this.timeToLiveMillis = TimeUnit.HOURS.toMillis(DefaultTimeToLiveHours);
+    }
+
+    /**
+     * Sets the time after which entries expire, a time of zero disables the cache.
+     */
+    public void setTimeToLive(long time, TimeUnit unit){
+        if(time < 0)
+            throw new IllegalArgumentException("Time to live must not be negative");
+
+        this.timeToLiveMillis = unit.toMillis(time);
+
+        if(time == 0)
+            missingSince.clear();
+    }
+
+    public boolean isEnabled(){
+        return this.timeToLiveMillis > 0;
+    }
+
+    /**
+     * Returns true if the given POM file was recently found to be missing.
+     */
+    public boolean isKnownMissing(ArtifactIdentifier identifier){
+        if(!isEnabled())
+            return false;
+
+        Long since = missingSince.get(identifier);
+
+        if(since == null)
+            return false;
+
+        if(isExpired(since, System.currentTimeMillis())){
+            missingSince.remove(identifier, since);
+            return false;
+        }
+
+        hits.incrementAndGet();
+        return true;
+    }
+
+    public void markMissing(ArtifactIdentifier identifier){
+        if(isEnabled())
+            missingSince.put(identifier, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds all entries of the given file that have not expired yet. A missing file is ignored.
+     */
+    public void loadFrom(Path file){
+        if(!isEnabled() || !Files.exists(file))
+            return;
+
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+
+        try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)){
+            String line;
+            while((line = reader.readLine()) != null){
+                String[] parts = line.split("\t");
+                String[] gav = parts[0].split(":");
+
+                if(parts.length != 2 || gav.length != 3)
+                    continue;
+
+                long since = Long.parseLong(parts[1]);
+
+                if(!isExpired(since, now)){
+                    missingSince.merge(new ArtifactIdentifier(gav[0], gav[1], gav[2]), since, Math::max);
+                    loaded++;
+                }
+            }
+        } catch(IOException | NumberFormatException x){
+            log.warn("Failed to read missing POM cache from " + file, x);
+        }
+
+        log.info("Loaded " + loaded + " missing POM file entries from " + file);
+    }
+
+    /**
+     * Writes all entries that have not expired yet to the given file.
+     */
+    public void saveTo(Path file){
+        if(!isEnabled())
+            return;
+
+        long now = System.currentTimeMillis();
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            try(BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)){
+                for(Map.Entry<ArtifactIdentifier, Long> entry : missingSince.entrySet()){
+                    if(isExpired(entry.getValue(), now))
+                        continue;
+
+                    writer.write(entry.getKey().getCoordinates() + "\t" + entry.getValue());
+                    writer.newLine();
+                }
+            }
+
+            // Never leave a partially written cache behind
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch(IOException iox){
+            log.warn("Failed to write missing POM cache to " + file, iox);
+        }
+    }
+
+    private boolean isExpired(long since, long now){
+        return now - since >= timeToLiveMillis;
+    }
+
+    public void clear(){
+        missingSince.clear();
+        hits.set(0);
+    }
+
+    public int size(){
+        return missingSince.size();
+    }
+
+    public long getHits(){
+        return hits.get();
+    }
+
+    public static MissingPomCache getInstance(){
+        return theInstance;
+    }
+}
@@ -0,0 +1,51 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.model.ArtifactDependency;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.pom.PomContentBuffer;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ *  Resolves dependencies with a real Maven installation, via the shared MvnWorkerPool. The POM file is handed to the
+ *  pool, which resolves it together with the POM files of other artifacts in a single Maven invocation.
+ */
+//TODO: Handle parent detection?
+public class MvnPluginDependencyResolverService implements DependencyResolverService {
+
+    private final Logger log = LogManager.getLogger(MvnPluginDependencyResolverService.class);
+
+    private final MvnWorkerPool workerPool;
+
+    public MvnPluginDependencyResolverService(MinerConfiguration config){
+        this.workerPool = MvnWorkerPool.getInstance(config);
+    }
+
+    @Override
+    public ResolverResult resolveDependencies(InputStream pomStream, ArtifactIdentifier identifier){
+        ResolverResult result = new ResolverResult(identifier);
+
+        try {
+            // The pool writes the POM file on one of its threads, it gets its own copy of the content
+            byte[] content = PomContentBuffer.from(pomStream).toByteArray();
+            Set<ArtifactDependency> dependencies = workerPool.listDependencies(identifier, content).get();
+            result.setResults(dependencies);
+        }
+        catch (ExecutionException ex){
+            ResolverError error = new ResolverError(ex.getCause().getMessage(), false);
+            result.appendError(error);
+        }
+        catch (Exception x){
+            ResolverError error = new ResolverError("Unexpected exception during Maven invocation", x, false);
+            result.appendError(error);
+            log.error("Unexpected exception during Maven invocation for " + identifier, x);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,326 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.model.ArtifactDependency;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.model.MavenCentralRepository;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ *  Long-lived workers that list the direct dependencies of POM files with a real Maven installation. Starting Maven
+ *  (JVM startup, plugin resolution, bootstrapping the build) takes far longer than listing the dependencies of a
+ *  single project, so workers collect the POM files of many artifacts and resolve them as modules of a single
+ *  aggregator project in one Maven invocation. Each module writes its own dependency list.
+ *
+ *  A module that cannot even be read (e.g. unknown packaging) aborts the entire reactor. Such modules are identified
+ *  from Maven's output and the batch is run again without them, if that is not possible all artifacts of the batch are
+ *  resolved individually.
+ */
+class MvnWorkerPool {
+
+    private static final int MaxBatchSize = 32;
+    private static final long BatchLingerMillis = 500;
+    private static final long MavenTimeoutMinutes = 30;
+
+    // Pinned, the output format of the goal differs between plugin versions
+    private static final String DependencyListGoal = "org.apache.maven.plugins:maven-dependency-plugin:3.7.0:list";
+    private static final String DependencyFileName = "dependencies.txt";
+    private static final String BatchLogFileName = "maven-output.log";
+    private static final String MirrorSettingsFileName = "mirror-settings.xml";
+
+    private static final Pattern BrokenProjectPattern = Pattern.compile("The project \\S+ \\((.+)\\) has \\d+ errors?");
+
+    private static MvnWorkerPool theInstance = null;
+
+    private final Logger log = LogManager.getLogger(MvnWorkerPool.class);
+
+    private final BlockingQueue<ListRequest> pendingRequests;
+    private final String mavenCommand;
+    private final Path workDirectory;
+
+    private MvnWorkerPool(MinerConfiguration config){
+        this.pendingRequests = new LinkedBlockingQueue<>();
+        this.mavenCommand = config.MavenCommand != null ? config.MavenCommand : defaultMavenCommand();
+        this.workDirectory = Paths.get(config.WorkingDirectoryPath).toAbsolutePath();
+
+        for(int i = 0; i < Math.max(1, config.NumberOfMavenWorkers); i++){
+            Path workerDirectory = workDirectory.resolve("mvn-worker-" + i);
+            Thread worker = new Thread(() -> runWorker(workerDirectory), "mvn-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    static synchronized MvnWorkerPool getInstance(MinerConfiguration config){
+        if(theInstance == null)
+            theInstance = new MvnWorkerPool(config);
+
+        return theInstance;
+    }
+
+    private static String defaultMavenCommand(){
+        return System.getProperty("os.name", "").toLowerCase().startsWith("windows") ? "mvn.cmd" : "mvn";
+    }
+
+    /**
+     * Schedules listing the direct dependencies of the given POM file. The future fails if Maven could not resolve
+     * the artifact.
+     */
+    CompletableFuture<Set<ArtifactDependency>> listDependencies(ArtifactIdentifier identifier, byte[] pomContent){
+        ListRequest request = new ListRequest(identifier, pomContent);
+        pendingRequests.add(request);
+        return request.Result;
+    }
+
+    private void runWorker(Path workerDirectory){
+        while(!Thread.currentThread().isInterrupted()){
+            List<ListRequest> batch = new ArrayList<>();
+
+            try {
+                batch.add(pendingRequests.take());
+
+                // Give other resolvers the chance to add their artifacts to this batch
+                long deadline = System.currentTimeMillis() + BatchLingerMillis;
+                while(batch.size() < MaxBatchSize){
+                    ListRequest next = pendingRequests.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                    if(next == null)
+                        break;
+                    batch.add(next);
+                }
+            } catch(InterruptedException ix){
+                Thread.currentThread().interrupt();
+            }
+
+            try {
+                resolveBatch(batch, workerDirectory);
+            } catch(Exception x){
+                log.error("Maven worker failed to process batch", x);
+            } finally {
+                for(ListRequest request : batch){
+                    request.Result.completeExceptionally(new IllegalStateException("Maven worker did not resolve artifact"));
+                }
+            }
+        }
+    }
+
+    private void resolveBatch(List<ListRequest> batch, Path workerDirectory) throws IOException, InterruptedException {
+        // Duplicate coordinates are not allowed in a reactor
+        Map<ArtifactIdentifier, List<ListRequest>> remaining = new LinkedHashMap<>();
+        for(ListRequest request : batch){
+            remaining.computeIfAbsent(request.Identifier, k -> new ArrayList<>()).add(request);
+        }
+
+        while(!remaining.isEmpty()){
+            List<ArtifactIdentifier> modules = new ArrayList<>(remaining.keySet());
+            int exitCode = runMaven(modules, remaining, workerDirectory);
+
+            Set<Integer> brokenModules = findBrokenModules(workerDirectory);
+            List<ArtifactIdentifier> unresolved = new ArrayList<>();
+
+            for(int i = 0; i < modules.size(); i++){
+                Path dependencyFile = moduleDirectory(workerDirectory, i).resolve(DependencyFileName);
+
+                if(Files.exists(dependencyFile)){
+                    List<ListRequest> requests = remaining.remove(modules.get(i));
+                    try {
+                        complete(requests, parseDependencyList(dependencyFile));
+                    } catch(RuntimeException rx){
+                        fail(requests, rx.getMessage());
+                    }
+                } else if(brokenModules.contains(i)){
+                    dumpErrorLog(workerDirectory, modules.get(i));
+                    fail(remaining.remove(modules.get(i)), "Maven failed to read POM file, exit code: " + exitCode);
+                } else {
+                    unresolved.add(modules.get(i));
+                }
+            }
+
+            if(unresolved.isEmpty())
+                return;
+
+            // Run the batch again without the broken modules
+            if(!brokenModules.isEmpty())
+                continue;
+
+            if(modules.size() > 1 && unresolved.size() == modules.size()){
+                // The failure cannot be attributed to single modules
+                for(ArtifactIdentifier identifier : unresolved){
+                    resolveBatch(remaining.remove(identifier), workerDirectory);
+                }
+            } else {
+                for(ArtifactIdentifier identifier : unresolved){
+                    dumpErrorLog(workerDirectory, identifier);
+                    fail(remaining.remove(identifier), "Got non-success exit code while invoking maven: " + exitCode);
+                }
+            }
+            return;
+        }
+    }
+
+    private int runMaven(List<ArtifactIdentifier> modules, Map<ArtifactIdentifier, List<ListRequest>> requests,
+                         Path workerDirectory) throws IOException, InterruptedException {
+        prepareWorkerDirectory(workerDirectory);
+
+        StringBuilder aggregator = new StringBuilder();
+        aggregator.append("<project><modelVersion>4.0.0</modelVersion><groupId>org.anon.vulnanalysis.worker</groupId>")
+                .append("<artifactId>batch</artifactId><version>1</version><packaging>pom</packaging><modules>");
+
+        for(int i = 0; i < modules.size(); i++){
+            Path moduleDirectory = moduleDirectory(workerDirectory, i);
+            Files.createDirectories(moduleDirectory);
+            Files.write(moduleDirectory.resolve("pom.xml"), requests.get(modules.get(i)).get(0).PomContent);
+            aggregator.append("<module>").append(moduleDirectory.getFileName()).append("</module>");
+        }
+
+        aggregator.append("</modules></project>");
+        Files.write(workerDirectory.resolve("pom.xml"), aggregator.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<String> command = new ArrayList<>(Arrays.asList(mavenCommand, "-B", "--no-transfer-progress", "--fail-at-end",
+                DependencyListGoal, "-DexcludeTransitive", "-DoutputFile=" + DependencyFileName));
+
+        // Maven must use the same repository as the other resolvers, e.g. the stand-in of a recorded run
+        String repositoryUrl = MavenCentralRepository.getRepoBasePath();
+        if(!repositoryUrl.equals(MavenCentralRepository.DefaultRepoBasePath)){
+            Path settingsFile = workerDirectory.resolve(MirrorSettingsFileName);
+            Files.write(settingsFile, buildMirrorSettings(repositoryUrl).getBytes(StandardCharsets.UTF_8));
+            command.add("--global-settings");
+            command.add(settingsFile.toString());
+        }
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(workerDirectory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(workerDirectory.resolve(BatchLogFileName).toFile());
+
+        Process process = builder.start();
+
+        if(!process.waitFor(MavenTimeoutMinutes, TimeUnit.MINUTES)){
+            process.destroyForcibly();
+            log.warn("Maven invocation for " + modules.size() + " artifacts timed out");
+            return -1;
+        }
+
+        return process.exitValue();
+    }
+
+    private static String buildMirrorSettings(String repositoryUrl){
+        return "<settings><mirrors><mirror><id>miner-repository</id><mirrorOf>*</mirrorOf><url>" + repositoryUrl +
+                "</url></mirror></mirrors></settings>";
+    }
+
+    private void prepareWorkerDirectory(Path workerDirectory) throws IOException {
+        if(Files.exists(workerDirectory)){
+            try(Stream<Path> files = Files.walk(workerDirectory)){
+                files.sorted(Comparator.reverseOrder())
+                        .map(Path::toFile)
+                        .forEach(File::delete);
+            }
+        }
+
+        Files.createDirectories(workerDirectory);
+    }
+
+    private Set<Integer> findBrokenModules(Path workerDirectory) throws IOException {
+        Set<Integer> brokenModules = new HashSet<>();
+        Path logFile = workerDirectory.resolve(BatchLogFileName);
+
+        if(!Files.exists(logFile))
+            return brokenModules;
+
+        for(String line : Files.readAllLines(logFile, StandardCharsets.ISO_8859_1)){
+            Matcher matcher = BrokenProjectPattern.matcher(line);
+
+            if(matcher.find()){
+                Path moduleDirectory = Paths.get(matcher.group(1)).getParent();
+                String moduleName = moduleDirectory != null ? moduleDirectory.getFileName().toString() : "";
+
+                if(moduleName.matches("m\\d+"))
+                    brokenModules.add(Integer.parseInt(moduleName.substring(1)));
+            }
+        }
+
+        return brokenModules;
+    }
+
+    private Set<ArtifactDependency> parseDependencyList(Path dependencyFile) throws IOException {
+        Set<ArtifactDependency> dependencies = new HashSet<>();
+        boolean foundDependencyList = false;
+
+        for(String line : Files.readAllLines(dependencyFile, StandardCharsets.UTF_8)){
+            if(line.toLowerCase().contains("the following files have been resolved:")){
+                foundDependencyList = true;
+            } else if(foundDependencyList && line.trim().length() > 0){
+                // Newer plugin versions append module information, e.g. "g:a:jar:1.0:compile -- module a"
+                String dependency = line.trim().split("\\s+")[0];
+                if(!dependency.toLowerCase().equals("none")){
+                    dependencies.add(ArtifactDependency.fromCompositeIdentifier(dependency));
+                }
+            }
+        }
+
+        return dependencies;
+    }
+
+    private void dumpErrorLog(Path workerDirectory, ArtifactIdentifier identifier){
+        try {
+            Path errorDirectory = workDirectory.resolve(identifier.getCoordinates().replace(":", "-"));
+            Files.createDirectories(errorDirectory);
+            Files.copy(workerDirectory.resolve(BatchLogFileName), errorDirectory.resolve("resolver-errors.log"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch(IOException iox){
+            log.warn("Failed to write Maven error log for " + identifier, iox);
+        }
+    }
+
+    private static Path moduleDirectory(Path workerDirectory, int index){
+        return workerDirectory.resolve("m" + index);
+    }
+
+    private static void complete(List<ListRequest> requests, Set<ArtifactDependency> dependencies){
+        for(ListRequest request : requests){
+            request.Result.complete(dependencies);
+        }
+    }
+
+    private static void fail(List<ListRequest> requests, String message){
+        for(ListRequest request : requests){
+            request.Result.completeExceptionally(new IllegalStateException(message));
+        }
+    }
+
+    private static class ListRequest {
+        final ArtifactIdentifier Identifier;
+        final byte[] PomContent;
+        final CompletableFuture<Set<ArtifactDependency>> Result;
+
+        ListRequest(ArtifactIdentifier identifier, byte[] pomContent){
+            this.Identifier = identifier;
+            this.PomContent = pomContent;
+            this.Result = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.metrics.jfr.FlightRecorderEvents;
+import org.anon.vulnanalysis.metrics.jfr.PomFetchEvent;
+import org.anon.vulnanalysis.model.ArtifactDependency;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.model.MavenCentralRepository;
+import org.anon.vulnanalysis.pom.PomContentBuffer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *  The parts of a parsed POM file that the RecursiveDependencyResolver needs: the parent reference, property
+ *  definitions and all raw (unresolved) dependency specifications with their context. Models are immutable, so a
+ *  single model can be shared by all resolvers whose artifacts inherit from (or import) the same POM.
+ */
+class PomModel {
+
+    private static final Logger log = LogManager.getLogger(PomModel.class);
+
+    final ArtifactIdentifier Identifier;
+
+    final boolean HasParentDefinition;
+    final boolean HasMultipleParentDefinitions;
+    // Null if the parent definition is incomplete
+    final ArtifactIdentifier ParentIdentifier;
+
+    final List<RawDependency> Dependencies;
+
+    private final Map<String, String> properties;
+
+    // Version and fingerprint of the last getFingerprint call, artifacts of one release ask for the same version
+    private volatile String[] lastFingerprint = null;
+
+    private PomModel(ArtifactIdentifier identifier, boolean hasParent, boolean hasMultipleParents,
+                     ArtifactIdentifier parentIdentifier, List<RawDependency> dependencies, Map<String, String> properties){
+        this.Identifier = identifier;
+        this.HasParentDefinition = hasParent;
+        this.HasMultipleParentDefinitions = hasMultipleParents;
+        this.ParentIdentifier = parentIdentifier;
+        this.Dependencies = Collections.unmodifiableList(dependencies);
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the value of the first element with the given tag name that is located inside a properties tag, or null.
+     */
+    String getPropertyValue(String propertyName){
+        return this.properties.get(propertyName);
+    }
+
+    /**
+     * Returns a hash over the entire content of this model, with all occurrences of the given version replaced by a
+     * placeholder. Models of two releases that only differ in their version have the same fingerprint.
+     */
+    String getFingerprint(String version){
+        String[] last = this.lastFingerprint;
+        if(last != null && last[0].equals(version))
+            return last[1];
+
+        StringBuilder content = new StringBuilder();
+        appendNormalized(content, Identifier, version);
+        content.append(HasParentDefinition).append('|').append(HasMultipleParentDefinitions).append('|');
+        appendNormalized(content, ParentIdentifier, version);
+
+        for(RawDependency rawDependency : Dependencies){
+            content.append(rawDependency.Context).append('|');
+            appendNormalized(content, rawDependency.Dependency, version);
+            if(rawDependency.Dependency != null)
+                appendNormalized(content, rawDependency.Dependency.Scope, version);
+        }
+
+        // Document order is not relevant for properties, the first definition is already selected
+        for(Map.Entry<String, String> property : new TreeMap<>(properties).entrySet()){
+            appendNormalized(content, property.getKey(), version);
+            appendNormalized(content, property.getValue(), version);
+        }
+
+        byte[] normalized = content.toString().getBytes(StandardCharsets.UTF_8);
+        String fingerprint = PomContentBuffer.sha1Hex(normalized, 0, normalized.length);
+        this.lastFingerprint = new String[]{ version, fingerprint };
+        return fingerprint;
+    }
+
+    private static void appendNormalized(StringBuilder content, ArtifactIdentifier identifier, String version){
+        if(identifier == null){
+            content.append('\u0001').append('|');
+            return;
+        }
+
+        appendNormalized(content, identifier.GroupId, version);
+        appendNormalized(content, identifier.ArtifactId, version);
+        appendNormalized(content, identifier.Version, version);
+    }
+
+    private static void appendNormalized(StringBuilder content, String value, String version){
+        if(value == null)
+            content.append('\u0001');
+        else
+            content.append(value.replace(version, ResolutionMemo.VersionPlaceholder));
+
+        // Separator, XML 1.0 documents cannot contain this character
+        content.append('\u0002');
+    }
+
+    /**
+     * Returns the POM files this model directly depends on: the parent and all import-scope dependencies in the
+     * dependency management. Property references in BOM coordinates are only resolved against this POM file itself,
+     * BOMs that need inherited properties are omitted.
+     */
+    List<ArtifactIdentifier> getReferencedPomFiles(){
+        List<ArtifactIdentifier> references = new ArrayList<>();
+
+        if(ParentIdentifier != null)
+            references.add(ParentIdentifier);
+
+        for(RawDependency rawDependency : Dependencies){
+            ArtifactDependency dependency = rawDependency.Dependency;
+
+            if(dependency != null && rawDependency.Context == DependencyElementContext.DEPENDENCY_MANAGEMENT &&
+                    "import".equalsIgnoreCase(dependency.Scope) && dependency.Version != null){
+                String groupId = resolveLocalReferences(dependency.GroupId);
+                String artifactId = resolveLocalReferences(dependency.ArtifactId);
+                String version = resolveLocalReferences(dependency.Version);
+
+                if(groupId != null && artifactId != null && version != null)
+                    references.add(new ArtifactIdentifier(groupId, artifactId, version));
+            }
+        }
+
+        return references;
+    }
+
+    private String resolveLocalReferences(String value){
+        // Bounded, properties may reference each other in cycles
+        for(int i = 0; value.contains("${") && i < 10; i++){
+            int start = value.indexOf("${");
+            int end = value.indexOf('}', start);
+
+            if(end < 0)
+                return null;
+
+            String propertyName = value.substring(start + 2, end);
+            String propertyValue;
+
+            switch(propertyName){
+                case "project.version":
+                case "pom.version":
+                case "version":
+                    propertyValue = Identifier.Version;
+                    break;
+                case "project.groupId":
+                case "pom.groupId":
+                    propertyValue = Identifier.GroupId;
+                    break;
+                case "project.parent.version":
+                    propertyValue = ParentIdentifier != null ? ParentIdentifier.Version : null;
+                    break;
+                default:
+                    propertyValue = getPropertyValue(propertyName);
+            }
+
+            if(propertyValue == null)
+                return null;
+
+            value = value.substring(0, start) + propertyValue + value.substring(end + 1);
+        }
+
+        return value.contains("${") ? null : value;
+    }
+
+    /**
+     * Downloads and parses the POM file of the given artifact. Returns null if the file cannot be parsed, throws a
+     * FileNotFoundException if the file is not available on Maven Central. Files that do not exist are remembered in
+     * the MissingPomCache, so that they are not requested again.
+     */
+    static PomModel load(ArtifactIdentifier identifier) throws Exception {
+        MissingPomCache missingPoms = MissingPomCache.getInstance();
+
+        if(missingPoms.isKnownMissing(identifier)){
+            if(FlightRecorderEvents.Available)
+                new PomFetchEvent().complete(identifier, true, 0, HttpURLConnection.HTTP_NOT_FOUND);
+            throw new FileNotFoundException("POM definition not found on Maven Central: " + identifier);
+        }
+
+        InputStream pomStream;
+
+        try {
+            pomStream = MavenCentralRepository.getInstance().openPomFileInputStreamOrFail(identifier);
+        } catch(FileNotFoundException fnfx){
+            missingPoms.markMissing(identifier);
+            throw new FileNotFoundException("POM definition not found on Maven Central: " + identifier);
+        } catch(IOException iox){
+            // Transient failures are reported like missing files, but not remembered
+            log.debug("Failed to download POM file of " + identifier, iox);
+            throw new FileNotFoundException("POM definition not found on Maven Central: " + identifier);
+        }
+
+        try {
+            Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(pomStream);
+            return fromDocument(identifier, doc);
+        } catch(SAXException | IOException x){
+            log.debug("Failed to parse POM file of " + identifier, x);
+            return null;
+        } finally {
+            pomStream.close();
+        }
+    }
+
+    static PomModel fromDocument(ArtifactIdentifier identifier, Document doc){
+        NodeList parentElems = doc.getDocumentElement().getElementsByTagName("parent");
+        boolean hasParent = parentElems.getLength() > 0;
+        ArtifactIdentifier parentIdentifier = hasParent ? readParentIdentifier((Element) parentElems.item(0)) : null;
+
+        Map<String, String> properties = new HashMap<>();
+        NodeList allElements = doc.getElementsByTagName("*");
+
+        // Document order, the first definition of a property wins
+        for(int i = 0; i < allElements.getLength(); i++){
+            Node currentNode = allElements.item(i);
+            if(currentNode instanceof Element &&
+                    currentNode.getParentNode() instanceof Element &&
+                    ((Element)currentNode.getParentNode()).getTagName().toLowerCase().equals("properties")){
+                properties.putIfAbsent(((Element) currentNode).getTagName(), currentNode.getTextContent().trim());
+            }
+        }
+
+        List<RawDependency> dependencies = new ArrayList<>();
+        NodeList dependencyElements = doc.getElementsByTagName("dependency");
+
+        for(int i = 0; i < dependencyElements.getLength(); i++){
+            Node currentNode = dependencyElements.item(i);
+
+            if(currentNode instanceof Element){
+                Element currentDependencyElement = (Element)currentNode;
+                dependencies.add(new RawDependency(readDependency(currentDependencyElement),
+                        determineDependencyElementContext(currentDependencyElement)));
+            }
+        }
+
+        return new PomModel(identifier, hasParent, parentElems.getLength() > 1, parentIdentifier, dependencies,
+                properties);
+    }
+
+    private static ArtifactIdentifier readParentIdentifier(Element parentElem){
+        NodeList children = parentElem.getChildNodes();
+        String groupId = null, artifactId = null, version = null;
+
+        for(int i = 0; i < children.getLength(); i++){
+            Node n = children.item(i);
+
+            if(n.getNodeType() != Node.ELEMENT_NODE)
+                continue;
+
+            Element currChild = (Element)n;
+
+            switch(currChild.getTagName().toLowerCase()){
+                case "groupid":
+                    groupId = currChild.getTextContent().trim();
+                    break;
+                case "artifactid":
+                    artifactId = currChild.getTextContent().trim();
+                    break;
+                case "version":
+                    version = currChild.getTextContent().trim();
+                    break;
+            }
+        }
+
+        if(groupId == null || artifactId == null || version == null){
+            return null;
+        }
+
+        return new ArtifactIdentifier(groupId, artifactId, version);
+    }
+
+    private static ArtifactDependency readDependency(Element dependencyElement){
+        String groupId = null, artifactId = null, version = null, scope = null;
+        NodeList childNodes = dependencyElement.getChildNodes();
+
+        for(int i = 0; i < childNodes.getLength(); i++){
+            Node childNode = childNodes.item(i);
+
+            if(childNode instanceof Element){
+                Element childElem = (Element)childNode;
+                switch(childElem.getTagName().toLowerCase()){
+                    case "groupid":
+                        groupId = childElem.getTextContent().trim();
+                        break;
+                    case "artifactid":
+                        artifactId = childElem.getTextContent().trim();
+                        break;
+                    case "version":
+                        version = childElem.getTextContent().trim();
+                        break;
+                    case "scope":
+                        scope = childElem.getTextContent().trim();
+                        break;
+                }
+            }
+        }
+
+        if(groupId == null || artifactId == null){
+            return null;
+        }
+
+        return new ArtifactDependency(groupId, artifactId, version, scope);
+    }
+
+    private static DependencyElementContext determineDependencyElementContext(Element dependencyElem){
+        Node parentNode = dependencyElem.getParentNode();
+
+        while(parentNode != null){
+            if(parentNode instanceof Element){
+                String tagname = ((Element)parentNode).getTagName().toLowerCase();
+                switch (tagname) {
+                    case "dependencymanagement":
+                        return DependencyElementContext.DEPENDENCY_MANAGEMENT;
+                    case "plugin":
+                        return DependencyElementContext.PLUGIN_DEPENDENCY;
+                    case "profile":
+                        return DependencyElementContext.PROFILE_PROJECT_DEPENDENCY;
+                }
+            }
+            parentNode = parentNode.getParentNode();
+        }
+
+        return DependencyElementContext.PROJECT_DEPENDENCY;
+    }
+
+    static class RawDependency {
+        // Null if the dependency specification is incomplete
+        final ArtifactDependency Dependency;
+        final DependencyElementContext Context;
+
+        RawDependency(ArtifactDependency dependency, DependencyElementContext context){
+            this.Dependency = dependency;
+            this.Context = context;
+        }
+    }
+
+    enum DependencyElementContext {
+        DEPENDENCY_MANAGEMENT, PLUGIN_DEPENDENCY, PROJECT_DEPENDENCY, PROFILE_PROJECT_DEPENDENCY
+    }
+}
@@ -0,0 +1,178 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.metrics.jfr.FlightRecorderEvents;
+import org.anon.vulnanalysis.metrics.jfr.PomFetchEvent;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ *  Bounded LRU cache of parsed POM models, shared by all resolver instances. Most artifacts on Maven Central inherit
+ *  from a small set of parent POMs and import a small set of BOMs, with this cache those are downloaded and parsed
+ *  roughly once instead of once per child. Concurrent requests for the same missing model wait for a single load.
+ */
+public class PomModelCache {
+
+    public static final int DefaultCapacity = 10000;
+
+    private static final PomModelCache theInstance = new PomModelCache();
+
+    private final Map<ArtifactIdentifier, PomModel> models;
+    private final ConcurrentHashMap<ArtifactIdentifier, CompletableFuture<PomModel>> loadsInProgress;
+
+    private volatile int capacity;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    private PomModelCache(){
+        this.capacity = DefaultCapacity;
+        this.loadsInProgress = new ConcurrentHashMap<>();
+        this.models = new LinkedHashMap<ArtifactIdentifier, PomModel>(1024, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ArtifactIdentifier, PomModel> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Sets the maximum number of cached models, a capacity of zero disables caching.
+     */
+    public void setCapacity(int capacity){
+        if(capacity < 0)
+            throw new IllegalArgumentException("Cache capacity must not be negative");
+
+        this.capacity = capacity;
+
+        synchronized (models){
+            if(capacity == 0)
+                models.clear();
+        }
+    }
+
+    public boolean isEnabled(){
+        return this.capacity > 0;
+    }
+
+    /**
+     * Returns the cached model for the given identifier, or uses the loader to create it. Exceptions of the loader are
+     * passed on to all callers waiting for the same model, failed loads are not cached.
+     */
+    PomModel getOrLoad(ArtifactIdentifier identifier, Callable<PomModel> loader) throws Exception {
+        if(!isEnabled())
+            return loader.call();
+
+        synchronized (models){
+            PomModel model = models.get(identifier);
+
+            if(model != null){
+                hits++;
+                if(FlightRecorderEvents.Available)
+                    new PomFetchEvent().complete(identifier, true, 0, 0);
+                return model;
+            }
+
+            misses++;
+        }
+
+        CompletableFuture<PomModel> newLoad = new CompletableFuture<>();
+        CompletableFuture<PomModel> existingLoad = loadsInProgress.putIfAbsent(identifier, newLoad);
+
+        if(existingLoad != null){
+            try {
+                return existingLoad.get();
+            } catch(ExecutionException ex){
+                if(ex.getCause() instanceof Exception)
+                    throw (Exception) ex.getCause();
+                throw ex;
+            }
+        }
+
+        try {
+            PomModel model = loader.call();
+
+            if(model != null)
+                put(model);
+
+            newLoad.complete(model);
+            return model;
+        } catch(Exception x){
+            newLoad.completeExceptionally(x);
+            throw x;
+        } finally {
+            loadsInProgress.remove(identifier);
+        }
+    }
+
+    /**
+     * Makes sure the model of the given POM file is cached, and returns the POM files it references (parent and
+     * imported BOMs). Failures are ignored, they are reported once the model is actually needed by a resolver.
+     */
+    public List<ArtifactIdentifier> preload(ArtifactIdentifier identifier){
+        try {
+            PomModel model = getOrLoad(identifier, () -> PomModel.load(identifier));
+            return model != null ? model.getReferencedPomFiles() : Collections.emptyList();
+        } catch(Exception x){
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Returns true if the given model is cached or currently being loaded. Does not count as a cache access.
+     */
+    boolean isCachedOrLoading(ArtifactIdentifier identifier){
+        if(loadsInProgress.containsKey(identifier))
+            return true;
+
+        synchronized (models){
+            return models.containsKey(identifier);
+        }
+    }
+
+    void put(PomModel model){
+        if(!isEnabled())
+            return;
+
+        synchronized (models){
+            models.put(model.Identifier, model);
+        }
+    }
+
+    public void clear(){
+        synchronized (models){
+            models.clear();
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    public int size(){
+        synchronized (models){
+            return models.size();
+        }
+    }
+
+    public long getHits(){
+        synchronized (models){
+            return hits;
+        }
+    }
+
+    public long getMisses(){
+        synchronized (models){
+            return misses;
+        }
+    }
+
+    public static PomModelCache getInstance(){
+        return theInstance;
+    }
+}
@@ -2,20 +2,26 @@ package org.anon.vulnanalysis.pom.dependencies;
 
 import org.anon.vulnanalysis.model.ArtifactDependency;
 import org.anon.vulnanalysis.model.ArtifactIdentifier;
-import org.anon.vulnanalysis.model.MavenCentralRepository;
+import org.anon.vulnanalysis.model.IdentifierDictionary;
+import org.anon.vulnanalysis.metrics.Histogram;
+import org.anon.vulnanalysis.metrics.MetricsRegistry;
+import org.anon.vulnanalysis.metrics.jfr.BomExpansionEvent;
+import org.anon.vulnanalysis.metrics.jfr.FlightRecorderEvents;
+import org.anon.vulnanalysis.metrics.jfr.ParentChainEvent;
 import org.anon.vulnanalysis.utils.MinerConfiguration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.anon.vulnanalysis.pom.dependencies.PomModel.DependencyElementContext;
+import org.anon.vulnanalysis.pom.dependencies.PomModel.RawDependency;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  *  A dependency resolver implementation that uses XML parsing and on-demand loading of referenced POM files to
@@ -26,23 +32,47 @@ import java.util.*;
  *      -   When resolving property values, this implementation only takes into account the parent hierarchy and directly
  *          linked "import"-scope dependencies. However, a property may be defined in the parent hierarchy of an
  *          "import"-scope dependency, which is not considered in this implementation.
+ *
+ *  Parsed parent and import POMs are shared between resolver instances via the PomModelCache.
+ *
+ *  If fetch threads are configured, POM files of the hierarchy that do not depend on each other (BOMs of the different
+ *  levels, multiple BOMs on the same level) are loaded concurrently as soon as their coordinates are known. The resolver
+ *  itself still consumes the models in the original order, so results and errors do not depend on download timing.
+ *
+ *  Instances can be reused for multiple artifacts, one at a time, see RecursiveDependencyResolverService.
  */
 public class RecursiveDependencyResolver extends DependencyResolver {
 
+    private static final PomModelCache ModelCache = PomModelCache.getInstance();
+
+    // Values with more references are treated as cyclic
+    private static final int MaxReferenceExpansions = 32;
+
+    private static final Histogram ParseTime = MetricsRegistry.getInstance().stageDuration("parse");
+    private static final Histogram ParentChainTime = MetricsRegistry.getInstance().stageDuration("parent_chain");
+    private static final Histogram BomExpansionTime = MetricsRegistry.getInstance().stageDuration("bom_expansion");
+
+    // Shared by all resolver instances, null if concurrent fetching is disabled
+    private static ExecutorService FetchPool = null;
+
     private DocumentBuilderFactory builderFactory;
-    private List<Document> parsedPomFileHierarchy;
+    private DocumentBuilder documentBuilder;
+
+    private List<PomModel> parsedPomFileHierarchy;
     private List<ArtifactIdentifier> parentIdentifierHierarchy;
 
-    private Hashtable<Integer, HashSet<DependencySpec>> dependencySpecsPerHierarchyLevel;
-    private Hashtable<Integer, HashSet<DependencySpec>> dependencyManagementSpecsPerHierarchyLevel;
+    private Map<Integer, HashSet<DependencySpec>> dependencySpecsPerHierarchyLevel;
+    private Map<Integer, HashSet<DependencySpec>> dependencyManagementSpecsPerHierarchyLevel;
 
-    private Hashtable<Integer, List<Document>> importScopeDocuments;
-    private Hashtable<Integer, List<ArtifactIdentifier>> importScopeIdentifiers;
+    private Map<Integer, List<PomModel>> importScopeDocuments;
+    private Map<Integer, List<ArtifactIdentifier>> importScopeIdentifiers;
 
     private Set<ArtifactDependency> finalDependencySpecs;
 
     private ResolverResult result;
 
+    private boolean inUse = false;
+
     private Logger log = LogManager.getLogger(RecursiveDependencyResolver.class);
 
     public RecursiveDependencyResolver(InputStream pomFileStream, ArtifactIdentifier identifier, MinerConfiguration config){
@@ -55,14 +85,68 @@ public class RecursiveDependencyResolver extends DependencyResolver {
         parentIdentifierHierarchy = new ArrayList<>();
 
         // Intermediate dictionaries for storing dependency specifications associated to their level in the parent hierarchy
-        dependencySpecsPerHierarchyLevel = new Hashtable<>();
-        dependencyManagementSpecsPerHierarchyLevel = new Hashtable<>();
+        dependencySpecsPerHierarchyLevel = new HashMap<>();
+        dependencyManagementSpecsPerHierarchyLevel = new HashMap<>();
 
-        importScopeDocuments = new Hashtable<>();
-        importScopeIdentifiers = new Hashtable<>();
+        importScopeDocuments = new HashMap<>();
+        importScopeIdentifiers = new HashMap<>();
 
         // Final (flat) list of dependencies with resolved versions
         finalDependencySpecs = new HashSet<>();
+
+        initializeFetchPool(config);
+    }
+
+    private static synchronized void initializeFetchPool(MinerConfiguration config){
+        if(FetchPool == null && config.NumberOfFetchThreads > 0){
+            FetchPool = Executors.newFixedThreadPool(config.NumberOfFetchThreads, r -> {
+                Thread t = new Thread(r, "pom-fetcher");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    boolean isInUse(){
+        return inUse;
+    }
+
+    /**
+     * Prepares this instance for resolving the given artifact, discarding all state of the previous artifact. Passing
+     * null releases the references to the previous artifact.
+     */
+    void reset(InputStream pomFileStream, ArtifactIdentifier identifier){
+        this.pomFileInputStream = pomFileStream;
+        this.identifier = identifier;
+        this.inUse = identifier != null;
+
+        parsedPomFileHierarchy.clear();
+        parentIdentifierHierarchy.clear();
+        dependencySpecsPerHierarchyLevel.clear();
+        dependencyManagementSpecsPerHierarchyLevel.clear();
+        importScopeDocuments.clear();
+        importScopeIdentifiers.clear();
+
+        // Handed out with the result of the previous artifact
+        finalDependencySpecs = new HashSet<>();
+
+        this.result = null;
+    }
+
+    /**
+     * Returns the models of all parent and import POMs the last resolution was based on, in the order they were used.
+     */
+    List<PomModel> getReferencedModels(){
+        List<PomModel> models = new ArrayList<>(parsedPomFileHierarchy.subList(Math.min(1, parsedPomFileHierarchy.size()),
+                parsedPomFileHierarchy.size()));
+
+        for(int level = 0; level < parsedPomFileHierarchy.size(); level++){
+            List<PomModel> importScopeDocsOnLevel = importScopeDocuments.get(level);
+            if(importScopeDocsOnLevel != null)
+                models.addAll(importScopeDocsOnLevel);
+        }
+
+        return models;
     }
 
     @Override
@@ -70,12 +154,24 @@ public class RecursiveDependencyResolver extends DependencyResolver {
         this.result = new ResolverResult(this.identifier);
 
         try{
-            Document pomDoc = parseXml(this.pomFileInputStream);
-            if(pomDoc != null){
+            long parseStart = System.nanoTime();
+            Document rootDoc = parseXml(this.pomFileInputStream);
+            ParseTime.observeSince(parseStart);
+            if(rootDoc != null){
+                PomModel pomDoc = PomModel.fromDocument(identifier, rootDoc);
+                // Artifacts may be parents or BOMs of artifacts that are resolved later on
+                ModelCache.put(pomDoc);
+
                 // Construct the Parent Hierarchy for this document
                 parsedPomFileHierarchy.add(pomDoc);
                 parentIdentifierHierarchy.add(identifier);
+
+                long parentChainStart = System.nanoTime();
+                ParentChainEvent parentChainEvent = FlightRecorderEvents.Available ? new ParentChainEvent() : null;
                 buildPomFileHierarchy(pomDoc);
+                ParentChainTime.observeSince(parentChainStart);
+                if(parentChainEvent != null)
+                    parentChainEvent.complete(identifier, parentIdentifierHierarchy.size() - 1);
 
                 // Set direct parent in result
                 if(parentIdentifierHierarchy.size() > 1){
@@ -87,7 +183,12 @@ public class RecursiveDependencyResolver extends DependencyResolver {
 
                 // Iterate all dependency management specs and detect dependencies with scope "import". Resolve them
                 // and add their content to separate intermediate dictionaries.
+                long bomExpansionStart = System.nanoTime();
+                BomExpansionEvent bomExpansionEvent = FlightRecorderEvents.Available ? new BomExpansionEvent() : null;
                 expandImportScopeDependencies();
+                BomExpansionTime.observeSince(bomExpansionStart);
+                if(bomExpansionEvent != null)
+                    bomExpansionEvent.complete(identifier, countImportedBoms());
 
                 // Use intermediate dictionaries to resolve missing versions / resolve property definitions
                 resolveDependencyVersionsInHierarchy(0);
@@ -106,14 +207,16 @@ public class RecursiveDependencyResolver extends DependencyResolver {
     private ArtifactDependency fullyResolveDependency(DependencySpec dependencySpec, int declarationLevel){
         ArtifactDependency dependency = dependencySpec.Dependency;
 
-        dependency.GroupId = resolveAllReferencesInValue(dependency.GroupId, dependencySpec, declarationLevel);
-        if(dependency.GroupId == null)
+        String groupId = resolveAllReferencesInValue(dependency.GroupId, dependencySpec, declarationLevel);
+        if(groupId == null)
             return null;
 
-        dependency.ArtifactId = resolveAllReferencesInValue(dependency.ArtifactId, dependencySpec, declarationLevel);
-        if(dependency.ArtifactId == null)
+        String artifactId = resolveAllReferencesInValue(dependency.ArtifactId, dependencySpec, declarationLevel);
+        if(artifactId == null)
             return null;
 
+        String version;
+
         if(dependency.Version == null){
             DependencySpec specWithVersion = resolveMissingVersion(dependencySpec, declarationLevel);
             if(specWithVersion == null){
@@ -132,18 +235,21 @@ public class RecursiveDependencyResolver extends DependencyResolver {
                 return null;
             }
 
-            dependency.Version = resolvedVersion;
+            version = resolvedVersion;
         } else {
-            dependency.Version = resolveAllReferencesInValue(dependency.Version, dependencySpec, declarationLevel);
+            version = resolveAllReferencesInValue(dependency.Version, dependencySpec, declarationLevel);
         }
 
-        if(dependency.Version == null)
+        if(version == null)
             return null;
 
-        if(dependency.Scope == null)
-            dependency.Scope = "compile"; //Default scope
+        String scope = dependency.Scope;
+        if(scope == null)
+            scope = IdentifierDictionary.ScopeCompile; //Default scope
 
-        return dependency;
+        // Identifiers are immutable, the spec keeps the resolved dependency from now on
+        dependencySpec.Dependency = new ArtifactDependency(groupId, artifactId, version, scope);
+        return dependencySpec.Dependency;
     }
 
     private void resolveDependencyVersionsInHierarchy(int level){
@@ -177,7 +283,13 @@ public class RecursiveDependencyResolver extends DependencyResolver {
         if(!value.contains("${"))
             return value;
 
-        while(value.contains("${")){
+        // Bounded, properties may reference each other in cycles
+        for(int i = 0; value.contains("${"); i++){
+            if(i == MaxReferenceExpansions){
+                this.result.appendError(new ResolverError.ParsingRelatedResolverError("Cyclic property reference", value));
+                return null;
+            }
+
             String reference = value.substring(value.indexOf("${"), value.indexOf("}") + 1);
             String expandedValue = resolvePropertyValue(reference, depSpec, startLevel);
 
@@ -193,7 +305,7 @@ public class RecursiveDependencyResolver extends DependencyResolver {
     }
 
     private String resolvePropertyValueInDocument(String propertyName, ArtifactIdentifier documentIdentifier,
-                                                  ArtifactIdentifier parentIdentifier, Document doc, DependencySpec specifiedIn){
+                                                  ArtifactIdentifier parentIdentifier, PomModel doc, DependencySpec specifiedIn){
 
         // Deprecated built-in property 'version'
         if(specifiedIn.DeclaredIn.equals(documentIdentifier) && propertyName.toLowerCase().equals("version")){
@@ -224,18 +336,7 @@ public class RecursiveDependencyResolver extends DependencyResolver {
             }
         }
 
-        NodeList matchingNodes = doc.getElementsByTagName(propertyName);
-        for(int j = 0; j < matchingNodes.getLength(); j++){
-            Node currentNode = matchingNodes.item(j);
-            if(currentNode instanceof Element &&
-                    currentNode.getParentNode() instanceof Element &&
-                    ((Element)currentNode.getParentNode()).getTagName().toLowerCase().equals("properties")){
-                return currentNode.getTextContent().trim();
-            }
-        }
-
-
-        return null;
+        return doc.getPropertyValue(propertyName);
     }
 
 
@@ -245,7 +346,7 @@ public class RecursiveDependencyResolver extends DependencyResolver {
         String propertyName = propertyReference.substring(2, propertyReference.length()-1);
 
         for(int i = startLevel; i < parsedPomFileHierarchy.size(); i++){
-            Document mainDoc = parsedPomFileHierarchy.get(i);
+            PomModel mainDoc = parsedPomFileHierarchy.get(i);
             ArtifactIdentifier mainIdentifier = parentIdentifierHierarchy.get(i);
             ArtifactIdentifier parentIdentifier = null;
             if(i < parsedPomFileHierarchy.size() - 1){
@@ -257,11 +358,11 @@ public class RecursiveDependencyResolver extends DependencyResolver {
             if(result != null)
                 return result;
 
-            List<Document> importScopeDocsOnLevel = importScopeDocuments.get(i);
+            List<PomModel> importScopeDocsOnLevel = importScopeDocuments.get(i);
 
             if(importScopeDocsOnLevel != null && !importScopeDocsOnLevel.isEmpty()){
                 for(int j = 0; j < importScopeDocsOnLevel.size(); j++){
-                    Document importDoc =  importScopeDocsOnLevel.get(j);
+                    PomModel importDoc =  importScopeDocsOnLevel.get(j);
                     ArtifactIdentifier importIdent = importScopeIdentifiers.get(i).get(j);
                     // We do not recurse to parents for import scope dependencies
                     result = resolvePropertyValueInDocument(propertyName, importIdent, null, importDoc, depSpec);
@@ -288,8 +389,16 @@ public class RecursiveDependencyResolver extends DependencyResolver {
                 // It seems that some people actually user property refs in artifact identifiers, which are inside a
                 // <dependencyManagement> tag. We resolve those here on-demand, we don't want to resolve the entire
                 // management specifications, that would certainly produce a few resolver errors.
-                dep.GroupId = resolveAllReferencesInValue(dep.GroupId, incompleteDependency, startLevel);
-                dep.ArtifactId = resolveAllReferencesInValue(dep.ArtifactId, incompleteDependency, startLevel);
+                String groupId = resolveAllReferencesInValue(dep.GroupId, incompleteDependency, startLevel);
+                String artifactId = resolveAllReferencesInValue(dep.ArtifactId, incompleteDependency, startLevel);
+
+                if(groupId == null)
+                    continue; // Error is already reported
+
+                if(!groupId.equals(dep.GroupId) || !Objects.equals(artifactId, dep.ArtifactId)){
+                    dep = new ArtifactDependency(groupId, artifactId, dep.Version, dep.Scope);
+                    managementSpec.Dependency = dep;
+                }
 
                 if(dep.GroupId.equals(incompleteDependency.Dependency.GroupId)){
                     if(dep.ArtifactId != null && dep.ArtifactId.equals(incompleteDependency.Dependency.ArtifactId) &&
@@ -312,40 +421,32 @@ public class RecursiveDependencyResolver extends DependencyResolver {
         return null;
     }
 
-    private void processRawDependenciesInDocument(Document doc, int level, ArtifactIdentifier docIdent, boolean isImportDependency){
-        NodeList dependenciesInCurrentPom = doc.getElementsByTagName("dependency");
+    private void processRawDependenciesInDocument(PomModel doc, int level, ArtifactIdentifier docIdent, boolean isImportDependency){
+        for(RawDependency rawDependency : doc.Dependencies){
+            ArtifactDependency dependency = rawDependency.Dependency;
+            DependencyElementContext context = rawDependency.Context;
 
-        for(int i = 0; i < dependenciesInCurrentPom.getLength(); i++){
-            Node currentNode = dependenciesInCurrentPom.item(i);
-
-            if(currentNode instanceof Element){
-                Element currentDependencyElement = (Element)currentNode;
-                ArtifactDependency dependency = readDependency(currentDependencyElement);
-
-                DependencyElementContext context = determineDependencyElementContext(currentDependencyElement);
-
-                if(dependency == null && (context == DependencyElementContext.DEPENDENCY_MANAGEMENT ||
-                        context == DependencyElementContext.PROJECT_DEPENDENCY ||
-                        (context == DependencyElementContext.PROFILE_PROJECT_DEPENDENCY && config.IncludeDependenciesInProfileDefinitions))){
-                    ResolverError error = new ResolverError.ParsingRelatedResolverError(
-                            "Incomplete dependency specification found in artifact POM.", docIdent.toString());
-                    this.result.appendError(error);
-                    continue;
-                }
+            if(dependency == null && (context == DependencyElementContext.DEPENDENCY_MANAGEMENT ||
+                    context == DependencyElementContext.PROJECT_DEPENDENCY ||
+                    (context == DependencyElementContext.PROFILE_PROJECT_DEPENDENCY && config.IncludeDependenciesInProfileDefinitions))){
+                ResolverError error = new ResolverError.ParsingRelatedResolverError(
+                        "Incomplete dependency specification found in artifact POM.", docIdent.toString());
+                this.result.appendError(error);
+                continue;
+            }
 
-                DependencySpec spec = new DependencySpec(dependency, docIdent, isImportDependency);
+            DependencySpec spec = new DependencySpec(dependency, docIdent, isImportDependency);
 
-                if(context == DependencyElementContext.DEPENDENCY_MANAGEMENT){
-                    this.dependencyManagementSpecsPerHierarchyLevel.get(level).add(spec);
-                }
-                else if(context == DependencyElementContext.PROFILE_PROJECT_DEPENDENCY && config.IncludeDependenciesInProfileDefinitions){
-                    this.dependencySpecsPerHierarchyLevel.get(level).add(spec);
-                }
-                else if(context == DependencyElementContext.PROJECT_DEPENDENCY){
-                    this.dependencySpecsPerHierarchyLevel.get(level).add(spec);
-                }
-                //Drop plugin dependencies
+            if(context == DependencyElementContext.DEPENDENCY_MANAGEMENT){
+                this.dependencyManagementSpecsPerHierarchyLevel.get(level).add(spec);
+            }
+            else if(context == DependencyElementContext.PROFILE_PROJECT_DEPENDENCY && config.IncludeDependenciesInProfileDefinitions){
+                this.dependencySpecsPerHierarchyLevel.get(level).add(spec);
             }
+            else if(context == DependencyElementContext.PROJECT_DEPENDENCY){
+                this.dependencySpecsPerHierarchyLevel.get(level).add(spec);
+            }
+            //Drop plugin dependencies
         }
     }
 
@@ -369,85 +470,38 @@ public class RecursiveDependencyResolver extends DependencyResolver {
     }
 
 
-    private DependencyElementContext determineDependencyElementContext(Element dependencyElem){
-        Node parentNode = dependencyElem.getParentNode();
-
-        while(parentNode != null){
-            if(parentNode instanceof Element){
-                String tagname = ((Element)parentNode).getTagName().toLowerCase();
-                switch (tagname) {
-                    case "dependencymanagement":
-                        return DependencyElementContext.DEPENDENCY_MANAGEMENT;
-                    case "plugin":
-                        return DependencyElementContext.PLUGIN_DEPENDENCY;
-                    case "profile":
-                        return DependencyElementContext.PROFILE_PROJECT_DEPENDENCY;
-                }
-            }
-            parentNode = parentNode.getParentNode();
-        }
-
-        return DependencyElementContext.PROJECT_DEPENDENCY;
-    }
-
-    private ArtifactDependency readDependency(Element dependencyElement){
-        ArtifactDependency dependency =
-                new ArtifactDependency(null, null, null, null);
-        NodeList childNodes = dependencyElement.getChildNodes();
-
-        for(int i = 0; i < childNodes.getLength(); i++){
-            Node childNode = childNodes.item(i);
-
-            if(childNode instanceof Element){
-                Element childElem = (Element)childNode;
-                switch(childElem.getTagName().toLowerCase()){
-                    case "groupid":
-                        dependency.GroupId = childElem.getTextContent().trim();
-                        break;
-                    case "artifactid":
-                        dependency.ArtifactId = childElem.getTextContent().trim();
-                        break;
-                    case "version":
-                        dependency.Version = childElem.getTextContent().trim();
-                        break;
-                    case "scope":
-                        dependency.Scope = childElem.getTextContent().trim();
-                        break;
-                }
-            }
-        }
-
-        if(dependency.GroupId == null || dependency.ArtifactId == null){
-            return null;
-        }
-
-        return dependency;
-    }
-
-    private void buildPomFileHierarchy(Document rootPom){
-        Document currentDoc = rootPom;
+    private void buildPomFileHierarchy(PomModel rootPom){
+        PomModel currentDoc = rootPom;
+        fetchReferencedImportPoms(rootPom);
 
-        while(hasParentDefinition(currentDoc)){
-            ArtifactIdentifier currentIdent = this.parentIdentifierHierarchy.get(this.parentIdentifierHierarchy.size() - 1);
-            ArtifactIdentifier parentIdent = getParentIdentifier(currentDoc, currentIdent);
+        while(currentDoc.HasParentDefinition){
+            ArtifactIdentifier parentIdent = getParentIdentifier(currentDoc);
 
             if(parentIdent == null){
                 // Error object already created
                 throw new RuntimeException("Critical resolver error: Parent POM reference invalid");
             }
 
-            InputStream parentPomStream = MavenCentralRepository.getInstance().openPomFileInputStream(parentIdent);
+            if(parentIdentifierHierarchy.contains(parentIdent)){
+                ResolverError error = new ResolverError.ParsingRelatedResolverError("Cycle in parent POM hierarchy",
+                        parentIdent.toString());
+                this.result.appendError(error);
+                throw new RuntimeException("Critical resolver error: Parent POM hierarchy contains a cycle");
+            }
 
-            if(parentPomStream == null){
+            PomModel parentDoc;
+
+            try {
+                parentDoc = loadPomModel(parentIdent);
+            } catch(FileNotFoundException fnfx){
                 ResolverError error = new ResolverError("Parent POM not found on Maven Central: " + parentIdent.toString(),
                         true);
                 this.result.appendError(error);
                 throw new RuntimeException("Critical resolver error: Parent POM definition not found on Maven Central");
             }
 
-            Document parentDoc = parseXml(parentPomStream);
-
             if(parentDoc != null){
+                fetchReferencedImportPoms(parentDoc);
                 parsedPomFileHierarchy.add(parentDoc);
                 parentIdentifierHierarchy.add(parentIdent);
                 currentDoc = parentDoc;
@@ -463,49 +517,98 @@ public class RecursiveDependencyResolver extends DependencyResolver {
         }
     }
 
-    private boolean hasParentDefinition(Document doc){
-        return doc.getDocumentElement().getElementsByTagName("parent").getLength() > 0;
+    private ArtifactIdentifier getParentIdentifier(PomModel doc){
+        if(doc.HasMultipleParentDefinitions) {
+            log.warn("More than one parent element detected for artifact: " + doc.Identifier.toString());
+        }
+
+        if(doc.ParentIdentifier == null){
+            ResolverError error = new ResolverError("Incomplete parent definition in POM file", false);
+            this.result.appendError(error);
+            return null;
+        }
+
+        return doc.ParentIdentifier;
     }
 
-    private ArtifactIdentifier getParentIdentifier(Document doc, ArtifactIdentifier currentIdentifier){
-        NodeList parentElems = doc.getDocumentElement().getElementsByTagName("parent");
+    /**
+     * Returns the (possibly cached) model of the given POM file, or null if it could not be parsed. Throws a
+     * FileNotFoundException if the POM file is not available on Maven Central.
+     */
+    private PomModel loadPomModel(ArtifactIdentifier dependencyIdent) throws FileNotFoundException {
+        // Import-scope dependencies carry a scope, models are cached by their plain GAV
+        ArtifactIdentifier ident = dependencyIdent.getClass() == ArtifactIdentifier.class ? dependencyIdent :
+                new ArtifactIdentifier(dependencyIdent.GroupId, dependencyIdent.ArtifactId, dependencyIdent.Version);
+
+        try {
+            return ModelCache.getOrLoad(ident, () -> PomModel.load(ident));
+        } catch(FileNotFoundException fnfx){
+            throw fnfx;
+        } catch(Exception x){
+            log.debug("Failed to load POM model for " + ident, x);
+            return null;
+        }
+    }
 
-        if(parentElems.getLength() > 1) {
-            log.warn("More than one parent element detected for artifact: " + currentIdentifier.toString());
+    /**
+     * Starts loading all import POMs of the given document whose coordinates do not depend on other POM files, while
+     * the parent hierarchy is still being walked.
+     */
+    private void fetchReferencedImportPoms(PomModel doc){
+        if(FetchPool == null || !ModelCache.isEnabled())
+            return;
+
+        for(ArtifactIdentifier reference : doc.getReferencedPomFiles()){
+            if(!reference.equals(doc.ParentIdentifier))
+                fetchInBackground(reference);
         }
+    }
 
-        Element parentElem = (Element) parentElems.item(0);
-        NodeList children = parentElem.getChildNodes();
-        ArtifactIdentifier ident = new ArtifactIdentifier(null, null, null);
+    /**
+     * Starts loading all import POMs on the given level whose coordinates can already be resolved. Coordinates are
+     * resolved on a scratch result, the actual resolution (and error reporting) happens in the original order later on.
+     */
+    private void fetchImportPomsOnLevel(int level){
+        if(FetchPool == null || !ModelCache.isEnabled())
+            return;
 
-        for(int i = 0; i < children.getLength(); i++){
-            Node n = children.item(i);
+        ResolverResult actualResult = this.result;
+        this.result = new ResolverResult(this.identifier);
 
-            if(n.getNodeType() != Node.ELEMENT_NODE)
-                continue;
+        try {
+            for(DependencySpec spec : this.dependencyManagementSpecsPerHierarchyLevel.get(level)){
+                ArtifactDependency dep = spec.Dependency;
 
-            Element currChild = (Element)n;
+                if(dep.Version == null || dep.Scope == null || !dep.Scope.toLowerCase().equals("import"))
+                    continue;
 
-            switch(currChild.getTagName().toLowerCase()){
-                case "groupid":
-                    ident.GroupId = currChild.getTextContent().trim();
-                    break;
-                case "artifactid":
-                    ident.ArtifactId = currChild.getTextContent().trim();
-                    break;
-                case "version":
-                    ident.Version = currChild.getTextContent().trim();
-                    break;
+                try {
+                    String groupId = resolveAllReferencesInValue(dep.GroupId, spec, level);
+                    String artifactId = resolveAllReferencesInValue(dep.ArtifactId, spec, level);
+                    String version = resolveAllReferencesInValue(dep.Version, spec, level);
+
+                    if(groupId != null && artifactId != null && version != null)
+                        fetchInBackground(new ArtifactIdentifier(groupId, artifactId, version));
+                } catch(Exception x){
+                    // Malformed coordinates are reported when the dependency is actually resolved
+                }
             }
+        } finally {
+            this.result = actualResult;
         }
+    }
 
-        if(ident.GroupId == null || ident.ArtifactId == null || ident.Version == null){
-            ResolverError error = new ResolverError("Incomplete parent definition in POM file", false);
-            this.result.appendError(error);
-            return null;
-        }
+    private void fetchInBackground(ArtifactIdentifier ident){
+        if(!ModelCache.isCachedOrLoading(ident))
+            FetchPool.execute(() -> ModelCache.preload(ident));
+    }
 
-        return ident;
+    private int countImportedBoms(){
+        int importedBoms = 0;
+        for(List<ArtifactIdentifier> identifiersOnLevel : importScopeIdentifiers.values()){
+            importedBoms += identifiersOnLevel.size();
+        }
+        return importedBoms;
     }
 
     private void expandImportScopeDependencies() {
@@ -518,6 +621,7 @@ public class RecursiveDependencyResolver extends DependencyResolver {
             while(newImportScopeDeps)
             {
                 newImportScopeDeps = false;
+                fetchImportPomsOnLevel(level);
 
                 // Clone Hashset to avoid concurrent modification exception
                 HashSet<DependencySpec> specsOnLevel =
@@ -537,21 +641,21 @@ public class RecursiveDependencyResolver extends DependencyResolver {
                                 continue;
                             }
 
-                            InputStream dependencyInputStream = MavenCentralRepository.getInstance()
-                                    .openPomFileInputStream(resolvedImportScopeDep);
+                            PomModel dependencyDoc;
 
-                            if(dependencyInputStream == null){
+                            try {
+                                dependencyDoc = loadPomModel(resolvedImportScopeDep);
+                            } catch(FileNotFoundException fnfx){
                                 throw new FileNotFoundException("Import Dependency POM definition not found on Maven Central: " +
                                         resolvedImportScopeDep);
                             }
 
-                            Document dependencyDoc = parseXml(dependencyInputStream);
-                            importScopeDocuments.get(level).add(dependencyDoc);
-                            importScopeIdentifiers.get(level).add(resolvedImportScopeDep);
-
                             if(dependencyDoc == null){
                                 throw new RuntimeException("Failed to read import dependency pom: " + resolvedImportScopeDep);
                             }
+
+                            importScopeDocuments.get(level).add(dependencyDoc);
+                            importScopeIdentifiers.get(level).add(resolvedImportScopeDep);
                             newImportScopeDeps = true;
                             processRawDependenciesInDocument(dependencyDoc, level, resolvedImportScopeDep,
                                     true);
@@ -576,8 +680,12 @@ public class RecursiveDependencyResolver extends DependencyResolver {
 
     private Document parseXml(InputStream inputStream){
         try{
-            DocumentBuilder builder = builderFactory.newDocumentBuilder();
-            return builder.parse(inputStream);
+            if(documentBuilder == null){
+                documentBuilder = builderFactory.newDocumentBuilder();
+            } else {
+                documentBuilder.reset();
+            }
+            return documentBuilder.parse(inputStream);
         } catch(Exception x){
             x.printStackTrace();
             return null;
@@ -597,8 +705,4 @@ public class RecursiveDependencyResolver extends DependencyResolver {
         }
     }
 
-    private enum DependencyElementContext {
-        DEPENDENCY_MANAGEMENT, PLUGIN_DEPENDENCY, PROJECT_DEPENDENCY, PROFILE_PROJECT_DEPENDENCY
-    }
-
 }
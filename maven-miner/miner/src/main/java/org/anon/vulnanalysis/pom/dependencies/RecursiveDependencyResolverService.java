@@ -0,0 +1,76 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.pom.PomContentBuffer;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ *  Resolves dependencies with the RecursiveDependencyResolver. Each thread reuses one resolver instance, including its
+ *  XML parser and intermediate collections, for all artifacts it processes.
+ *
+ *  Results are memoized in the ResolutionMemo, releases whose POM files only differ in their version from an already
+ *  resolved release are neither parsed nor resolved.
+ */
+public class RecursiveDependencyResolverService implements DependencyResolverService {
+
+    private static final ResolutionMemo Memo = ResolutionMemo.getInstance();
+
+    private final MinerConfiguration config;
+
+    private final ThreadLocal<RecursiveDependencyResolver> resolvers;
+
+    public RecursiveDependencyResolverService(MinerConfiguration config){
+        this.config = config;
+        this.resolvers = ThreadLocal.withInitial(() -> new RecursiveDependencyResolver(null, null, config));
+    }
+
+    @Override
+    public ResolverResult resolveDependencies(InputStream pomStream, ArtifactIdentifier identifier){
+        if(!Memo.isEnabled() || pomStream == null)
+            return resolve(pomStream, identifier, null);
+
+        PomContentBuffer content;
+
+        try {
+            // No copy if the stream reads from a downloaded POM file
+            content = PomContentBuffer.from(pomStream);
+        } catch(IOException iox){
+            ResolverResult result = new ResolverResult(identifier);
+            result.appendError(new ResolverError("Failed to read POM file", iox, false));
+            return result;
+        }
+
+        String memoKey = ResolutionMemo.computeKey(content.getBuffer(), content.size(), identifier);
+
+        if(memoKey != null){
+            ResolverResult memoized = Memo.lookup(memoKey, identifier);
+            if(memoized != null)
+                return memoized;
+        }
+
+        return resolve(content.newInputStream(), identifier, memoKey);
+    }
+
+    private ResolverResult resolve(InputStream pomStream, ArtifactIdentifier identifier, String memoKey){
+        RecursiveDependencyResolver resolver = resolvers.get();
+
+        // Should a thread ever resolve another artifact while waiting inside the resolver, it must not reuse its state
+        if(resolver.isInUse())
+            resolver = new RecursiveDependencyResolver(null, null, config);
+
+        resolver.reset(pomStream, identifier);
+        try {
+            ResolverResult result = resolver.resolveDependencies();
+
+            if(memoKey != null)
+                Memo.record(memoKey, identifier, resolver.getReferencedModels(), result);
+
+            return result;
+        } finally {
+            resolver.reset(null, null);
+        }
+    }
+}
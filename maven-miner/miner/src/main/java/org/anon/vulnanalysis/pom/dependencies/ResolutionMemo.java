@@ -0,0 +1,278 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.model.ArtifactDependency;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.pom.PomContentBuffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ *  Memoizes results of the RecursiveDependencyResolver across the releases of an artifact. Releases of most projects
+ *  have POM files that only differ in their version, as do their parents and imported BOMs. Results are keyed by a
+ *  hash of the POM file in which the version is replaced by a placeholder, and are stored with placeholders as well.
+ *  An entry is only reused if all parent and import POMs of the new release have the same (version-independent)
+ *  fingerprint as those of the memoized release.
+ *
+ *  Replacing the version is a heuristic: a property may e.g. coincidentally have the same value as the project
+ *  version. A new entry is therefore only used after the next release with the same key was resolved completely and
+ *  produced the same result.
+ *
+ *  Since a false match silently changes the mined dependencies, memoization is opt-in: the shared instance is disabled
+ *  until a capacity is configured with "resolver.memocapacity".
+ */
+public class ResolutionMemo {
+
+    // Suggested capacity when memoization is enabled
+    public static final int DefaultCapacity = 10000;
+
+    // XML 1.0 documents cannot contain this character
+    static final String VersionPlaceholder = "\u0000version\u0000";
+
+    // Parent POMs are memoized as part of the PomModelCache, so they must always be parsed
+    private static final Pattern PomPackagingPattern = Pattern.compile("<packaging>\\s*pom\\s*</packaging>");
+
+    private static final ResolutionMemo theInstance = new ResolutionMemo(0);
+
+    private static final PomModelCache ModelCache = PomModelCache.getInstance();
+
+    private final Map<String, Entry> entries;
+
+    private volatile int capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    ResolutionMemo(){
+        this(DefaultCapacity);
+    }
+
+    ResolutionMemo(int capacity){
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, Entry>(1024, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Sets the maximum number of memoized results, a capacity of zero disables memoization.
+     */
+    public void setCapacity(int capacity){
+        if(capacity < 0)
+            throw new IllegalArgumentException("Memo capacity must not be negative");
+
+        this.capacity = capacity;
+
+        synchronized (entries){
+            if(capacity == 0)
+                entries.clear();
+        }
+    }
+
+    /**
+     * Memoization relies on the PomModelCache to compare parent and import POMs.
+     */
+    public boolean isEnabled(){
+        return this.capacity > 0 && ModelCache.isEnabled();
+    }
+
+    /**
+     * Returns the key for the given POM file content, or null if results for this POM file are not memoized.
+     */
+    static String computeKey(byte[] content, ArtifactIdentifier identifier){
+        return computeKey(content, content.length, identifier);
+    }
+
+    static String computeKey(byte[] content, int length, ArtifactIdentifier identifier){
+        if(identifier.Version == null || identifier.Version.isEmpty())
+            return null;
+
+        // Maps each byte to one character, so that different contents never produce the same key
+        String text = new String(content, 0, length, StandardCharsets.ISO_8859_1);
+
+        if(PomPackagingPattern.matcher(text).find())
+            return null;
+
+        byte[] normalized = text.replace(identifier.Version, VersionPlaceholder).getBytes(StandardCharsets.ISO_8859_1);
+        return PomContentBuffer.sha1Hex(normalized, 0, normalized.length);
+    }
+
+    /**
+     * Returns the memoized result for the given artifact, or null if there is no verified entry or the parent and
+     * import POMs of the artifact differ from the memoized ones.
+     */
+    ResolverResult lookup(String key, ArtifactIdentifier identifier){
+        Entry entry;
+
+        synchronized (entries){
+            entry = entries.get(key);
+        }
+
+        if(entry == null || !entry.Verified || !entry.matchesReferencedModels(identifier.Version)){
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.instantiate(identifier);
+    }
+
+    /**
+     * Records the result of a complete resolution. Creates a new entry, or verifies an existing entry with the same
+     * parent and import POMs.
+     */
+    void record(String key, ArtifactIdentifier identifier, List<PomModel> referencedModels, ResolverResult result){
+        if(!result.hasResults() || result.hasErrors())
+            return;
+
+        Entry candidate = new Entry(identifier.Version, referencedModels, result);
+
+        synchronized (entries){
+            Entry existing = entries.get(key);
+
+            if(existing == null || !existing.hasSameReferencedModels(candidate)){
+                entries.put(key, candidate);
+            } else if(!existing.Verified && !existing.Rejected){
+                if(existing.hasSameResult(candidate)){
+                    existing.Verified = true;
+                } else {
+                    existing.Rejected = true;
+                    rejected.increment();
+                }
+            }
+        }
+    }
+
+    public void clear(){
+        synchronized (entries){
+            entries.clear();
+        }
+    }
+
+    public int size(){
+        synchronized (entries){
+            return entries.size();
+        }
+    }
+
+    public long getHits(){
+        return hits.sum();
+    }
+
+    public long getMisses(){
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries that produced a different result than the complete resolution.
+     */
+    public long getRejected(){
+        return rejected.sum();
+    }
+
+    public static ResolutionMemo getInstance(){
+        return theInstance;
+    }
+
+    private static String toTemplate(String value, String version){
+        return value == null ? null : value.replace(version, VersionPlaceholder);
+    }
+
+    private static String fromTemplate(String value, String version){
+        return value == null ? null : value.replace(VersionPlaceholder, version);
+    }
+
+    private static class Entry {
+        final List<ArtifactIdentifier> ReferencedModels;
+        final List<String> ReferencedFingerprints;
+        final ArtifactIdentifier Parent;
+        final Set<ArtifactDependency> Dependencies;
+
+        // Guarded by the entries map
+        boolean Verified = false;
+        boolean Rejected = false;
+
+        Entry(String version, List<PomModel> referencedModels, ResolverResult result){
+            this.ReferencedModels = new ArrayList<>(referencedModels.size());
+            this.ReferencedFingerprints = new ArrayList<>(referencedModels.size());
+
+            for(PomModel model : referencedModels){
+                this.ReferencedModels.add(new ArtifactIdentifier(toTemplate(model.Identifier.GroupId, version),
+                        toTemplate(model.Identifier.ArtifactId, version), toTemplate(model.Identifier.Version, version)));
+                this.ReferencedFingerprints.add(model.getFingerprint(version));
+            }
+
+            ArtifactIdentifier parent = result.getParentIdentifier();
+            this.Parent = parent == null ? null : new ArtifactIdentifier(toTemplate(parent.GroupId, version),
+                    toTemplate(parent.ArtifactId, version), toTemplate(parent.Version, version));
+
+            this.Dependencies = new HashSet<>();
+            for(ArtifactDependency dependency : result.getResults()){
+                this.Dependencies.add(new ArtifactDependency(toTemplate(dependency.GroupId, version),
+                        toTemplate(dependency.ArtifactId, version), toTemplate(dependency.Version, version),
+                        dependency.Scope));
+            }
+        }
+
+        boolean hasSameReferencedModels(Entry other){
+            return ReferencedModels.equals(other.ReferencedModels) &&
+                    ReferencedFingerprints.equals(other.ReferencedFingerprints);
+        }
+
+        boolean hasSameResult(Entry other){
+            return Objects.equals(Parent, other.Parent) && Dependencies.equals(other.Dependencies);
+        }
+
+        /**
+         * Loads the parent and import POMs of the given release (usually from the PomModelCache) and compares them to
+         * the memoized ones.
+         */
+        boolean matchesReferencedModels(String version){
+            try {
+                for(int i = 0; i < ReferencedModels.size(); i++){
+                    ArtifactIdentifier ident = instantiate(ReferencedModels.get(i), version);
+                    PomModel model = ModelCache.getOrLoad(ident, () -> PomModel.load(ident));
+
+                    if(model == null || !ReferencedFingerprints.get(i).equals(model.getFingerprint(version)))
+                        return false;
+                }
+                return true;
+            } catch(Exception x){
+                // The complete resolution reports the actual error
+                return false;
+            }
+        }
+
+        ResolverResult instantiate(ArtifactIdentifier identifier){
+            ResolverResult result = new ResolverResult(identifier);
+            result.setParentIdentifier(Parent == null ? null : instantiate(Parent, identifier.Version));
+
+            Set<ArtifactDependency> dependencies = new HashSet<>();
+            for(ArtifactDependency dependency : Dependencies){
+                dependencies.add(new ArtifactDependency(fromTemplate(dependency.GroupId, identifier.Version),
+                        fromTemplate(dependency.ArtifactId, identifier.Version),
+                        fromTemplate(dependency.Version, identifier.Version), dependency.Scope));
+            }
+
+            result.setResults(dependencies);
+            return result;
+        }
+
+        private static ArtifactIdentifier instantiate(ArtifactIdentifier template, String version){
+            return new ArtifactIdentifier(fromTemplate(template.GroupId, version),
+                    fromTemplate(template.ArtifactId, version), fromTemplate(template.Version, version));
+        }
+    }
+}
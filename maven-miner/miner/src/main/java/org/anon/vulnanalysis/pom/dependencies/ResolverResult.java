@@ -19,12 +19,38 @@ public class ResolverResult {
 
     public long LastModified;
 
+    public String ETag;
+
+    public String ContentHash;
+
+    public long ContentSize;
+
+    private boolean isUnchanged;
+
     public ResolverResult(ArtifactIdentifier ident){
         this.rootArtifactIdentifier = ident;
         this.resultSet = null;
         this.resolverErrors = new ArrayList<>();
         this.parentArtifactIdentifier = null;
         this.LastModified = -1;
+        this.ETag = null;
+        this.ContentHash = null;
+        this.ContentSize = -1;
+        this.isUnchanged = false;
+    }
+
+    /**
+     * Creates a result for an artifact whose POM file did not change since it was stored, there is nothing to resolve
+     * or store for it.
+     */
+    public static ResolverResult unchanged(ArtifactIdentifier ident){
+        ResolverResult result = new ResolverResult(ident);
+        result.isUnchanged = true;
+        return result;
+    }
+
+    public boolean isUnchanged(){
+        return this.isUnchanged;
     }
 
     public void setParentIdentifier(ArtifactIdentifier parent){
@@ -1,11 +1,20 @@
 package org.anon.vulnanalysis.storage;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.anon.vulnanalysis.metrics.Counter;
+import org.anon.vulnanalysis.metrics.Histogram;
+import org.anon.vulnanalysis.metrics.MetricsRegistry;
+import org.anon.vulnanalysis.metrics.jfr.FlightRecorderEvents;
+import org.anon.vulnanalysis.metrics.jfr.Neo4jTransactionEvent;
 import org.anon.vulnanalysis.model.ArtifactIdentifier;
 import org.anon.vulnanalysis.model.MavenArtifact;
+import org.anon.vulnanalysis.model.VersionSortKey;
+import org.anon.vulnanalysis.pom.PomFileValidator;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
 import org.anon.vulnanalysis.model.ArtifactDependency;
 import org.anon.vulnanalysis.pom.dependencies.ResolverResult;
 
@@ -16,63 +25,191 @@ import static org.neo4j.driver.Values.parameters;
 
 public class ArtifactStorageAdapter {
 
+    private static final Histogram CommitTime = MetricsRegistry.getInstance().stageDuration("neo4j_commit");
+    private static final Counter StorageErrors = MetricsRegistry.getInstance().errors("storage");
+
     private final Logger log = LogManager.getLogger(ArtifactStorageAdapter.class);
-    private final Neo4jSessionFactory SessionFactory = Neo4jSessionFactory.getInstance();
+    private final Neo4jSessionFactory SessionFactory;
 
     private final ObjectMapper serializer = new ObjectMapper();
 
-    public ArtifactStorageAdapter(){
+    private final boolean storeVersionSortKeys;
+    // Refresh runs and partitions re-mined after a broken lease encounter artifacts that are already stored
+    private final boolean upsertArtifacts;
+
+    public ArtifactStorageAdapter(MinerConfiguration config){
+        this(config, Neo4jSessionFactory.getInstance());
     }
 
-    public boolean storeArtifactBatch(List<ResolverResult> artifactBatch){
-        try(Session session = SessionFactory.buildSession()){
-            for(ResolverResult result : artifactBatch){
-                MavenArtifact artifact =
-                        new MavenArtifact(result.getRootArtifactIdentifier(), result.LastModified, result.getResults());
+    protected ArtifactStorageAdapter(MinerConfiguration config, Neo4jSessionFactory sessionFactory){
+        this.SessionFactory = sessionFactory;
+        this.storeVersionSortKeys = config.StoreVersionSortKeys;
+        this.upsertArtifacts = config.RefreshExistingArtifacts || config.LeaseDirectoryPath != null;
+    }
 
-                if(result.hasParentIdentifier()){
-                    artifact.setParent(result.getParentIdentifier());
-                }
+    /**
+     * Returns the storage for the given configuration, which does not write to Neo4j in dry runs.
+     */
+    public static ArtifactStorageAdapter create(MinerConfiguration config){
+        return config.DryRun ? new DryRunStorageAdapter(config) : new ArtifactStorageAdapter(config);
+    }
 
-                session.writeTransaction((TransactionWork<Void>) transaction -> {
-                    transaction.run("CREATE (:Artifact {groupId: $group, artifactId: $artifact, version: $version, "+
-                                    "createdAt: $created, parentCoords: $parent, coordinates: $coords, errorsWhileResolving: $resolvererrors, " +
-                                    "hasDownloadErrors: $downloaderrors, dependencies: $deps})",
-                            buildParamMap(artifact, result.getErrors().size(), result.hasDownloadErrors()));
+    /**
+     * Returns the cache validators of the POM file that was stored for the given artifact, or null if the artifact is
+     * not stored yet.
+     */
+    public PomFileValidator loadValidator(ArtifactIdentifier identifier){
+        try(Session session = SessionFactory.buildSession()){
+            return session.readTransaction(tx -> {
+                Result result = tx.run("MATCH (a:Artifact {coordinates: $coords}) RETURN a.createdAt AS created, a.etag AS etag",
+                        parameters("coords", identifier.getCoordinates()));
 
+                if(!result.hasNext())
                     return null;
-                });
+
+                Record record = result.next();
+                return new PomFileValidator(record.get("created").asLong(-1),
+                        record.get("etag").isNull() ? null : record.get("etag").asString());
+            });
+        }
+        catch(Exception x){
+            log.error("Failed to load stored validators for " + identifier.getCoordinates(), x);
+            return null;
+        }
+    }
+
+    /**
+     * Stores all results of the batch, one transaction per artifact. Returns false if any artifact failed to be stored,
+     * a failing artifact does not prevent the remaining ones from being stored.
+     */
+    public boolean storeArtifactBatch(List<ResolverResult> artifactBatch){
+        boolean allStored = true;
+
+        try(Session session = SessionFactory.buildSession()){
+            for(ResolverResult result : artifactBatch){
+                if(result.isUnchanged())
+                    continue; // Already stored
+
+                try {
+                    if(this.upsertArtifacts)
+                        storeOrUpdateArtifact(session, result);
+                    else
+                        storeArtifact(session, result);
+                } catch(Exception x){
+                    log.error("Failed to store artifact " + result.getRootArtifactIdentifier().getCoordinates(), x);
+                    StorageErrors.increment();
+                    allStored = false;
+                }
             }
         }
         catch(Exception x){
             log.error("Critical failure while storing artifacts", x);
+            StorageErrors.increment();
             return false;
         }
 
-        return true;
+        return allStored;
+    }
+
+    private void storeArtifact(Session session, ResolverResult result){
+        MavenArtifact artifact =
+                new MavenArtifact(result.getRootArtifactIdentifier(), result.LastModified, result.getResults());
+
+        if(result.hasParentIdentifier()){
+            artifact.setParent(result.getParentIdentifier());
+        }
+
+        long commitStart = System.nanoTime();
+        writeTransaction(session, "create", result.getRootArtifactIdentifier().getCoordinates(), transaction -> {
+            // Every artifact is linked to its library node, which keeps track of the number of versions and of whether
+            // the version relations of the library are up to date
+            transaction.run("MERGE (l:Library {ga: $ga}) ON CREATE SET l.groupId = $group, " +
+                            "l.artifactId = $artifact, l.versionCount = 0 " +
+                            "CREATE (a:Artifact {groupId: $group, artifactId: $artifact, version: $version, "+
+                            "createdAt: $created, parentCoords: $parent, coordinates: $coords, errorsWhileResolving: $resolvererrors, " +
+                            "hasDownloadErrors: $downloaderrors, dependencies: $deps, versionKey: $versionkey, etag: $etag, " +
+                            "contentHash: $contenthash, contentSize: $contentsize}) " +
+                            "CREATE (l)-[:HAS_VERSION]->(a) SET l.versionCount = l.versionCount + 1, l.linked = false",
+                    buildParamMap(artifact, result));
+
+            return null;
+        });
+        CommitTime.observeSince(commitStart);
+    }
+
+    /**
+     * Refresh runs and re-mined partitions encounter artifacts that are already stored, those are updated in place.
+     * Only new artifacts count as additional versions of their library.
+     */
+    private void storeOrUpdateArtifact(Session session, ResolverResult result){
+        MavenArtifact artifact =
+                new MavenArtifact(result.getRootArtifactIdentifier(), result.LastModified, result.getResults());
+
+        if(result.hasParentIdentifier()){
+            artifact.setParent(result.getParentIdentifier());
+        }
+
+        long commitStart = System.nanoTime();
+        writeTransaction(session, "update", result.getRootArtifactIdentifier().getCoordinates(), transaction -> {
+            transaction.run("MERGE (l:Library {ga: $ga}) ON CREATE SET l.groupId = $group, " +
+                            "l.artifactId = $artifact, l.versionCount = 0 " +
+                            "MERGE (a:Artifact {coordinates: $coords}) ON CREATE SET l.versionCount = l.versionCount + 1, l.linked = false " +
+                            "SET a.groupId = $group, a.artifactId = $artifact, a.version = $version, a.createdAt = $created, " +
+                            "a.parentCoords = $parent, a.errorsWhileResolving = $resolvererrors, " +
+                            "a.hasDownloadErrors = $downloaderrors, a.dependencies = $deps, a.versionKey = $versionkey, " +
+                            "a.etag = $etag, a.contentHash = $contenthash, a.contentSize = $contentsize " +
+                            "MERGE (l)-[:HAS_VERSION]->(a)",
+                    buildParamMap(artifact, result));
+
+            return null;
+        });
+        CommitTime.observeSince(commitStart);
+    }
+
+    /**
+     * Runs the given write transaction, and records it as flight recorder event if available.
+     */
+    private void writeTransaction(Session session, String operation, String coordinates, TransactionWork<Void> work){
+        Neo4jTransactionEvent event = FlightRecorderEvents.Available ? new Neo4jTransactionEvent() : null;
+        boolean succeeded = false;
+
+        try {
+            session.writeTransaction(work);
+            succeeded = true;
+        } finally {
+            if(event != null)
+                event.complete(coordinates, operation, succeeded);
+        }
     }
 
     public void storeFailedIdentifiers(List<ArtifactIdentifier> identifierList){
         try(Session session = SessionFactory.buildSession()){
             for(ArtifactIdentifier current : identifierList){
-                session.writeTransaction((TransactionWork<Void>) tx -> {
-                    tx.run("CREATE (:ProcessingError {groupId: $group, artifactId: $artifact, version: $version, coordinates: $coords})",
-                            parameters("group", current.GroupId,
-                                    "artifact", current.ArtifactId,
-                                    "version", current.Version,
-                                    "coords", current.getCoordinates()));
-                    return null;
-                });
+                try {
+                    writeTransaction(session, "failure", current.getCoordinates(), tx -> {
+                        // Refresh runs and re-mined partitions encounter the same failures again, MERGE uses the unique coordinates
+                        tx.run("MERGE (e:ProcessingError {coordinates: $coords}) SET e.groupId = $group, e.artifactId = $artifact, e.version = $version",
+                                parameters("group", current.GroupId,
+                                        "artifact", current.ArtifactId,
+                                        "version", current.Version,
+                                        "coords", current.getCoordinates()));
+                        return null;
+                    });
+                } catch(Exception x){
+                    log.error("Failed to store failed identifier " + current.getCoordinates(), x);
+                    StorageErrors.increment();
+                }
             }
         }
         catch(Exception x){
             log.error("Critical failure while storing failed identifiers", x);
+            StorageErrors.increment();
         }
     }
 
 
 
-    private Value buildParamMap(MavenArtifact artifact, int resolverErrors, boolean hasDownloadErrors){
+    private Value buildParamMap(MavenArtifact artifact, ResolverResult result){
 
         String dependencyString = null;
 
@@ -91,13 +228,20 @@ public class ArtifactStorageAdapter {
         return parameters(
                 "group", artifact.getIdentifier().GroupId,
                 "artifact", artifact.getIdentifier().ArtifactId,
+                "ga", artifact.getIdentifier().GroupId + ":" + artifact.getIdentifier().ArtifactId,
                 "version", artifact.getIdentifier().Version,
                 "created", artifact.getLastModified(),
                 "parent", artifact.getParent() != null ? artifact.getParent().getCoordinates() : "none",
                 "coords", artifact.getIdentifier().getCoordinates(),
-                "resolvererrors", resolverErrors,
-                "downloaderrors", hasDownloadErrors,
-                "deps", dependencyString
+                "resolvererrors", result.getErrors().size(),
+                "downloaderrors", result.hasDownloadErrors(),
+                "deps", dependencyString,
+                "etag", result.ETag,
+                "contenthash", result.ContentHash,
+                "contentsize", result.ContentSize,
+                // Null values are not stored, so the property is only present if sort keys are enabled
+                "versionkey", this.storeVersionSortKeys ?
+                        VersionSortKey.toSortableString(VersionSortKey.encode(artifact.getIdentifier().Version)) : null
         );
     }
 }
@@ -0,0 +1,83 @@
+package org.anon.vulnanalysis.storage;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.pom.dependencies.ResolverResult;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  Thread-safe buffer in front of the ArtifactStorageAdapter. Workers add the results of single artifacts, whenever
+ *  the buffer reaches the configured batch size the adding thread writes it to the database. This way storage batching
+ *  is independent of how work is distributed across workers, and no result waits for unrelated artifacts.
+ */
+public class BufferedArtifactStorage {
+
+    private final ArtifactStorageAdapter storageAdapter;
+    private final int flushSize;
+
+    private List<ResolverResult> bufferedResults;
+    private List<ArtifactIdentifier> bufferedFailures;
+
+    public BufferedArtifactStorage(MinerConfiguration config){
+        this.storageAdapter = ArtifactStorageAdapter.create(config);
+        this.flushSize = Math.max(1, config.BatchSize);
+        this.bufferedResults = new ArrayList<>(flushSize);
+        this.bufferedFailures = new ArrayList<>();
+    }
+
+    public void addResult(ResolverResult result){
+        List<ResolverResult> toStore = null;
+
+        synchronized (this){
+            bufferedResults.add(result);
+
+            if(bufferedResults.size() >= flushSize){
+                toStore = bufferedResults;
+                bufferedResults = new ArrayList<>(flushSize);
+            }
+        }
+
+        // Write outside of the lock, other workers may keep adding results meanwhile
+        if(toStore != null)
+            storageAdapter.storeArtifactBatch(toStore);
+    }
+
+    public void addFailedIdentifier(ArtifactIdentifier identifier){
+        List<ArtifactIdentifier> toStore = null;
+
+        synchronized (this){
+            bufferedFailures.add(identifier);
+
+            if(bufferedFailures.size() >= flushSize){
+                toStore = bufferedFailures;
+                bufferedFailures = new ArrayList<>();
+            }
+        }
+
+        if(toStore != null)
+            storageAdapter.storeFailedIdentifiers(toStore);
+    }
+
+    /**
+     * Writes all buffered results and failures, must be called once all workers are done.
+     */
+    public void flush(){
+        List<ResolverResult> results;
+        List<ArtifactIdentifier> failures;
+
+        synchronized (this){
+            results = bufferedResults;
+            failures = bufferedFailures;
+            bufferedResults = new ArrayList<>(flushSize);
+            bufferedFailures = new ArrayList<>();
+        }
+
+        if(!results.isEmpty())
+            storageAdapter.storeArtifactBatch(results);
+
+        if(!failures.isEmpty())
+            storageAdapter.storeFailedIdentifiers(failures);
+    }
+}
@@ -2,6 +2,7 @@ package org.anon.vulnanalysis.storage;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.neo4j.driver.Record;
 import org.neo4j.driver.Result;
 import org.neo4j.driver.Session;
 
@@ -21,6 +22,8 @@ public class BufferedLibraryIdentifierIterator implements Iterator<String> {
 
     private boolean incrementalOnly = false;
 
+    private boolean libraryNodesComplete = false;
+
     public BufferedLibraryIdentifierIterator(){
         this.identifierIndex = new ArrayList<>();
         this.isInitialized = false;
@@ -42,11 +45,36 @@ public class BufferedLibraryIdentifierIterator implements Iterator<String> {
         this.incrementalOnly = true;
     }
 
+    /**
+     * Whether libraries are enumerated via their library nodes. Only the case if the library nodes account for every
+     * artifact, graphs that were (partially) mined before library nodes were introduced fall back to enumerating
+     * libraries via their artifacts until library nodes are materialized for them.
+     */
+    public boolean usesLibraryNodes(){
+        return this.libraryNodesComplete;
+    }
+
     public void buildIndex(){
 
         log.info("Start building index of all library identifiers...");
 
         try(Session session = sessionFactory.buildSession()){
+            // Both counts are cheap: artifacts are counted via the count store, and there are far fewer libraries
+            long artifactCount = session.run("MATCH (a:Artifact) RETURN count(a) AS artifacts").single()
+                    .get("artifacts").asLong();
+            Record libraryCounts = session.run("MATCH (l:Library) RETURN count(l) AS libraries, " +
+                    "sum(l.versionCount) AS versions").single();
+
+            if(libraryCounts.get("libraries").asLong() == 0){
+                log.warn("No library nodes found in graph, enumerating libraries via artifacts instead.");
+            } else if(libraryCounts.get("versions").asLong() != artifactCount){
+                log.warn("Library nodes cover " + libraryCounts.get("versions").asLong() + " of " + artifactCount +
+                        " artifacts, enumerating libraries via artifacts instead. Run materialize-libs to create the " +
+                        "missing library nodes.");
+            } else {
+                this.libraryNodesComplete = true;
+            }
+
             Result result = session.run(this.buildIteratorQuery());
 
             while(result.hasNext()){
@@ -82,6 +110,15 @@ public class BufferedLibraryIdentifierIterator implements Iterator<String> {
     }
 
     private String buildIteratorQuery(){
+        if(this.libraryNodesComplete){
+            if(this.incrementalOnly){
+                // Storing a new version resets the flag, resolving the relations of the library sets it
+                return "MATCH (l:Library) WHERE NOT coalesce(l.linked, false) RETURN l.ga AS lib";
+            } else {
+                return "MATCH (l:Library) RETURN l.ga AS lib";
+            }
+        }
+
         if(this.incrementalOnly){
             return "MATCH (a:Artifact) WHERE NOT EXISTS ((a)-[:NEXT]->(:Artifact)) " +
                     "AND NOT EXISTS((a)<-[:NEXT]-(:Artifact)) " +
@@ -0,0 +1,132 @@
+package org.anon.vulnanalysis.storage;
+
+import org.anon.vulnanalysis.metrics.Counter;
+import org.anon.vulnanalysis.metrics.MetricsRegistry;
+import org.anon.vulnanalysis.model.ArtifactDependency;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.pom.PomFileValidator;
+import org.anon.vulnanalysis.pom.dependencies.ResolverResult;
+import org.anon.vulnanalysis.utils.MinerConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ *  Storage of the dry-run execution mode, which does not need a Neo4j database. Results are only counted, and
+ *  optionally written to a file with one line per artifact (coordinates, parent and sorted dependencies), so that the
+ *  results of two runs can be compared with standard tools.
+ */
+public class DryRunStorageAdapter extends ArtifactStorageAdapter {
+
+    private static final MetricsRegistry Metrics = MetricsRegistry.getInstance();
+    private static final Counter StoredArtifacts =
+            Metrics.counter("miner_dry_run_artifacts_total", "Artifacts that would have been stored");
+    private static final Counter StoredDependencies =
+            Metrics.counter("miner_dry_run_dependencies_total", "Dependencies that would have been stored");
+    private static final Counter StoredFailures =
+            Metrics.counter("miner_dry_run_failures_total", "Failed identifiers that would have been stored");
+
+    private static final Logger log = LogManager.getLogger(DryRunStorageAdapter.class);
+
+    // Shared by all adapters of the run, guarded by the class
+    private static BufferedWriter output = null;
+
+    DryRunStorageAdapter(MinerConfiguration config){
+        super(config, null);
+
+        if(config.DryRunOutputPath != null)
+            openOutput(config.DryRunOutputPath);
+    }
+
+    private static synchronized void openOutput(String path){
+        if(output != null)
+            return;
+
+        try {
+            output = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8);
+            log.info("Writing dry run results to " + path);
+        } catch(IOException iox){
+            log.error("Failed to open dry run output file " + path + ", results are only counted", iox);
+        }
+    }
+
+    /**
+     * Writes all remaining results to the output file and closes it.
+     */
+    public static synchronized void closeOutput(){
+        if(output == null)
+            return;
+
+        try {
+            output.close();
+        } catch(IOException iox){
+            log.error("Failed to close dry run output file", iox);
+        }
+        output = null;
+    }
+
+    /**
+     * Nothing is stored in a dry run, all artifacts are resolved.
+     */
+    @Override
+    public PomFileValidator loadValidator(ArtifactIdentifier identifier){
+        return null;
+    }
+
+    @Override
+    public boolean storeArtifactBatch(List<ResolverResult> artifactBatch){
+        StringBuilder lines = new StringBuilder();
+
+        for(ResolverResult result : artifactBatch){
+            if(result.isUnchanged())
+                continue;
+
+            StoredArtifacts.increment();
+
+            TreeSet<String> dependencies = new TreeSet<>();
+            if(result.hasResults()){
+                for(ArtifactDependency dependency : result.getResults()){
+                    dependencies.add(dependency.toString());
+                }
+            }
+            StoredDependencies.add(dependencies.size());
+
+            lines.append(result.getRootArtifactIdentifier().getCoordinates()).append('\t')
+                    .append(result.hasParentIdentifier() ? result.getParentIdentifier().getCoordinates() : "none")
+                    .append('\t').append(String.join(",", dependencies)).append('\n');
+        }
+
+        write(lines);
+        return true;
+    }
+
+    @Override
+    public void storeFailedIdentifiers(List<ArtifactIdentifier> identifierList){
+        StringBuilder lines = new StringBuilder();
+
+        for(ArtifactIdentifier identifier : identifierList){
+            StoredFailures.increment();
+            lines.append(identifier.getCoordinates()).append("\tfailed\n");
+        }
+
+        write(lines);
+    }
+
+    private static synchronized void write(StringBuilder lines){
+        if(output == null || lines.length() == 0)
+            return;
+
+        try {
+            output.write(lines.toString());
+        } catch(IOException iox){
+            log.error("Failed to write dry run results", iox);
+        }
+    }
+}
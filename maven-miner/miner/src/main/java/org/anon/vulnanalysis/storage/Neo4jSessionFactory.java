@@ -3,6 +3,7 @@ package org.anon.vulnanalysis.storage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.neo4j.driver.*;
+import org.neo4j.driver.exceptions.ClientException;
 import org.anon.vulnanalysis.utils.MinerConfiguration;
 
 public class Neo4jSessionFactory  implements AutoCloseable{
@@ -20,12 +21,22 @@ public class Neo4jSessionFactory  implements AutoCloseable{
             instance = new Neo4jSessionFactory(config);
     }
 
+    // Neo4j 4.0 has no 'IF NOT EXISTS', re-creating an existing index or constraint fails with this code
+    private static final String SchemaRuleExistsCode = "Neo.ClientError.Schema.EquivalentSchemaRuleAlreadyExists";
+
     public static boolean ensureIndicesPresent(){
         try(Session session = instance.buildSession()){
 
-            session.run("CREATE INDEX FOR (a:Artifact) ON (a.groupId, a.artifactId)");
-            session.run("CREATE CONSTRAINT ON (a:Artifact) ASSERT a.coordinates IS UNIQUE");
-            session.run("CREATE CONSTRAINT ON (ref:ArtifactReference) ASSERT ref.coordinates IS UNIQUE");
+            createSchemaRule(session, "CREATE INDEX FOR (a:Artifact) ON (a.groupId, a.artifactId)");
+            createSchemaRule(session, "CREATE CONSTRAINT ON (a:Artifact) ASSERT a.coordinates IS UNIQUE");
+            createSchemaRule(session, "CREATE CONSTRAINT ON (ref:ArtifactReference) ASSERT ref.coordinates IS UNIQUE");
+            createSchemaRule(session, "CREATE CONSTRAINT ON (l:Library) ASSERT l.ga IS UNIQUE");
+            createSchemaRule(session, "CREATE CONSTRAINT ON (e:ProcessingError) ASSERT e.coordinates IS UNIQUE");
+
+            if(instance.minerConfig.StoreVersionSortKeys){
+                // Allows ordering all versions of a library via index
+                createSchemaRule(session, "CREATE INDEX FOR (a:Artifact) ON (a.groupId, a.artifactId, a.versionKey)");
+            }
 
             return true;
         } catch (Exception x){
@@ -34,6 +45,25 @@ public class Neo4jSessionFactory  implements AutoCloseable{
         }
     }
 
+    /**
+     * Runs the given schema statement on its own, so that a rule created by a previous run or by another instance
+     * does not keep the remaining rules from being created.
+     */
+    private static void createSchemaRule(Session session, String statement){
+        try {
+            session.run(statement).consume();
+        } catch(ClientException cx){
+            if(!SchemaRuleExistsCode.equals(cx.code()))
+                throw cx;
+
+            log.debug("Schema rule already present: " + statement);
+        }
+    }
+
+    public static boolean isInitialized(){
+        return instance != null;
+    }
+
     public static Neo4jSessionFactory getInstance(){
         if(instance == null){
             throw new IllegalStateException("Session Factory has not been initialized yet.");
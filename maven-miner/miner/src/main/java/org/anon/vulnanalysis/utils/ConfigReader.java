@@ -1,9 +1,12 @@
 package org.anon.vulnanalysis.utils;
 
+import org.anon.vulnanalysis.model.MavenCentralRepository;
+import org.anon.vulnanalysis.model.RepositoryStandIn;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Properties;
@@ -19,6 +22,34 @@ public class ConfigReader {
     private static final String Neo4jHostKey = "neo4j.host";
     private static final String Neo4jUserKey = "neo4j.user";
     private static final String Neo4jPassKey = "neo4j.pass";
+    private static final String LibResolverSingleScanKey = "libresolver.singlescan";
+    private static final String StoreVersionSortKeysKey = "storage.versionkeys";
+    private static final String GroupArtifactsByLibraryKey = "miner.grouplibraries";
+    private static final String ResolveParentsFirstKey = "miner.parentsfirst";
+    private static final String PomModelCacheSizeKey = "resolver.modelcache";
+    private static final String AetherCacheSizeKey = "resolver.aethercache";
+    private static final String ResolutionMemoCapacityKey = "resolver.memocapacity";
+    private static final String MissingPomTimeToLiveKey = "resolver.missingttl";
+    private static final String PrefetchThreadsKey = "resolver.prefetchthreads";
+    private static final String FetchThreadsKey = "resolver.fetchthreads";
+    private static final String MavenWorkersKey = "resolver.mvnworkers";
+    private static final String MavenCommandKey = "resolver.mvncommand";
+    private static final String RoutingThresholdKey = "resolver.routingthreshold";
+    private static final String WorkStealingSchedulerKey = "miner.workstealing";
+    private static final String RefreshExistingArtifactsKey = "miner.refresh";
+    private static final String DryRunOutputKey = "miner.dryrunoutput";
+    private static final String RepositoryUrlKey = "repository.url";
+    private static final String RepositoryModeKey = "repository.mode";
+    private static final String RepositoryArchiveKey = "repository.archive";
+    private static final String ReplayLatencyKey = "repository.replaylatency";
+    private static final String ShardCountKey = "distributed.shards";
+    private static final String ShardIndexKey = "distributed.shardindex";
+    private static final String LeaseDirectoryKey = "distributed.leasedir";
+    private static final String PartitionCountKey = "distributed.partitions";
+    private static final String InstanceIdKey = "distributed.instance";
+    private static final String MetricsHttpPortKey = "metrics.port";
+    private static final String MetricsJmxKey = "metrics.jmx";
+    private static final String ProgressReportIntervalKey = "metrics.reportinterval";
 
     public static MinerConfiguration readConfiguration(String configFilePath){
         if(Files.notExists(Paths.get(configFilePath))){
@@ -79,6 +110,187 @@ public class ConfigReader {
                 log.error("Configuration is missing required key " + Neo4jPassKey);
                 return null;
             }
+
+            if(props.containsKey(LibResolverSingleScanKey)){
+                config.LibraryResolverSingleScan = Boolean.parseBoolean(props.getProperty(LibResolverSingleScanKey));
+            } else {
+                config.LibraryResolverSingleScan = false;
+            }
+
+            if(props.containsKey(StoreVersionSortKeysKey)){
+                config.StoreVersionSortKeys = Boolean.parseBoolean(props.getProperty(StoreVersionSortKeysKey));
+            } else {
+                config.StoreVersionSortKeys = false;
+            }
+
+            if(props.containsKey(GroupArtifactsByLibraryKey)){
+                config.GroupArtifactsByLibrary = Boolean.parseBoolean(props.getProperty(GroupArtifactsByLibraryKey));
+            } else {
+                config.GroupArtifactsByLibrary = false;
+            }
+
+            if(props.containsKey(ResolveParentsFirstKey)){
+                config.ResolveParentsFirst = Boolean.parseBoolean(props.getProperty(ResolveParentsFirstKey));
+            } else {
+                config.ResolveParentsFirst = false;
+            }
+
+            if(props.containsKey(PomModelCacheSizeKey)){
+                config.PomModelCacheSize = Integer.parseInt(props.getProperty(PomModelCacheSizeKey));
+            } else {
+                config.PomModelCacheSize = 10000;
+            }
+
+            if(props.containsKey(AetherCacheSizeKey)){
+                config.AetherCacheSize = Integer.parseInt(props.getProperty(AetherCacheSizeKey));
+            } else {
+                config.AetherCacheSize = 50000;
+            }
+
+            if(props.containsKey(ResolutionMemoCapacityKey)){
+                config.ResolutionMemoCapacity = Integer.parseInt(props.getProperty(ResolutionMemoCapacityKey));
+            } else {
+                config.ResolutionMemoCapacity = 0;
+            }
+
+            if(props.containsKey(MissingPomTimeToLiveKey)){
+                config.MissingPomTimeToLiveHours = Long.parseLong(props.getProperty(MissingPomTimeToLiveKey));
+            } else {
+                config.MissingPomTimeToLiveHours = 24;
+            }
+
+            if(props.containsKey(PrefetchThreadsKey)){
+                config.NumberOfPrefetchThreads = Integer.parseInt(props.getProperty(PrefetchThreadsKey));
+            } else {
+                config.NumberOfPrefetchThreads = 0;
+            }
+
+            if(props.containsKey(FetchThreadsKey)){
+                config.NumberOfFetchThreads = Integer.parseInt(props.getProperty(FetchThreadsKey));
+            } else {
+                config.NumberOfFetchThreads = 0;
+            }
+
+            if(props.containsKey(MavenWorkersKey)){
+                config.NumberOfMavenWorkers = Integer.parseInt(props.getProperty(MavenWorkersKey));
+            } else {
+                config.NumberOfMavenWorkers = 2;
+            }
+
+            // Platform default (mvn or mvn.cmd) if not set
+            if(props.containsKey(MavenCommandKey) && !props.getProperty(MavenCommandKey).trim().isEmpty()){
+                config.MavenCommand = props.getProperty(MavenCommandKey).trim();
+            } else {
+                config.MavenCommand = null;
+            }
+
+            if(props.containsKey(RoutingThresholdKey)){
+                config.RoutingFailureRateThreshold = Double.parseDouble(props.getProperty(RoutingThresholdKey));
+            } else {
+                config.RoutingFailureRateThreshold = 0;
+            }
+
+            if(props.containsKey(WorkStealingSchedulerKey)){
+                config.UseWorkStealingScheduler = Boolean.parseBoolean(props.getProperty(WorkStealingSchedulerKey));
+            } else {
+                config.UseWorkStealingScheduler = false;
+            }
+
+            if(props.containsKey(RefreshExistingArtifactsKey)){
+                config.RefreshExistingArtifacts = Boolean.parseBoolean(props.getProperty(RefreshExistingArtifactsKey));
+            } else {
+                config.RefreshExistingArtifacts = false;
+            }
+
+            if(props.containsKey(DryRunOutputKey) && !props.getProperty(DryRunOutputKey).trim().isEmpty()){
+                config.DryRunOutputPath = props.getProperty(DryRunOutputKey).trim();
+            } else {
+                config.DryRunOutputPath = null;
+            }
+
+            if(props.containsKey(RepositoryUrlKey) && !props.getProperty(RepositoryUrlKey).trim().isEmpty()){
+                config.RepositoryUrl = props.getProperty(RepositoryUrlKey).trim();
+            } else {
+                config.RepositoryUrl = MavenCentralRepository.DefaultRepoBasePath;
+            }
+
+            if(props.containsKey(RepositoryModeKey) && !props.getProperty(RepositoryModeKey).trim().isEmpty()){
+                String mode = props.getProperty(RepositoryModeKey).trim();
+                try {
+                    config.RepositoryMode = RepositoryStandIn.Mode.valueOf(mode.toUpperCase());
+                } catch(IllegalArgumentException iax){
+                    log.error("Invalid repository mode " + mode + ", expected live, record or replay");
+                    return null;
+                }
+            } else {
+                config.RepositoryMode = RepositoryStandIn.Mode.LIVE;
+            }
+
+            if(props.containsKey(RepositoryArchiveKey) && !props.getProperty(RepositoryArchiveKey).trim().isEmpty()){
+                config.RepositoryArchivePath = props.getProperty(RepositoryArchiveKey).trim();
+            } else {
+                config.RepositoryArchivePath = Paths.get(config.WorkingDirectoryPath, "repository-archive").toString();
+            }
+
+            if(props.containsKey(ReplayLatencyKey)){
+                config.ReplayRecordedLatency = Boolean.parseBoolean(props.getProperty(ReplayLatencyKey));
+            } else {
+                config.ReplayRecordedLatency = false;
+            }
+
+            if(props.containsKey(ShardCountKey)){
+                config.ShardCount = Integer.parseInt(props.getProperty(ShardCountKey));
+            } else {
+                config.ShardCount = 1;
+            }
+
+            if(props.containsKey(ShardIndexKey)){
+                config.ShardIndex = Integer.parseInt(props.getProperty(ShardIndexKey));
+            } else {
+                config.ShardIndex = 0;
+            }
+
+            if(config.ShardIndex < 0 || config.ShardIndex >= config.ShardCount){
+                log.error("Invalid shard index " + config.ShardIndex + " for " + config.ShardCount + " shards");
+                return null;
+            }
+
+            if(props.containsKey(LeaseDirectoryKey) && !props.getProperty(LeaseDirectoryKey).trim().isEmpty()){
+                config.LeaseDirectoryPath = props.getProperty(LeaseDirectoryKey).trim();
+            } else {
+                config.LeaseDirectoryPath = null;
+            }
+
+            if(props.containsKey(PartitionCountKey)){
+                config.NumberOfPartitions = Integer.parseInt(props.getProperty(PartitionCountKey));
+            } else {
+                config.NumberOfPartitions = 64;
+            }
+
+            if(props.containsKey(InstanceIdKey)){
+                config.InstanceId = props.getProperty(InstanceIdKey);
+            } else {
+                // pid@hostname
+                config.InstanceId = ManagementFactory.getRuntimeMXBean().getName();
+            }
+
+            if(props.containsKey(MetricsHttpPortKey)){
+                config.MetricsHttpPort = Integer.parseInt(props.getProperty(MetricsHttpPortKey));
+            } else {
+                config.MetricsHttpPort = 0;
+            }
+
+            if(props.containsKey(MetricsJmxKey)){
+                config.MetricsJmxEnabled = Boolean.parseBoolean(props.getProperty(MetricsJmxKey));
+            } else {
+                config.MetricsJmxEnabled = false;
+            }
+
+            if(props.containsKey(ProgressReportIntervalKey)){
+                config.ProgressReportIntervalSeconds = Integer.parseInt(props.getProperty(ProgressReportIntervalKey));
+            } else {
+                config.ProgressReportIntervalSeconds = 60;
+            }
         }
         catch(IOException iox){
             log.error("IO failure while reading configuration.", iox);
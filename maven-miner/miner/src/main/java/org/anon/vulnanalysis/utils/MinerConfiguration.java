@@ -1,5 +1,10 @@
 package org.anon.vulnanalysis.utils;
 
+import org.anon.vulnanalysis.model.MavenCentralRepository;
+import org.anon.vulnanalysis.model.RepositoryStandIn;
+
+import java.lang.management.ManagementFactory;
+
 public class MinerConfiguration {
 
     public String WorkingDirectoryPath;
@@ -18,6 +23,66 @@ public class MinerConfiguration {
 
     public String Neo4jPassword;
 
+    public boolean LibraryResolverSingleScan;
+
+    public boolean StoreVersionSortKeys;
+
+    public boolean GroupArtifactsByLibrary;
+
+    public boolean ResolveParentsFirst;
+
+    public int PomModelCacheSize;
+
+    public int AetherCacheSize;
+
+    // Opt-in, the memo substitutes results for releases that were not resolved. Zero disables it
+    public int ResolutionMemoCapacity;
+
+    public long MissingPomTimeToLiveHours;
+
+    public int NumberOfPrefetchThreads;
+
+    public int NumberOfFetchThreads;
+
+    public int NumberOfMavenWorkers;
+
+    public String MavenCommand;
+
+    public double RoutingFailureRateThreshold;
+
+    public boolean UseWorkStealingScheduler;
+
+    public boolean RefreshExistingArtifacts;
+
+    // Set by the dry-run execution mode, results are not stored in Neo4j
+    public boolean DryRun;
+
+    public String DryRunOutputPath;
+
+    public String RepositoryUrl;
+
+    public RepositoryStandIn.Mode RepositoryMode;
+
+    public String RepositoryArchivePath;
+
+    public boolean ReplayRecordedLatency;
+
+    public int ShardCount;
+
+    public int ShardIndex;
+
+    public String LeaseDirectoryPath;
+
+    public int NumberOfPartitions;
+
+    public String InstanceId;
+
+    public int MetricsHttpPort;
+
+    public boolean MetricsJmxEnabled;
+
+    public int ProgressReportIntervalSeconds;
+
     public static MinerConfiguration getDefaultConfig(){
         MinerConfiguration config = new MinerConfiguration();
         config.WorkingDirectoryPath = ".";
@@ -28,6 +93,35 @@ public class MinerConfiguration {
         config.Neo4jUsername = "neo4j";
         config.Neo4jHost = "bolt://localhost:7687";
         config.Neo4jPassword = "<CHANGEME>";
+        config.LibraryResolverSingleScan = false;
+        config.StoreVersionSortKeys = false;
+        config.GroupArtifactsByLibrary = false;
+        config.ResolveParentsFirst = false;
+        config.PomModelCacheSize = 10000;
+        config.AetherCacheSize = 50000;
+        config.ResolutionMemoCapacity = 0;
+        config.MissingPomTimeToLiveHours = 24;
+        config.NumberOfPrefetchThreads = 0;
+        config.NumberOfFetchThreads = 0;
+        config.NumberOfMavenWorkers = 2;
+        config.MavenCommand = null;
+        config.RoutingFailureRateThreshold = 0;
+        config.UseWorkStealingScheduler = false;
+        config.RefreshExistingArtifacts = false;
+        config.DryRun = false;
+        config.DryRunOutputPath = null;
+        config.RepositoryUrl = MavenCentralRepository.DefaultRepoBasePath;
+        config.RepositoryMode = RepositoryStandIn.Mode.LIVE;
+        config.RepositoryArchivePath = "repository-archive";
+        config.ReplayRecordedLatency = false;
+        config.ShardCount = 1;
+        config.ShardIndex = 0;
+        config.LeaseDirectoryPath = null;
+        config.NumberOfPartitions = 64;
+        config.InstanceId = ManagementFactory.getRuntimeMXBean().getName();
+        config.MetricsHttpPort = 0;
+        config.MetricsJmxEnabled = false;
+        config.ProgressReportIntervalSeconds = 60;
 
         return config;
     }
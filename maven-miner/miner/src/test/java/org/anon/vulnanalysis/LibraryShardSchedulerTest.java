@@ -0,0 +1,55 @@
+package org.anon.vulnanalysis;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LibraryShardSchedulerTest {
+
+    @Test()
+    @DisplayName("Idle workers steal batches of a single large shard")
+    void testStealing() throws Exception {
+        LibraryShardScheduler scheduler = new LibraryShardScheduler(4);
+        Set<String> workers = ConcurrentHashMap.newKeySet();
+        AtomicInteger processed = new AtomicInteger();
+
+        for(int i = 0; i < 40; i++){
+            scheduler.schedule("org.webjars.npm", () -> {
+                workers.add(Thread.currentThread().getName());
+                processed.incrementAndGet();
+                try {
+                    Thread.sleep(10);
+                } catch(InterruptedException ix){
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        scheduler.awaitCompletion();
+
+        Assertions.assertEquals(40, processed.get());
+        Assertions.assertTrue(workers.size() > 1);
+        Assertions.assertTrue(scheduler.getStolenBatches() > 0);
+    }
+
+    @Test()
+    @DisplayName("Batches of the same shard run in order on their own worker if no worker is idle")
+    void testOrderWithinShard() throws Exception {
+        LibraryShardScheduler scheduler = new LibraryShardScheduler(1);
+        StringBuilder order = new StringBuilder();
+
+        for(int i = 0; i < 5; i++){
+            int batch = i;
+            scheduler.schedule("org.example", () -> order.append(batch));
+        }
+
+        scheduler.awaitCompletion();
+
+        Assertions.assertEquals("01234", order.toString());
+        Assertions.assertEquals(0, scheduler.getStolenBatches());
+    }
+}
@@ -0,0 +1,85 @@
+package org.anon.vulnanalysis.distribution;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class FileLeaseCoordinatorTest {
+
+    private static final long NoTimeout = TimeUnit.DAYS.toMillis(1);
+
+    @Test()
+    @DisplayName("Instances lease distinct partitions until all partitions are done")
+    void testAcquireAndComplete(@TempDir Path leaseDirectory) throws Exception {
+        FileLeaseCoordinator first = new FileLeaseCoordinator(leaseDirectory.toString(), 4, "first", NoTimeout);
+        FileLeaseCoordinator second = new FileLeaseCoordinator(leaseDirectory.toString(), 4, "second", NoTimeout);
+
+        try {
+            Set<Integer> leased = new HashSet<>();
+
+            for(int i = 0; i < 2; i++){
+                int firstPartition = first.acquirePartition();
+                int secondPartition = second.acquirePartition();
+
+                Assertions.assertTrue(leased.add(firstPartition));
+                Assertions.assertTrue(leased.add(secondPartition));
+
+                first.completePartition(firstPartition, 1);
+                second.completePartition(secondPartition, 1);
+
+                Assertions.assertTrue(Files.exists(leaseDirectory.resolve("partition-" + firstPartition + ".done")));
+                Assertions.assertFalse(Files.exists(leaseDirectory.resolve("partition-" + firstPartition + ".lease")));
+            }
+
+            Assertions.assertEquals(4, leased.size());
+            Assertions.assertEquals(-1, first.acquirePartition());
+            Assertions.assertEquals(-1, second.acquirePartition());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test()
+    @DisplayName("An instance whose lease was broken neither renews nor completes the new owner's lease")
+    void testBrokenLease(@TempDir Path leaseDirectory) throws Exception {
+        // Leases expire immediately, so the second instance breaks the first one's lease
+        FileLeaseCoordinator first = new FileLeaseCoordinator(leaseDirectory.toString(), 1, "first", 0);
+        FileLeaseCoordinator second = new FileLeaseCoordinator(leaseDirectory.toString(), 1, "second", 0);
+        Path leaseFile = leaseDirectory.resolve("partition-0.lease");
+        Path doneFile = leaseDirectory.resolve("partition-0.done");
+
+        try {
+            Assertions.assertEquals(0, first.acquirePartition());
+            Assertions.assertTrue(first.ownsLease(0));
+
+            Assertions.assertEquals(0, second.acquirePartition());
+            Assertions.assertTrue(second.ownsLease(0));
+            Assertions.assertFalse(first.ownsLease(0));
+
+            first.renewLeases();
+            first.completePartition(0, 1);
+
+            Assertions.assertFalse(Files.exists(doneFile));
+            Assertions.assertEquals("second", new String(Files.readAllBytes(leaseFile), StandardCharsets.UTF_8));
+
+            second.renewLeases();
+            second.completePartition(0, 1);
+
+            Assertions.assertTrue(Files.exists(doneFile));
+            Assertions.assertFalse(Files.exists(leaseFile));
+            Assertions.assertEquals(-1, first.acquirePartition());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+}
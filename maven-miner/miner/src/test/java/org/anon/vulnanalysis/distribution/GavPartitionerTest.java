@@ -0,0 +1,52 @@
+package org.anon.vulnanalysis.distribution;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GavPartitionerTest {
+
+    @Test()
+    @DisplayName("All versions of a library are mapped to the same partition")
+    void testLibraryFamily() {
+        int partition = GavPartitioner.partitionOf(new ArtifactIdentifier("org.apache.commons", "commons-lang3", "3.0"), 64);
+
+        for(int i = 1; i < 20; i++){
+            ArtifactIdentifier version = new ArtifactIdentifier("org.apache.commons", "commons-lang3", "3." + i);
+            Assertions.assertEquals(partition, GavPartitioner.partitionOf(version, 64));
+        }
+    }
+
+    @Test()
+    @DisplayName("Partitions are in range and spread similar libraries evenly")
+    void testDistribution() {
+        int numberOfPartitions = 16;
+        int numberOfLibraries = 16000;
+        int[] counts = new int[numberOfPartitions];
+
+        for(int i = 0; i < numberOfLibraries; i++){
+            ArtifactIdentifier identifier = new ArtifactIdentifier("org.example.group" + (i % 100), "library-" + i, "1.0");
+            int partition = GavPartitioner.partitionOf(identifier, numberOfPartitions);
+
+            Assertions.assertTrue(partition >= 0 && partition < numberOfPartitions);
+            counts[partition]++;
+        }
+
+        int expected = numberOfLibraries / numberOfPartitions;
+        for(int count : counts){
+            Assertions.assertTrue(count > expected * 0.8 && count < expected * 1.2, "Unbalanced partition with " + count + " libraries");
+        }
+    }
+
+    @Test()
+    @DisplayName("Partitions do not depend on the instance computing them")
+    void testDeterminism() {
+        // String hash codes are specified by the JLS, so this value holds on every JVM
+        ArtifactIdentifier identifier = new ArtifactIdentifier("junit", "junit", "4.12");
+        int partition = GavPartitioner.partitionOf(identifier, 1000);
+
+        Assertions.assertEquals(partition, GavPartitioner.partitionOf(new ArtifactIdentifier("junit", "junit", "4.13"), 1000));
+        Assertions.assertEquals(0, GavPartitioner.partitionOf(identifier, 1));
+    }
+}
@@ -0,0 +1,72 @@
+package org.anon.vulnanalysis.model;
+
+import org.anon.vulnanalysis.pom.PomFileValidator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+public class RepositoryStandInTest {
+
+    private final ArtifactIdentifier recorded = new ArtifactIdentifier("org.example", "module", "1.0");
+    private final ArtifactIdentifier recordedMissing = new ArtifactIdentifier("org.example", "missing-parent", "1.0");
+    private final ArtifactIdentifier notRecorded = new ArtifactIdentifier("org.example", "other", "1.0");
+
+    private final byte[] pomContent = "<project><artifactId>module</artifactId></project>".getBytes(StandardCharsets.UTF_8);
+
+    @Test()
+    @DisplayName("Recorded responses are replayed, including missing files and cache validation")
+    void testReplay(@TempDir Path directory) throws Exception {
+        try(RepositoryArchive archive = RepositoryArchive.openForRecording(directory)){
+            archive.record(pathOf(recorded), new RepositoryArchive.RecordedResponse(200, 5, 1600000000000L, "\"abc\""),
+                    pomContent);
+            archive.record(pathOf(recordedMissing), new RepositoryArchive.RecordedResponse(404, 5, 0, null), null);
+        }
+
+        RepositoryStandIn standIn = new RepositoryStandIn();
+        standIn.startReplay(RepositoryArchive.open(directory), false);
+
+        try {
+            Assertions.assertTrue(MavenCentralRepository.getRepoBasePath().startsWith("http://"));
+
+            try(InputStream in = MavenCentralRepository.getInstance().openPomFileInputStreamOrFail(recorded)){
+                Assertions.assertArrayEquals(pomContent, readAll(in));
+            }
+
+            Assertions.assertThrows(FileNotFoundException.class,
+                    () -> MavenCentralRepository.getInstance().openPomFileInputStreamOrFail(recordedMissing));
+            Assertions.assertThrows(FileNotFoundException.class,
+                    () -> MavenCentralRepository.getInstance().openPomFileInputStreamOrFail(notRecorded));
+
+            HttpURLConnection unchanged = (HttpURLConnection) MavenCentralRepository.getInstance()
+                    .openConditionalPomFileConnection(recorded, new PomFileValidator(0, "\"abc\""));
+            Assertions.assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, unchanged.getResponseCode());
+        } finally {
+            standIn.shutdown();
+        }
+
+        Assertions.assertEquals(MavenCentralRepository.DefaultRepoBasePath, MavenCentralRepository.getRepoBasePath());
+    }
+
+    private static String pathOf(ArtifactIdentifier identifier){
+        return identifier.GroupId.replace('.', '/') + "/" + identifier.ArtifactId + "/" + identifier.Version + "/" +
+                identifier.ArtifactId + "-" + identifier.Version + ".pom";
+    }
+
+    private static byte[] readAll(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while((read = in.read(buffer)) > 0){
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
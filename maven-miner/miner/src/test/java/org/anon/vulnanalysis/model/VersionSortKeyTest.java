@@ -0,0 +1,230 @@
+package org.anon.vulnanalysis.model;
+
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class VersionSortKeyTest {
+
+    // Taken from Maven's own ComparableVersion tests, each list is in ascending order
+    private final List<String> qualifierVersions = Arrays.asList("1-alpha2snapshot", "1-alpha2", "1-alpha-123",
+            "1-beta-2", "1-beta123", "1-m2", "1-m11", "1-rc", "1-cr2", "1-rc123", "1-SNAPSHOT", "1", "1-sp", "1-sp2",
+            "1-sp123", "1-abc", "1-def", "1-pom-1", "1-1-snapshot", "1-1", "1-2", "1-123");
+
+    // Maven's list also contains "11.a" after "11", which is part of a cycle (see testCycles)
+    private final List<String> numberVersions = Arrays.asList("2.0", "2-1", "2.0.a", "2.0.0.a", "2.0.2", "2.0.123",
+            "2.1.0", "2.1-a", "2.1b", "2.1-c", "2.1-1", "2.1.0.1", "2.2", "2.123", "11.a2", "11.a11", "11.b2", "11.b11",
+            "11.m2", "11.m11", "11", "11b", "11c", "11m");
+
+    private final List<String> randomParts = Arrays.asList("0", "1", "2", "10", "alpha", "beta", "a1", "b2", "m1", "rc",
+            "cr1", "snapshot", "ga", "final", "release", "sp", "sp1", "abc", "v20200101", "jre", "");
+
+    private final List<String> qualifierStyles = Arrays.asList("", "-SNAPSHOT", "-alpha-1", "-beta2", "-RC1", "-M3",
+            ".RELEASE", ".Final", ".CR2", ".Beta1", "-rc-2");
+
+    private List<String> buildRealisticVersions(){
+        Random random = new Random(42);
+        List<String> versions = new ArrayList<>();
+
+        for(int i = 0; i < 500; i++){
+            StringBuilder builder = new StringBuilder();
+            builder.append(random.nextInt(12));
+
+            int parts = random.nextInt(4);
+            for(int j = 0; j < parts; j++){
+                builder.append('.').append(random.nextInt(j == 0 ? 20 : 4));
+            }
+
+            builder.append(qualifierStyles.get(random.nextInt(qualifierStyles.size())));
+            versions.add(builder.toString());
+        }
+
+        return versions;
+    }
+
+    private List<String> buildRandomVersions(){
+        Random random = new Random(7);
+        List<String> versions = new ArrayList<>();
+
+        for(int i = 0; i < 400; i++){
+            StringBuilder builder = new StringBuilder();
+            builder.append(random.nextInt(3));
+
+            int parts = random.nextInt(4);
+            for(int j = 0; j < parts; j++){
+                builder.append(random.nextBoolean() ? '.' : '-').append(randomParts.get(random.nextInt(randomParts.size())));
+            }
+
+            versions.add(builder.toString());
+        }
+
+        return versions;
+    }
+
+    private int compareWithMaven(String first, String second){
+        return Integer.signum(new ComparableVersion(first).compareTo(new ComparableVersion(second)));
+    }
+
+    /**
+     * Whether Maven orders the three versions in a way no total order can reproduce.
+     */
+    private boolean isMavenCycle(String first, String second, String third){
+        List<String> versions = Arrays.asList(first, second, third);
+
+        for(int ranks = 0; ranks < 27; ranks++){
+            int[] rank = {ranks % 3, (ranks / 3) % 3, ranks / 9};
+            boolean consistent = true;
+
+            for(int i = 0; i < 3 && consistent; i++){
+                for(int j = 0; j < 3 && consistent; j++){
+                    consistent = Integer.signum(rank[i] - rank[j]) == compareWithMaven(versions.get(i), versions.get(j));
+                }
+            }
+
+            if(consistent)
+                return false;
+        }
+
+        return true;
+    }
+
+    // Versions that close cycles with a pair of versions, built from the prefixes of both
+    private List<String> buildCycleCandidates(String first, String second){
+        List<String> candidates = new ArrayList<>();
+
+        for(String version : Arrays.asList(first, second)){
+            for(int i = 1; i <= version.length(); i++){
+                if(i == version.length() || version.charAt(i) == '.' || version.charAt(i) == '-'){
+                    String prefix = version.substring(0, i);
+                    candidates.addAll(Arrays.asList(prefix, prefix + "-snapshot", prefix + ".sp", prefix + "-1",
+                            prefix + ".0.alpha", prefix + "-0.1"));
+                }
+            }
+        }
+
+        return candidates;
+    }
+
+    private void assertSameOrderAsMaven(List<String> versions){
+        for(String first : versions){
+            for(String second : versions){
+                int expected = Integer.signum(new DefaultArtifactVersion(first).compareTo(new DefaultArtifactVersion(second)));
+                int actual = Integer.signum(VersionSortKey.compare(VersionSortKey.encode(first), VersionSortKey.encode(second)));
+
+                Assertions.assertEquals(expected, actual, "Order differs for " + first + " and " + second);
+            }
+        }
+    }
+
+    @Test()
+    @DisplayName("Sort keys must order qualifiers like Maven does")
+    public void testQualifierOrder(){
+        assertSameOrderAsMaven(qualifierVersions);
+    }
+
+    @Test()
+    @DisplayName("Sort keys must order numbers like Maven does")
+    public void testNumberOrder(){
+        assertSameOrderAsMaven(numberVersions);
+    }
+
+    @Test()
+    @DisplayName("Sort keys must order '.' qualifiers below '-' sub-lists like Maven does")
+    public void testMixedQualifierOrder(){
+        assertSameOrderAsMaven(Arrays.asList("1.2.3.v20200101", "1.2.3-SNAPSHOT"));
+        assertSameOrderAsMaven(Arrays.asList("1.abc", "1-alpha"));
+        assertSameOrderAsMaven(Arrays.asList("1.sp", "1-alpha"));
+        assertSameOrderAsMaven(Arrays.asList("1.2.3.Beta1", "1.2.3-alpha-1", "1.2.3.v20200101", "1.2.3-SNAPSHOT", "1.2.3-1"));
+        assertSameOrderAsMaven(Arrays.asList("1-alpha", "1-0.1"));
+    }
+
+    @Test()
+    @DisplayName("Sort keys must break Maven's cycles by Maven's order of item types")
+    public void testCycles(){
+        List<List<String>> cycles = Arrays.asList(Arrays.asList("11.a", "11-alpha", "11"),
+                Arrays.asList("1.2.3.v20200101", "1.2.3-SNAPSHOT", "1.2.3"),
+                Arrays.asList("3.2.6.SP1", "3.2.6-beta", "3.2.6.Final"),
+                Arrays.asList("1.0.alpha", "1", "1-1"),
+                Arrays.asList("1", "1-0.0.1", "1-0.1"));
+
+        for(List<String> cycle : cycles){
+            Assertions.assertTrue(isMavenCycle(cycle.get(0), cycle.get(1), cycle.get(2)));
+
+            // Ascending by sort key
+            for(int i = 1; i < cycle.size(); i++){
+                Assertions.assertTrue(VersionSortKey.compare(VersionSortKey.encode(cycle.get(i - 1)), VersionSortKey.encode(cycle.get(i))) < 0,
+                        cycle.get(i - 1) + " must sort below " + cycle.get(i));
+            }
+        }
+    }
+
+    @Test()
+    @DisplayName("Sort keys must agree with Maven on all random pairs that are not part of a cycle")
+    public void testRandomVersions(){
+        List<String> versions = buildRandomVersions();
+
+        for(String first : versions){
+            for(String second : versions){
+                int expected = compareWithMaven(first, second);
+                int actual = Integer.signum(VersionSortKey.compare(VersionSortKey.encode(first), VersionSortKey.encode(second)));
+
+                if(expected == actual)
+                    continue;
+
+                boolean isCycle = false;
+                for(String third : versions){
+                    if(isCycle = isMavenCycle(first, second, third))
+                        break;
+                }
+
+                if(!isCycle){
+                    for(String third : buildCycleCandidates(first, second)){
+                        if(isCycle = isMavenCycle(first, second, third))
+                            break;
+                    }
+                }
+
+                Assertions.assertTrue(isCycle, "Order differs for " + first + " and " + second);
+            }
+        }
+    }
+
+    @Test()
+    @DisplayName("Sort keys must treat equivalent versions as equal")
+    public void testEquivalentVersions(){
+        assertSameOrderAsMaven(Arrays.asList("1", "1.0", "1.0.0", "1-0", "1.0.0.Final", "1-ga", "1.RELEASE", "1.0-final"));
+        assertSameOrderAsMaven(Arrays.asList("1.0.0.123456789012", "1.0.0.123456789012345678901", "1.0.0.0000123"));
+    }
+
+    @Test()
+    @DisplayName("Sort keys must order realistic version strings like Maven does")
+    public void testRealisticVersions(){
+        assertSameOrderAsMaven(buildRealisticVersions());
+    }
+
+    @Test()
+    @DisplayName("Sortable strings must preserve the key order")
+    public void testSortableStrings(){
+        List<String> versions = buildRealisticVersions();
+
+        for(String first : versions){
+            byte[] firstKey = VersionSortKey.encode(first);
+            String firstString = VersionSortKey.toSortableString(firstKey);
+
+            Assertions.assertArrayEquals(firstKey, VersionSortKey.fromSortableString(firstString));
+
+            for(String second : versions){
+                byte[] secondKey = VersionSortKey.encode(second);
+                Assertions.assertEquals(Integer.signum(VersionSortKey.compare(firstKey, secondKey)),
+                        Integer.signum(firstString.compareTo(VersionSortKey.toSortableString(secondKey))));
+            }
+        }
+    }
+}
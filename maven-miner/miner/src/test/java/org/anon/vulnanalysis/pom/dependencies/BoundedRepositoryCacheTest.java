@@ -0,0 +1,27 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BoundedRepositoryCacheTest {
+
+    @Test()
+    @DisplayName("The repository cache evicts the least recently used entries beyond its capacity")
+    void testEviction() {
+        BoundedRepositoryCache cache = new BoundedRepositoryCache(2);
+
+        cache.put(null, "parent", 1);
+        cache.put(null, "bom", 2);
+
+        // Makes the parent the most recently used entry
+        Assertions.assertEquals(1, cache.get(null, "parent"));
+
+        cache.put(null, "other", 3);
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(1, cache.get(null, "parent"));
+        Assertions.assertNull(cache.get(null, "bom"));
+        Assertions.assertEquals(3, cache.get(null, "other"));
+    }
+}
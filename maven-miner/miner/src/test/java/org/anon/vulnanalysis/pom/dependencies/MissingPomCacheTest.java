@@ -0,0 +1,52 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+public class MissingPomCacheTest {
+
+    private final ArtifactIdentifier missingParent = new ArtifactIdentifier("org.example", "missing-parent", "1.0");
+
+    @Test()
+    @DisplayName("Missing POM files are remembered and survive a restart")
+    void testPersistence() throws Exception {
+        MissingPomCache cache = new MissingPomCache();
+        Assertions.assertFalse(cache.isKnownMissing(missingParent));
+
+        cache.markMissing(missingParent);
+        Assertions.assertTrue(cache.isKnownMissing(missingParent));
+
+        Path file = Files.createTempFile("missing-poms", ".tsv");
+        try {
+            cache.saveTo(file);
+
+            MissingPomCache restarted = new MissingPomCache();
+            restarted.loadFrom(file);
+            Assertions.assertTrue(restarted.isKnownMissing(missingParent));
+            Assertions.assertEquals(1, restarted.size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test()
+    @DisplayName("Entries of the missing POM cache expire")
+    void testExpiration() throws Exception {
+        MissingPomCache cache = new MissingPomCache();
+        cache.setTimeToLive(50, TimeUnit.MILLISECONDS);
+        cache.markMissing(missingParent);
+
+        Thread.sleep(100);
+        Assertions.assertFalse(cache.isKnownMissing(missingParent));
+
+        cache.setTimeToLive(0, TimeUnit.HOURS);
+        cache.markMissing(missingParent);
+        Assertions.assertFalse(cache.isKnownMissing(missingParent));
+    }
+}
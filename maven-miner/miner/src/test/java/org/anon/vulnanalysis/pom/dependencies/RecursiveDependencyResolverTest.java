@@ -2,11 +2,17 @@ package org.anon.vulnanalysis.pom.dependencies;
 
 import org.anon.vulnanalysis.model.ArtifactDependency;
 import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.anon.vulnanalysis.model.MavenCentralRepository;
 import org.anon.vulnanalysis.pom.PomFileUtils;
 import org.anon.vulnanalysis.utils.MinerConfiguration;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Objects;
 import java.util.Set;
 
@@ -160,6 +166,48 @@ public class RecursiveDependencyResolverTest {
         Assertions.assertTrue(result.getResults().size() > 0);
     }
 
+    @Test()
+    @DisplayName("RecursiveResolver must terminate on cyclic parents and cyclic property references")
+    public void testCycles(@TempDir Path repository) throws Exception {
+        writePom(repository, "cyclic-a", "<parent><groupId>org.example</groupId><artifactId>cyclic-b</artifactId>" +
+                "<version>1.0</version></parent>");
+        writePom(repository, "cyclic-b", "<parent><groupId>org.example</groupId><artifactId>cyclic-a</artifactId>" +
+                "<version>1.0</version></parent>");
+        String cyclicProperties = writePom(repository, "cyclic-properties", "<properties><a>${b}</a><b>${a}</b></properties>" +
+                "<dependencies><dependency><groupId>org.example</groupId><artifactId>dep</artifactId>" +
+                "<version>${a}</version></dependency></dependencies>");
+
+        String previousBasePath = MavenCentralRepository.getRepoBasePath();
+        MavenCentralRepository.setRepoBasePath(repository.toUri().toString());
+
+        try {
+            ArtifactIdentifier cyclicParentIdent = new ArtifactIdentifier("org.example", "cyclic-a", "1.0");
+            ResolverResult cyclicParent = new RecursiveDependencyResolver(PomFileUtils.openPomFileInputStream(cyclicParentIdent),
+                    cyclicParentIdent, MinerConfiguration.getDefaultConfig()).resolveDependencies();
+
+            Assertions.assertTrue(cyclicParent.hasErrors());
+            Assertions.assertTrue(cyclicParent.getErrors().stream().anyMatch(e -> e.toString().contains("Cycle")));
+
+            ResolverResult cyclicProperty = new RecursiveDependencyResolver(
+                    new ByteArrayInputStream(cyclicProperties.getBytes(StandardCharsets.UTF_8)),
+                    new ArtifactIdentifier("org.example", "cyclic-properties", "1.0"),
+                    MinerConfiguration.getDefaultConfig()).resolveDependencies();
+
+            Assertions.assertTrue(cyclicProperty.hasErrors());
+        } finally {
+            MavenCentralRepository.setRepoBasePath(previousBasePath);
+        }
+    }
+
+    private static String writePom(Path repository, String artifactId, String content) throws Exception {
+        String pom = "<project><modelVersion>4.0.0</modelVersion><groupId>org.example</groupId><artifactId>" + artifactId +
+                "</artifactId><version>1.0</version>" + content + "</project>";
+        Path file = repository.resolve("org/example/" + artifactId + "/1.0/" + artifactId + "-1.0.pom");
+        Files.createDirectories(file.getParent());
+        Files.write(file, pom.getBytes(StandardCharsets.UTF_8));
+        return pom;
+    }
+
 
     @Test()
     @DisplayName("RecursiveResolver should output the same as the MavenResolver")
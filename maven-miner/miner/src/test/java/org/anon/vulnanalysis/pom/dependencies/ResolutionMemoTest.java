@@ -0,0 +1,70 @@
+package org.anon.vulnanalysis.pom.dependencies;
+
+import org.anon.vulnanalysis.model.ArtifactDependency;
+import org.anon.vulnanalysis.model.ArtifactIdentifier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ResolutionMemoTest {
+
+    private static final String PomTemplate = "<project><groupId>org.example</groupId><artifactId>module</artifactId>" +
+            "<version>VERSION</version><dependencies><dependency><groupId>org.example</groupId>" +
+            "<artifactId>core</artifactId><version>${project.version}</version></dependency></dependencies></project>";
+
+    @Test()
+    @DisplayName("Results are reused for releases that only differ in their version")
+    void testReuseAcrossReleases() {
+        ResolutionMemo memo = new ResolutionMemo();
+
+        // Two releases are needed to verify the entry
+        resolve(memo, "1.0", "1.0");
+        ArtifactIdentifier release = new ArtifactIdentifier("org.example", "module", "1.1");
+        Assertions.assertNull(memo.lookup(keyOf(release), release));
+        resolve(memo, "1.1", "1.1");
+
+        ArtifactIdentifier nextRelease = new ArtifactIdentifier("org.example", "module", "1.2");
+        ResolverResult result = memo.lookup(keyOf(nextRelease), nextRelease);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertEquals(Collections.singleton(new ArtifactDependency("org.example", "core", "1.2", "compile")),
+                result.getResults());
+        Assertions.assertEquals(1, memo.getHits());
+    }
+
+    @Test()
+    @DisplayName("Entries are rejected if the version only coincidentally matched")
+    void testRejection() {
+        ResolutionMemo memo = new ResolutionMemo();
+
+        // The dependency version does not follow the project version
+        resolve(memo, "1.0", "1.0");
+        resolve(memo, "1.1", "1.0");
+
+        ArtifactIdentifier nextRelease = new ArtifactIdentifier("org.example", "module", "1.2");
+        Assertions.assertNull(memo.lookup(keyOf(nextRelease), nextRelease));
+        Assertions.assertEquals(1, memo.getRejected());
+    }
+
+    private static void resolve(ResolutionMemo memo, String version, String dependencyVersion){
+        ArtifactIdentifier identifier = new ArtifactIdentifier("org.example", "module", version);
+
+        Set<ArtifactDependency> dependencies = new HashSet<>();
+        dependencies.add(new ArtifactDependency("org.example", "core", dependencyVersion, "compile"));
+
+        ResolverResult result = new ResolverResult(identifier);
+        result.setResults(dependencies);
+
+        memo.record(keyOf(identifier), identifier, Collections.emptyList(), result);
+    }
+
+    private static String keyOf(ArtifactIdentifier identifier){
+        return ResolutionMemo.computeKey(PomTemplate.replace("VERSION", identifier.Version)
+                .getBytes(StandardCharsets.UTF_8), identifier);
+    }
+}